@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.RobotoCache;
+import com.github.gregwhitaker.roboto.spring.RobotoHosts;
+import com.github.gregwhitaker.roboto.spring.RobotoMapper;
+import com.github.gregwhitaker.roboto.spring.RobotoProperties;
+import com.github.gregwhitaker.roboto.spring.SitemapGenerator;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Synthetic mappers, requests and bean factories shared by the benchmarks.
+ */
+final class BenchmarkSupport {
+    static final String SCHEME = "https";
+    static final String HOST = "www.example.com";
+    static final int PORT = 443;
+    static final String BASE_URL = SCHEME + "://" + HOST + ":" + PORT;
+
+    /**
+     * Package holding the controllers generated by the <code>generateControllers</code> task.
+     */
+    static final String CONTROLLERS_PACKAGE = "com.github.gregwhitaker.roboto.benchmarks.controllers";
+
+    private BenchmarkSupport() {
+
+    }
+
+    /**
+     * Creates a mapper with the given number of allowed paths, and the given number of disallowed paths for
+     * all user agents.
+     *
+     * @param allowed number of allowed paths
+     * @param disallowed number of disallowed paths
+     * @return mapper
+     */
+    static RobotoMapper mapper(int allowed, int disallowed) {
+        return new SyntheticRobotoMapper(allowed, disallowed);
+    }
+
+    /**
+     * Creates the hosts of an application without host rules of its own, whose canonical host is the benchmark host.
+     *
+     * @param generator sitemap generator of the application's endpoints
+     * @return hosts
+     */
+    static RobotoHosts hosts(SitemapGenerator generator) {
+        RobotoProperties properties = new RobotoProperties();
+        properties.getCanonical().setHost(HOST);
+        return RobotoHosts.create(generator, properties);
+    }
+
+    /**
+     * Creates the cache key of a document requested from the benchmark host, the way the controller does.
+     *
+     * @param hosts hosts
+     * @param document document name
+     * @return cache key
+     */
+    static RobotoCache.Key key(RobotoHosts hosts, String document) {
+        return hosts.createKey(hosts.getGenerator(HOST), SCHEME, HOST, PORT, document);
+    }
+
+    /**
+     * Creates a bean factory whose auto-configuration package is the package of the generated controllers
+     * for the given controller count.
+     *
+     * @param controllers number of controllers
+     * @return bean factory
+     */
+    static BeanFactory beanFactory(int controllers) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        AutoConfigurationPackages.register(beanFactory, CONTROLLERS_PACKAGE + ".c" + controllers);
+
+        return beanFactory;
+    }
+
+    /**
+     * Gets the path of a synthetic page, spread over a hundred sections.
+     *
+     * @param i page number
+     * @return path
+     */
+    static String path(int i) {
+        return "/section-" + (i % 100) + "/page-" + i;
+    }
+
+    private static final class SyntheticRobotoMapper extends RobotoMapper {
+
+        private SyntheticRobotoMapper(int allowed, int disallowed) {
+            List<String> paths = new ArrayList<>(allowed);
+            for (int i = 0; i < allowed; i++) {
+                paths.add(path(i));
+            }
+            allow(paths);
+
+            List<String> disallowedPaths = new ArrayList<>(disallowed);
+            for (int i = 0; i < disallowed; i++) {
+                disallowedPaths.add("/private" + path(i));
+            }
+            disallow(new String[] { "*" }, disallowedPaths);
+
+            // Crawlers with no disallowed paths are listed with an empty Disallow line
+            disallow(new String[] { "Googlebot" }, Collections.emptyList());
+        }
+    }
+}
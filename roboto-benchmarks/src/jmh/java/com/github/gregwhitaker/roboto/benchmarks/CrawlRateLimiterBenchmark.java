@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.CrawlRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures taking a token from the crawl rate limiter, as the rate limit filter does on every request, with
+ * several threads contending for the buckets of 1,000 crawler addresses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+@Fork(1)
+public class CrawlRateLimiterBenchmark {
+    private static final String CRAWLER = "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)";
+    private static final String BROWSER = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/66.0.3359.181 Safari/537.36";
+
+    private CrawlRateLimiter limiter;
+    private String[] addresses;
+
+    @Setup
+    public void setup() {
+        Map<String, Set<String>> groups = new HashMap<>();
+        groups.put("*", Collections.singleton("/private"));
+
+        Map<String, Integer> crawlDelays = new HashMap<>();
+        crawlDelays.put("*", 1);
+
+        limiter = CrawlRateLimiter.create(groups, crawlDelays, Arrays.asList("bot", "crawl", "spider", "slurp"), 5);
+
+        addresses = new String[1000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long crawler(ThreadState state) {
+        return limiter.acquire(CRAWLER, addresses[state.next()]);
+    }
+
+    @Benchmark
+    public long browser(ThreadState state) {
+        return limiter.acquire(BROWSER, addresses[state.next()]);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int index;
+
+        int next() {
+            index = (index + 1) % 1000;
+            return index;
+        }
+    }
+}
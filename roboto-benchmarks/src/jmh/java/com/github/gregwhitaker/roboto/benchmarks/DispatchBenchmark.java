@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.RobotoCache;
+import com.github.gregwhitaker.roboto.spring.RobotoController;
+import com.github.gregwhitaker.roboto.spring.RobotoFastPathFilter;
+import com.github.gregwhitaker.roboto.spring.RobotoHosts;
+import com.github.gregwhitaker.roboto.spring.RobotoProperties;
+import com.github.gregwhitaker.roboto.spring.SitemapGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serving cached documents through the {@link RobotoController}, dispatched by Spring MVC, with serving
+ * them from the {@link RobotoFastPathFilter}. Both paths share the same cache, which is warmed before measuring,
+ * and write to mock responses that discard the body, so the difference is the cost of dispatching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DispatchBenchmark {
+
+    /**
+     * Fails the benchmark if the filter passes a request on instead of serving it.
+     */
+    private static final FilterChain UNREACHABLE = (request, response) -> {
+        throw new IllegalStateException("Not served by the fast path: " + request);
+    };
+
+    @Param({ "/robots.txt", "/sitemap.xml" })
+    public String path;
+
+    @Param({ "identity", "gzip" })
+    public String encoding;
+
+    private AnnotationConfigWebApplicationContext context;
+    private DispatcherServlet dispatcherServlet;
+    private RobotoFastPathFilter filter;
+
+    @Setup
+    public void setup() throws ServletException, IOException {
+        RobotoProperties properties = new RobotoProperties();
+        SitemapGenerator generator = new SitemapGenerator(BenchmarkSupport.mapper(1000, 100),
+                Collections.emptyList(), SitemapGenerator.MAX_URLS, 1000);
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+        RobotoCache cache = new RobotoCache(16);
+
+        RobotoController controller = new RobotoController(() -> hosts, cache, properties);
+        filter = new RobotoFastPathFilter(() -> hosts, cache, properties);
+
+        MockServletContext servletContext = new MockServletContext();
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(servletContext);
+        context.register(WebMvcConfiguration.class);
+        context.addBeanFactoryPostProcessor(beanFactory -> beanFactory.registerSingleton("robotoController", controller));
+
+        dispatcherServlet = new DispatcherServlet(context);
+        dispatcherServlet.init(new MockServletConfig(servletContext, "dispatcherServlet"));
+
+        // Renders the document into the cache, so that the filter serves it
+        DiscardingResponse response = dispatcherServlet();
+        if (response.getStatus() != 200 || response.getWritten() == 0) {
+            throw new IllegalStateException(path + " returned " + response.getStatus());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dispatcherServlet.destroy();
+        context.close();
+    }
+
+    /**
+     * Serves the document through the DispatcherServlet, handler mapping, handler adapter and message converters.
+     */
+    @Benchmark
+    public DiscardingResponse dispatcherServlet() throws ServletException, IOException {
+        DiscardingResponse response = new DiscardingResponse();
+        dispatcherServlet.service(request(), response);
+
+        return response;
+    }
+
+    /**
+     * Serves the document from the fast path filter, without reaching the DispatcherServlet.
+     */
+    @Benchmark
+    public DiscardingResponse fastPath() throws ServletException, IOException {
+        DiscardingResponse response = new DiscardingResponse();
+        filter.doFilter(request(), response, UNREACHABLE);
+
+        return response;
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setScheme(BenchmarkSupport.SCHEME);
+        request.setServerName(BenchmarkSupport.HOST);
+        request.setServerPort(BenchmarkSupport.PORT);
+        request.addHeader("Accept-Encoding", encoding);
+
+        return request;
+    }
+
+    /**
+     * Mock response that counts the bytes written instead of keeping them. The mock's own output stream copies
+     * one byte at a time, which would outweigh the dispatching being measured.
+     */
+    public static final class DiscardingResponse extends MockHttpServletResponse {
+
+        private long written;
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written += len;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class WebMvcConfiguration {
+
+    }
+}
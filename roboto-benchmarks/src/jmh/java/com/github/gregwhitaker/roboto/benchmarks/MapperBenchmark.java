@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.IndexRobotoMapper;
+import com.github.gregwhitaker.roboto.spring.RobotoMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup cost of discovering endpoints, by scanning the classpath and by loading the
+ * compile-time index, over synthetic sets of controllers.
+ *
+ * Each controller has two allowed GET endpoints, one disallowed GET endpoint and one POST endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int controllers;
+
+    private BeanFactory beanFactory;
+    private Path indexDir;
+    private ClassLoader indexClassLoader;
+
+    @Setup
+    public void setup() throws IOException {
+        beanFactory = BenchmarkSupport.beanFactory(controllers);
+
+        // Same entries as the index roboto-processor generates for the synthetic controllers
+        indexDir = Files.createTempDirectory("roboto-index");
+        Path index = indexDir.resolve(IndexRobotoMapper.INDEX_LOCATION);
+        Files.createDirectories(index.getParent());
+
+        try (Writer writer = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < controllers; i++) {
+                String path = "/c" + controllers + "/" + i;
+
+                writer.write("allow\t" + path + "\n");
+                writer.write("allow\t" + path + "/details\n");
+                writer.write("disallow\t*\t" + path + "/admin\n");
+            }
+        }
+
+        // No parent, so that only the synthetic index is found
+        indexClassLoader = new URLClassLoader(new URL[] { indexDir.toUri().toURL() }, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ((URLClassLoader) indexClassLoader).close();
+        FileSystemUtils.deleteRecursively(indexDir);
+    }
+
+    @Benchmark
+    public RobotoMapper classpath() {
+        return new RobotoMapper(beanFactory);
+    }
+
+    @Benchmark
+    public RobotoMapper index() throws IOException {
+        return new IndexRobotoMapper(indexClassLoader);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.RobotoMapper;
+import com.github.gregwhitaker.roboto.spring.RobotsMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking requests against the compiled robots.txt rules, as the enforcement filter does on every
+ * request, for mappers with the given number of disallowed paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RobotsMatcherBenchmark {
+    private static final String CRAWLER = "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)";
+    private static final String BROWSER = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/66.0.3359.181 Safari/537.36";
+
+    @Param({ "10", "1000", "100000" })
+    public int urls;
+
+    private RobotsMatcher matcher;
+    private String disallowedPath;
+    private String allowedPath;
+
+    @Setup
+    public void setup() {
+        RobotoMapper mapper = BenchmarkSupport.mapper(0, urls);
+        matcher = RobotsMatcher.compile(mapper.getDisallowed(), Arrays.asList("bot", "crawl", "spider", "slurp"));
+
+        disallowedPath = "/private" + BenchmarkSupport.path(urls / 2) + "/details";
+        allowedPath = BenchmarkSupport.path(urls / 2);
+    }
+
+    @Benchmark
+    public boolean crawlerDisallowed() {
+        return matcher.isDisallowed(CRAWLER, disallowedPath, 0);
+    }
+
+    @Benchmark
+    public boolean crawlerAllowed() {
+        return matcher.isDisallowed(CRAWLER, allowedPath, 0);
+    }
+
+    @Benchmark
+    public boolean browser() {
+        return matcher.isDisallowed(BROWSER, disallowedPath, 0);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.RobotoCache;
+import com.github.gregwhitaker.roboto.spring.RobotoDocument;
+import com.github.gregwhitaker.roboto.spring.RobotoHosts;
+import com.github.gregwhitaker.roboto.spring.RobotoMapper;
+import com.github.gregwhitaker.roboto.spring.RobotsResponse;
+import com.github.gregwhitaker.roboto.spring.RobotsRules;
+import com.github.gregwhitaker.roboto.spring.SitemapGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serving robots.txt from the cache, rendering it, and computing its rules from scratch, for mappers with
+ * the given number of allowed and disallowed paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RobotsResponseBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int urls;
+
+    private RobotoMapper mapper;
+    private RobotoCache cache;
+    private RobotoHosts hosts;
+
+    @Setup
+    public void setup() {
+        mapper = BenchmarkSupport.mapper(urls, urls);
+        cache = new RobotoCache(1);
+        hosts = BenchmarkSupport.hosts(new SitemapGenerator(mapper, Collections.emptyList(),
+                SitemapGenerator.MAX_URLS, 1000));
+    }
+
+    /**
+     * Serves robots.txt the way {@link com.github.gregwhitaker.roboto.spring.RobotoController} does. Every call
+     * after the first is a cache hit.
+     */
+    @Benchmark
+    public RobotoDocument create() {
+        return RobotsResponse.create(cache, BenchmarkSupport.key(hosts, RobotsResponse.DOCUMENT));
+    }
+
+    /**
+     * Renders robots.txt, including its gzip variant and ETag, as happens on a cache miss or refresh. The rules are
+     * computed by the mapper on the first call only.
+     */
+    @Benchmark
+    public RobotoDocument render() {
+        return RobotsResponse.render(BenchmarkSupport.BASE_URL, mapper);
+    }
+
+    /**
+     * Computes the minimized robots.txt rules, as happens once per mapper unless they are loaded from a snapshot.
+     */
+    @Benchmark
+    public Map<String, Set<String>> rules() {
+        return RobotsRules.of(mapper);
+    }
+}
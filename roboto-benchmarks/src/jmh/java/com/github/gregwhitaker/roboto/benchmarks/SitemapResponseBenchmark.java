@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.RobotoCache;
+import com.github.gregwhitaker.roboto.spring.RobotoDocument;
+import com.github.gregwhitaker.roboto.spring.RobotoHosts;
+import com.github.gregwhitaker.roboto.spring.SitemapGenerator;
+import com.github.gregwhitaker.roboto.spring.SitemapResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serving sitemap.xml from the cache, and rendering the complete sitemap from scratch, for mappers with
+ * the given number of allowed paths. Sitemaps with more than 50,000 urls are split into shards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SitemapResponseBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int urls;
+
+    private SitemapGenerator generator;
+    private RobotoCache cache;
+    private RobotoHosts hosts;
+
+    @Setup
+    public void setup() {
+        generator = new SitemapGenerator(BenchmarkSupport.mapper(urls, 0), Collections.emptyList(),
+                SitemapGenerator.MAX_URLS, 1000);
+        cache = new RobotoCache(1);
+        hosts = BenchmarkSupport.hosts(generator);
+    }
+
+    /**
+     * Serves sitemap.xml the way {@link com.github.gregwhitaker.roboto.spring.RobotoController} does. Every call
+     * after the first is a cache hit.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public RobotoDocument create() {
+        return SitemapResponse.create(cache, BenchmarkSupport.key(hosts, SitemapResponse.DOCUMENT),
+                hosts.getGenerator(BenchmarkSupport.HOST));
+    }
+
+    /**
+     * Renders sitemap.xml and every shard, including their gzip variants and ETags, as a crawler fetching the
+     * whole sitemap on an empty cache would cause.
+     */
+    @Benchmark
+    public void render(Blackhole blackhole) {
+        blackhole.consume(generator.render(BenchmarkSupport.BASE_URL));
+
+        int shards = generator.getShardCount();
+        for (int shard = 1; shard <= shards; shard++) {
+            blackhole.consume(generator.renderShard(BenchmarkSupport.BASE_URL, shard));
+        }
+    }
+}
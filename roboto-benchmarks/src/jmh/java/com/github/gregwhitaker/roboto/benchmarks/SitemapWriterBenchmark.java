@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.benchmarks;
+
+import com.github.gregwhitaker.roboto.spring.SitemapWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing a urlset to XML on its own, without compression or hashing, writing to a stream that
+ * discards its output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SitemapWriterBenchmark {
+
+    @Param({ "1000", "50000" })
+    public int urls;
+
+    private List<String> locs;
+    private String lastmod;
+    private CountingOutputStream out;
+
+    @Setup
+    public void setup() {
+        locs = new ArrayList<>(urls);
+        for (int i = 0; i < urls; i++) {
+            locs.add(BenchmarkSupport.BASE_URL + BenchmarkSupport.path(i));
+        }
+
+        lastmod = SitemapWriter.formatLastmod(LocalDate.now());
+        out = new CountingOutputStream();
+    }
+
+    @Benchmark
+    public long writeUrlSet() throws XMLStreamException {
+        out.count = 0;
+
+        try (SitemapWriter writer = new SitemapWriter(out)) {
+            writer.startUrlSet();
+
+            for (String loc : locs) {
+                writer.writeUrl(loc, lastmod, "monthly");
+            }
+        }
+
+        return out.count;
+    }
+
+    /**
+     * Discards its output, counting the bytes written so the serialization cannot be optimized away.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
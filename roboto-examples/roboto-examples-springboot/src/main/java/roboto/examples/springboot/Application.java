@@ -16,12 +16,14 @@
 
 package roboto.examples.springboot;
 
+import com.github.gregwhitaker.roboto.spring.annotation.CrawlDelay;
 import com.github.gregwhitaker.roboto.spring.annotation.EnableRoboto;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
 @EnableRoboto
+@CrawlDelay(value = 5, userAgents = "bingbot")
 public class Application {
 
     public static void main(String... args) {
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roboto.examples.springboot.controller;
+
+import com.github.gregwhitaker.roboto.spring.annotation.SitemapUrls;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import roboto.examples.springboot.sitemap.ProductUrlProvider;
+
+/**
+ * Example controller with a parameterized path whose concrete urls are added to the sitemap by a provider.
+ */
+@Controller
+public class ProductController {
+
+    // Urls for this endpoint are enumerated by the ProductUrlProvider bean
+    @GetMapping("/product/{id}")
+    @SitemapUrls(ProductUrlProvider.class)
+    public String product(@PathVariable("id") int id, Model model) {
+        model.addAttribute("message", "This is Product " + id);
+        return "product";
+    }
+}
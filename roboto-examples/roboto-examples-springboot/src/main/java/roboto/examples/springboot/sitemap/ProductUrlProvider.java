@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roboto.examples.springboot.sitemap;
+
+import com.github.gregwhitaker.roboto.spring.SitemapExtensionProvider;
+import com.github.gregwhitaker.roboto.spring.SitemapExtensions;
+import com.github.gregwhitaker.roboto.spring.SitemapUrl;
+import com.github.gregwhitaker.roboto.spring.SitemapUrlProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Example provider that enumerates product urls along with their product images. A real application would page
+ * through its data store instead.
+ */
+@Component
+public class ProductUrlProvider implements SitemapUrlProvider, SitemapExtensionProvider {
+    private static final int PRODUCT_COUNT = 5;
+
+    @Override
+    public long count() {
+        return PRODUCT_COUNT;
+    }
+
+    @Override
+    public List<SitemapUrl> getUrls(long offset, int limit) {
+        List<SitemapUrl> urls = new ArrayList<>();
+
+        for (long id = offset + 1; id <= Math.min(offset + limit, PRODUCT_COUNT); id++) {
+            urls.add(new SitemapUrl("/product/" + id, LocalDate.of(2018, 5, 1), "weekly", 0.8));
+        }
+
+        return urls;
+    }
+
+    @Override
+    public Map<String, SitemapExtensions> getExtensions(List<SitemapUrl> urls) {
+        Map<String, SitemapExtensions> extensions = new HashMap<>();
+
+        for (SitemapUrl url : urls) {
+            String id = url.getPath().substring("/product/".length());
+            extensions.put(url.getPath(), SitemapExtensions.images(Arrays.asList(
+                    "/images/product/" + id + "/front.jpg",
+                    "/images/product/" + id + "/back.jpg")));
+        }
+
+        return extensions;
+    }
+}
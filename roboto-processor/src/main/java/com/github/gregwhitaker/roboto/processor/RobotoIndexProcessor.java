@@ -0,0 +1,360 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that computes the allowed and disallowed paths of all controllers at compile time and
+ * writes them to {@value #INDEX_LOCATION}, so that Roboto does not need to scan the classpath on startup.
+ *
+ * The index is a UTF-8 text file with one entry per line:
+ * <pre>
+ * allow    &lt;path&gt;
+ * disallow &lt;user agent&gt; &lt;path&gt;
+ * provider &lt;SitemapUrlProvider class&gt;
+ * crawl-delay &lt;user agent&gt; &lt;seconds&gt;
+ * </pre>
+ * where the fields are separated by a single tab character.
+ */
+@SupportedAnnotationTypes({
+        RobotoIndexProcessor.CONTROLLER,
+        RobotoIndexProcessor.REST_CONTROLLER,
+        RobotoIndexProcessor.CRAWL_DELAY,
+        RobotoIndexProcessor.CRAWL_DELAYS
+})
+public class RobotoIndexProcessor extends AbstractProcessor {
+    public static final String INDEX_LOCATION = "META-INF/roboto/roboto.index";
+
+    static final String CONTROLLER = "org.springframework.stereotype.Controller";
+    static final String REST_CONTROLLER = "org.springframework.web.bind.annotation.RestController";
+    static final String CRAWL_DELAY = "com.github.gregwhitaker.roboto.spring.annotation.CrawlDelay";
+    static final String CRAWL_DELAYS = "com.github.gregwhitaker.roboto.spring.annotation.CrawlDelays";
+
+    private static final String GET_MAPPING = "org.springframework.web.bind.annotation.GetMapping";
+    private static final String REQUEST_MAPPING = "org.springframework.web.bind.annotation.RequestMapping";
+    private static final String DISALLOW_ROBOTS = "com.github.gregwhitaker.roboto.spring.annotation.DisallowRobots";
+    private static final String SITEMAP_URLS = "com.github.gregwhitaker.roboto.spring.annotation.SitemapUrls";
+
+    private final Set<String> entries = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    continue;
+                }
+
+                if (annotation.getQualifiedName().contentEquals(CRAWL_DELAY) || annotation.getQualifiedName().contentEquals(CRAWL_DELAYS)) {
+                    processCrawlDelays((TypeElement) element);
+                } else {
+                    processController((TypeElement) element);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the GET endpoints of the supplied controller to the index.
+     *
+     * @param clazz controller class
+     */
+    private void processController(TypeElement clazz) {
+        AnnotationMirror clazzMapping = findAnnotation(clazz, REQUEST_MAPPING);
+        List<String> prefixes = clazzMapping != null ? getPaths(clazzMapping) : Collections.<String>emptyList();
+        AnnotationMirror clazzDisallow = findAnnotation(clazz, DISALLOW_ROBOTS);
+
+        for (Element member : clazz.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+
+            List<String> paths = getGetPaths(member);
+            if (paths == null) {
+                continue;
+            }
+
+            paths = combine(prefixes, paths);
+            AnnotationMirror methodDisallow = findAnnotation(member, DISALLOW_ROBOTS);
+
+            if (clazzDisallow == null && methodDisallow == null) {
+                AnnotationMirror sitemapUrls = findAnnotation(member, SITEMAP_URLS);
+
+                // Parameterized paths are enumerated in the sitemap by their provider
+                if (sitemapUrls != null) {
+                    addProvider(sitemapUrls);
+                }
+
+                for (String path : paths) {
+                    entries.add("allow\t" + path);
+                }
+
+                continue;
+            }
+
+            if (clazzDisallow != null) {
+                addDisallowed(clazzDisallow, paths);
+            }
+
+            if (methodDisallow != null) {
+                addDisallowed(methodDisallow, paths);
+            }
+        }
+    }
+
+    /**
+     * Adds the crawl delays declared on the supplied class to the index.
+     *
+     * @param clazz annotated class
+     */
+    private void processCrawlDelays(TypeElement clazz) {
+        AnnotationMirror crawlDelay = findAnnotation(clazz, CRAWL_DELAY);
+        if (crawlDelay != null) {
+            addCrawlDelay(crawlDelay);
+        }
+
+        AnnotationMirror crawlDelays = findAnnotation(clazz, CRAWL_DELAYS);
+        if (crawlDelays != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : crawlDelays.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    for (Object item : (List<?>) entry.getValue().getValue()) {
+                        addCrawlDelay((AnnotationMirror) ((AnnotationValue) item).getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the delay declared by a {@code @CrawlDelay} annotation for each of its user agents.
+     *
+     * @param crawlDelay {@code @CrawlDelay} annotation
+     */
+    private void addCrawlDelay(AnnotationMirror crawlDelay) {
+        List<String> seconds = getValues(crawlDelay, "value");
+        List<String> userAgents = getValues(crawlDelay, "userAgents");
+        if (userAgents.isEmpty()) {
+            userAgents = Collections.singletonList("*");
+        }
+
+        for (String userAgent : userAgents) {
+            entries.add("crawl-delay\t" + userAgent + "\t" + seconds.get(0));
+        }
+    }
+
+    /**
+     * Gets the paths of the supplied method if it handles GET requests.
+     *
+     * @param method controller method
+     * @return the mapped paths, or <code>null</code> if the method does not handle GET requests
+     */
+    private List<String> getGetPaths(Element method) {
+        AnnotationMirror getMapping = findAnnotation(method, GET_MAPPING);
+        if (getMapping != null) {
+            return getPaths(getMapping);
+        }
+
+        AnnotationMirror requestMapping = findAnnotation(method, REQUEST_MAPPING);
+        if (requestMapping != null && getValues(requestMapping, "method").contains("GET")) {
+            return getPaths(requestMapping);
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds the supplied paths to the disallowed entries of each user agent declared on the annotation.
+     *
+     * @param disallowRobots {@code @DisallowRobots} annotation
+     * @param paths paths to disallow
+     */
+    private void addDisallowed(AnnotationMirror disallowRobots, List<String> paths) {
+        List<String> userAgents = getValues(disallowRobots, "userAgents");
+        if (userAgents.isEmpty()) {
+            userAgents = Collections.singletonList("*");
+        }
+
+        for (String userAgent : userAgents) {
+            for (String path : paths) {
+                entries.add("disallow\t" + userAgent + "\t" + path);
+            }
+        }
+    }
+
+    /**
+     * Adds the provider declared by a {@code @SitemapUrls} annotation to the index.
+     *
+     * @param sitemapUrls {@code @SitemapUrls} annotation
+     */
+    private void addProvider(AnnotationMirror sitemapUrls) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : sitemapUrls.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                TypeElement provider = (TypeElement) ((DeclaredType) entry.getValue().getValue()).asElement();
+                entries.add("provider\t" + processingEnv.getElementUtils().getBinaryName(provider));
+            }
+        }
+    }
+
+    /**
+     * Combines class-level path prefixes with method-level paths the same way Spring MVC does.
+     *
+     * @param prefixes class-level paths
+     * @param paths method-level paths
+     * @return combined paths
+     */
+    private List<String> combine(List<String> prefixes, List<String> paths) {
+        if (prefixes.isEmpty()) {
+            return paths;
+        }
+
+        List<String> combined = new ArrayList<>();
+        for (String prefix : prefixes) {
+            if (paths.isEmpty()) {
+                combined.add(prefix);
+            }
+
+            for (String path : paths) {
+                if (prefix.endsWith("/") && path.startsWith("/")) {
+                    combined.add(prefix + path.substring(1));
+                } else if (prefix.endsWith("/") || path.startsWith("/")) {
+                    combined.add(prefix + path);
+                } else {
+                    combined.add(prefix + "/" + path);
+                }
+            }
+        }
+
+        return combined;
+    }
+
+    /**
+     * Gets the paths declared by a mapping annotation through either its {@code value} or {@code path} attribute.
+     *
+     * @param mapping mapping annotation
+     * @return declared paths
+     */
+    private List<String> getPaths(AnnotationMirror mapping) {
+        List<String> paths = new ArrayList<>(getValues(mapping, "value"));
+        paths.addAll(getValues(mapping, "path"));
+        return paths;
+    }
+
+    /**
+     * Gets the explicitly declared values of an array attribute as strings.
+     *
+     * @param annotation annotation
+     * @param attribute attribute name
+     * @return attribute values, or an empty list if the attribute was not declared
+     */
+    private List<String> getValues(AnnotationMirror annotation, String attribute) {
+        List<String> values = new ArrayList<>();
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (!entry.getKey().getSimpleName().contentEquals(attribute)) {
+                continue;
+            }
+
+            Object value = entry.getValue().getValue();
+            if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    values.add(valueToString(((AnnotationValue) item).getValue()));
+                }
+            } else {
+                values.add(valueToString(value));
+            }
+        }
+
+        return values;
+    }
+
+    private String valueToString(Object value) {
+        if (value instanceof Element) {
+            // Enum constants such as RequestMethod.GET
+            return ((Element) value).getSimpleName().toString();
+        }
+
+        return value.toString();
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the collected entries to {@value #INDEX_LOCATION}.
+     */
+    private void writeIndex() {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write Roboto index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.processor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RobotoIndexProcessorTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Minimal copies of the annotations the processor reads, so that the test does not need Spring on the classpath.
+     */
+    private static final String[] ANNOTATIONS = {
+            "package org.springframework.stereotype; public @interface Controller {}",
+            "package org.springframework.web.bind.annotation; public @interface RestController {}",
+            "package org.springframework.web.bind.annotation; public enum RequestMethod { GET, POST }",
+            "package org.springframework.web.bind.annotation; public @interface RequestMapping {"
+                    + " String[] value() default {}; String[] path() default {}; RequestMethod[] method() default {}; }",
+            "package org.springframework.web.bind.annotation; public @interface GetMapping {"
+                    + " String[] value() default {}; String[] path() default {}; }",
+            "package com.github.gregwhitaker.roboto.spring.annotation; public @interface DisallowRobots {"
+                    + " String[] userAgents() default { \"*\" }; }",
+            "package com.github.gregwhitaker.roboto.spring.annotation; public @interface SitemapUrls { Class<?> value(); }"
+    };
+
+    @Test
+    public void indexesTheGetEndpointsOfControllers() throws Exception {
+        List<String> index = process(
+                "package app; import org.springframework.web.bind.annotation.*;"
+                        + " @RestController @RequestMapping(\"/shop/\") public class Shop {"
+                        + "   @GetMapping(\"/products\") public void products() {}"
+                        + "   @RequestMapping(path = \"orders\", method = RequestMethod.GET) public void orders() {}"
+                        + "   @RequestMapping(path = \"/orders\", method = RequestMethod.POST) public void order() {}"
+                        + "   @com.github.gregwhitaker.roboto.spring.annotation.DisallowRobots"
+                        + "   @GetMapping(\"/cart\") public void cart() {}"
+                        + " }",
+                "package app; import org.springframework.web.bind.annotation.GetMapping;"
+                        + " @org.springframework.stereotype.Controller"
+                        + " @com.github.gregwhitaker.roboto.spring.annotation.DisallowRobots(userAgents = { \"a\", \"b\" })"
+                        + " public class Admin { @GetMapping(path = { \"/admin\", \"/admin/users\" }) public void admin() {} }");
+
+        assertEquals(Arrays.asList(
+                "allow\t/shop/orders",
+                "allow\t/shop/products",
+                "disallow\t*\t/shop/cart",
+                "disallow\ta\t/admin",
+                "disallow\ta\t/admin/users",
+                "disallow\tb\t/admin",
+                "disallow\tb\t/admin/users"), index);
+    }
+
+    @Test
+    public void indexesSitemapUrlProvidersAlongsideTheirPaths() throws Exception {
+        List<String> index = process(
+                "package app; import org.springframework.web.bind.annotation.GetMapping;"
+                        + " @org.springframework.stereotype.Controller public class Products {"
+                        + "   @GetMapping(\"/product/{id}\")"
+                        + "   @com.github.gregwhitaker.roboto.spring.annotation.SitemapUrls(Products.Urls.class)"
+                        + "   public void product() {}"
+                        + "   public static class Urls {}"
+                        + " }");
+
+        // The template is kept as allowed so that directory rules don't block the provider's pages
+        assertEquals(Arrays.asList("allow\t/product/{id}", "provider\tapp.Products$Urls"), index);
+    }
+
+    @Test
+    public void writesNoIndexWithoutControllers() throws Exception {
+        assertTrue(process("package app; public class Plain { public void get() {} }").isEmpty());
+        assertFalse(new File(folder.getRoot(), RobotoIndexProcessor.INDEX_LOCATION).exists());
+    }
+
+    /**
+     * Runs the processor over the supplied sources and reads the index it wrote.
+     */
+    private List<String> process(String... sources) throws Exception {
+        List<JavaFileObject> files = new ArrayList<>();
+        for (String source : ANNOTATIONS) {
+            files.add(new Source(source));
+        }
+        for (String source : sources) {
+            files.add(new Source(source));
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-proc:only", "-d", folder.getRoot().getPath()), null, files);
+        task.setProcessors(Collections.singletonList(new RobotoIndexProcessor()));
+        assertTrue(task.call());
+
+        File index = new File(folder.getRoot(), RobotoIndexProcessor.INDEX_LOCATION);
+        return index.exists() ? Files.readAllLines(index.toPath(), StandardCharsets.UTF_8) : Collections.emptyList();
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String code;
+
+        private Source(String code) {
+            super(URI.create("string:///" + getName(code).replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+
+        private static String getName(String code) {
+            String pkg = code.substring("package ".length(), code.indexOf(';'));
+            String[] words = code.substring(code.indexOf(';')).split("[\\s{]+");
+            for (int i = 0; i < words.length - 1; i++) {
+                if (words[i].equals("class") || words[i].equals("enum") || words[i].equals("@interface")) {
+                    return pkg + "." + words[i + 1];
+                }
+            }
+
+            throw new IllegalArgumentException("No type declared in " + code);
+        }
+    }
+}
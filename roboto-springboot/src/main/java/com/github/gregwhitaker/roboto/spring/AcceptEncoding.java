@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+/**
+ * Parses the <code>Accept-Encoding</code> request header, shared by the Spring MVC and WebFlux controllers. Runs on
+ * every request, so it scans the header in place instead of splitting it or matching it against patterns.
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+
+    }
+
+    /**
+     * Checks to see if the client accepts gzip encoded responses. The first of <code>gzip</code>,
+     * <code>x-gzip</code> and <code>*</code> listed in the header decides, and a quality value of zero means
+     * "not acceptable".
+     *
+     * @param acceptEncoding value of the <code>Accept-Encoding</code> header, or <code>null</code> if there is none
+     * @return <code>true</code> if gzip is acceptable; otherwise <code>false</code>
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        int length = acceptEncoding.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            int nameEnd = acceptEncoding.indexOf(';', start);
+            if (nameEnd < 0 || nameEnd > end) {
+                nameEnd = end;
+            }
+
+            if (isGzip(acceptEncoding, start, nameEnd)) {
+                return !hasZeroQuality(acceptEncoding, nameEnd, end);
+            }
+
+            start = end + 1;
+        }
+
+        return false;
+    }
+
+    private static boolean isGzip(String value, int start, int end) {
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+
+        int length = end - start;
+        return length == 4 && value.regionMatches(true, start, "gzip", 0, 4)
+                || length == 6 && value.regionMatches(true, start, "x-gzip", 0, 6)
+                || length == 1 && value.charAt(start) == '*';
+    }
+
+    /**
+     * Checks the parameters of a coding, starting at the first <code>;</code>, for a quality value of zero, such as
+     * <code>q=0</code> or <code>q=0.000</code>. Whitespace is ignored.
+     */
+    private static boolean hasZeroQuality(String value, int start, int end) {
+        // 0: at a parameter's start, 1: after q, 2: after =, 3: after 0, 4: after 0., 5: anything else
+        int state = 0;
+
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? value.charAt(i) : ';';
+
+            if (c == ';') {
+                if (state == 3 || state == 4) {
+                    return true;
+                }
+
+                state = 0;
+            } else if (!Character.isWhitespace(c)) {
+                if (state == 0 && (c == 'q' || c == 'Q')) {
+                    state = 1;
+                } else if (state == 1 && c == '=') {
+                    state = 2;
+                } else if (state == 2 && c == '0') {
+                    state = 3;
+                } else if (state == 3 && c == '.') {
+                    state = 4;
+                } else if (state != 4 || c != '0') {
+                    state = 5;
+                }
+            }
+        }
+
+        return false;
+    }
+}
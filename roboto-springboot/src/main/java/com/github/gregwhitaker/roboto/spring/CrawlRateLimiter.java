@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the request rate of crawlers to the <code>Crawl-delay</code> published in robots.txt.
+ *
+ * Crawlers are identified by the user agent group they obey, as in {@link RobotsMatcher}, and by their remote
+ * address, so that a client sending another crawler's User-Agent header cannot use up that crawler's budget. A
+ * crawler that names a group without a crawl delay is not limited, since it does not obey the delay for all
+ * user agents.
+ *
+ * Each crawler gets a token bucket of its own that holds up to <code>burst</code> requests and refills at one request
+ * per crawl delay. Buckets are updated lock-free and stored as the time at which the bucket will be full again, so a
+ * full bucket is the same as no bucket at all and can be dropped. At most {@value #MAX_BUCKETS} buckets are kept: full
+ * buckets are dropped when that many are in use, and requests of further crawlers are let through until some are.
+ */
+public final class CrawlRateLimiter {
+
+    /**
+     * Maximum number of buckets kept across all user agent groups.
+     */
+    static final int MAX_BUCKETS = 65536;
+
+    /**
+     * Minimum time between two sweeps for full buckets, so that new crawlers arriving while every bucket is in use
+     * do not each scan all of them.
+     */
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final UserAgentMatcher userAgents;
+
+    /**
+     * Interval between requests of each named user agent in nanoseconds, or <code>0</code> if it is not limited.
+     */
+    private final long[] userAgentIntervals;
+    private final long allUserAgentInterval;
+    private final int burst;
+    private final int maxBuckets;
+    private final LongSupplier clock;
+    private final long epoch;
+
+    /**
+     * Buckets of each named user agent by remote address, followed by the buckets of crawlers obeying the rules for
+     * all user agents. Each bucket holds the time, in nanoseconds since {@link #epoch}, at which it will be full again.
+     */
+    private final ConcurrentMap<String, AtomicLong>[] buckets;
+    private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+
+    @SuppressWarnings("unchecked")
+    private CrawlRateLimiter(UserAgentMatcher userAgents, long[] userAgentIntervals, long allUserAgentInterval,
+                             int burst, int maxBuckets, LongSupplier clock) {
+        this.userAgents = userAgents;
+        this.userAgentIntervals = userAgentIntervals;
+        this.allUserAgentInterval = allUserAgentInterval;
+        this.burst = burst;
+        this.maxBuckets = maxBuckets;
+        this.clock = clock;
+        this.epoch = clock.getAsLong();
+
+        this.buckets = new ConcurrentMap[userAgentIntervals.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Creates a rate limiter for the supplied crawl delays.
+     *
+     * @param groups user agent groups, as returned by {@link RobotoMapper#getGroups()}
+     * @param crawlDelays crawl delays in seconds by user agent, as returned by {@link RobotoMapper#getCrawlDelays()}
+     * @param crawlerUserAgents User-Agent substrings, such as <code>bot</code>, that identify a crawler
+     * @param burst number of requests a crawler can make back to back before it is limited
+     * @return rate limiter
+     */
+    public static CrawlRateLimiter create(Map<String, Set<String>> groups, Map<String, Integer> crawlDelays,
+                                          Collection<String> crawlerUserAgents, int burst) {
+        return create(groups, crawlDelays, crawlerUserAgents, burst, MAX_BUCKETS, System::nanoTime);
+    }
+
+    /**
+     * Creates a rate limiter with a bucket limit and clock of its own.
+     *
+     * @param maxBuckets maximum number of buckets kept
+     * @param clock supplies the current time in nanoseconds
+     */
+    static CrawlRateLimiter create(Map<String, Set<String>> groups, Map<String, Integer> crawlDelays,
+                                   Collection<String> crawlerUserAgents, int burst, int maxBuckets,
+                                   LongSupplier clock) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1, but was " + burst);
+        }
+
+        // More specific, that is longer, user agents are checked first
+        Set<String> sorted = new TreeSet<>(UserAgentMatcher.SPECIFICITY);
+        sorted.addAll(groups.keySet());
+        sorted.addAll(crawlDelays.keySet());
+        sorted.remove(UserAgentMatcher.ALL_USER_AGENTS);
+        sorted.remove("");
+
+        List<String> userAgents = new ArrayList<>(sorted);
+        long[] userAgentIntervals = new long[userAgents.size()];
+        for (int i = 0; i < userAgentIntervals.length; i++) {
+            userAgentIntervals[i] = toInterval(crawlDelays.get(userAgents.get(i)));
+        }
+
+        long allUserAgentInterval = toInterval(crawlDelays.get(UserAgentMatcher.ALL_USER_AGENTS));
+        UserAgentMatcher matcher = new UserAgentMatcher(userAgents,
+                allUserAgentInterval > 0 ? crawlerUserAgents : Collections.<String>emptyList());
+
+        return new CrawlRateLimiter(matcher, userAgentIntervals, allUserAgentInterval, burst, maxBuckets, clock);
+    }
+
+    /**
+     * Takes a token from the bucket of the crawler making a request.
+     *
+     * @param userAgent User-Agent header of the request, which may be <code>null</code>
+     * @param remoteAddress remote address of the request
+     * @return <code>0</code> if the request is allowed; otherwise the number of nanoseconds until the crawler
+     *         can make its next request
+     */
+    public long acquire(String userAgent, String remoteAddress) {
+        if (userAgent == null) {
+            return 0;
+        }
+
+        int match = userAgents.match(userAgent);
+        if (match == UserAgentMatcher.NONE) {
+            return 0;
+        }
+
+        long interval = match == UserAgentMatcher.CRAWLER ? allUserAgentInterval : userAgentIntervals[match];
+        if (interval == 0) {
+            return 0;
+        }
+
+        long now = clock.getAsLong() - epoch;
+        AtomicLong bucket = getBucket(match == UserAgentMatcher.CRAWLER ? buckets.length - 1 : match,
+                remoteAddress != null ? remoteAddress : "", now);
+        if (bucket == null) {
+            return 0;
+        }
+
+        long tolerance = interval * (burst - 1);
+
+        while (true) {
+            long full = bucket.get();
+            long start = Math.max(full, now);
+
+            if (start - now > tolerance) {
+                // The bucket is empty
+                return start - now - tolerance;
+            }
+
+            if (bucket.compareAndSet(full, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of buckets in use.
+     *
+     * @return number of buckets
+     */
+    int size() {
+        int size = 0;
+        for (ConcurrentMap<String, AtomicLong> group : buckets) {
+            size += group.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Gets the bucket of a crawler, creating an empty one if there is room for it.
+     *
+     * @return the bucket, or <code>null</code> if every bucket is in use
+     */
+    private AtomicLong getBucket(int group, String remoteAddress, long now) {
+        AtomicLong bucket = buckets[group].get(remoteAddress);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        // Concurrent requests of new crawlers may add a few more buckets than the maximum
+        if (size() >= maxBuckets && (!sweep(now) || size() >= maxBuckets)) {
+            return null;
+        }
+
+        AtomicLong created = new AtomicLong(Long.MIN_VALUE);
+        bucket = buckets[group].putIfAbsent(remoteAddress, created);
+        return bucket != null ? bucket : created;
+    }
+
+    /**
+     * Drops the buckets that are full. A crawler whose bucket is dropped while it is making a request may be allowed
+     * one request more than its budget.
+     *
+     * @return <code>true</code> if the buckets were swept; <code>false</code> if they were swept too recently
+     */
+    private boolean sweep(long now) {
+        long next = nextSweep.get();
+        if (now < next || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)) {
+            return false;
+        }
+
+        for (ConcurrentMap<String, AtomicLong> group : buckets) {
+            for (Iterator<AtomicLong> it = group.values().iterator(); it.hasNext(); ) {
+                if (it.next().get() <= now) {
+                    it.remove();
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static long toInterval(Integer crawlDelay) {
+        return crawlDelay != null && crawlDelay > 0 ? TimeUnit.SECONDS.toNanos(crawlDelay) : 0;
+    }
+}
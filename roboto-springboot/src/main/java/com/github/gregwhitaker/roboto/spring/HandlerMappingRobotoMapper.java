@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import com.github.gregwhitaker.roboto.spring.annotation.DisallowRobots;
+import com.github.gregwhitaker.roboto.spring.annotation.SitemapUrls;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link RobotoMapper} that derives allowed and disallowed paths from the handler methods already registered
+ * with Spring MVC's {@link RequestMappingHandlerMapping}, instead of scanning the classpath a second time.
+ *
+ * Since the registered mappings are the ones Spring MVC actually serves, class-level {@code @RequestMapping}
+ * prefixes and {@code path} attributes are taken into account.
+ */
+public class HandlerMappingRobotoMapper extends RobotoMapper {
+
+    public HandlerMappingRobotoMapper(BeanFactory beanFactory, RequestMappingHandlerMapping handlerMapping) {
+        long start = System.currentTimeMillis();
+        doMapping(beanFactory, handlerMapping);
+        mapCrawlDelays(beanFactory);
+        logMappingTime(start);
+    }
+
+    /**
+     * Maps allowed and disallowed endpoints from the registered handler methods.
+     *
+     * @param beanFactory bean factory used to look up the application's base packages
+     * @param handlerMapping Spring MVC handler mapping
+     */
+    private void doMapping(BeanFactory beanFactory, RequestMappingHandlerMapping handlerMapping) {
+        List<String> basePackages = AutoConfigurationPackages.get(beanFactory);
+
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            HandlerMethod handlerMethod = entry.getValue();
+
+            if (!isMappingMethod(basePackages, info, handlerMethod)) {
+                continue;
+            }
+
+            Set<String> paths = info.getPatternsCondition().getPatterns();
+
+            DisallowRobots clazzAnnotation = AnnotationUtils.findAnnotation(handlerMethod.getBeanType(), DisallowRobots.class);
+            DisallowRobots methodAnnotation = handlerMethod.getMethodAnnotation(DisallowRobots.class);
+
+            if (clazzAnnotation == null && methodAnnotation == null) {
+                SitemapUrls sitemapUrls = handlerMethod.getMethodAnnotation(SitemapUrls.class);
+
+                // Parameterized paths are enumerated in the sitemap by their provider
+                if (sitemapUrls != null) {
+                    addSitemapUrlProvider(sitemapUrls.value());
+                }
+
+                allow(paths);
+
+                continue;
+            }
+
+            if (clazzAnnotation != null) {
+                disallow(clazzAnnotation.userAgents(), paths);
+            }
+
+            if (methodAnnotation != null) {
+                disallow(methodAnnotation.userAgents(), paths);
+            }
+        }
+    }
+
+    /**
+     * Checks to see if the supplied handler method is a GET endpoint declared in one of the application's packages.
+     *
+     * @param basePackages application base packages
+     * @param info request mapping
+     * @param handlerMethod handler method
+     * @return <code>true</code> if the handler method should be mapped; otherwise <code>false</code>
+     */
+    private boolean isMappingMethod(List<String> basePackages, RequestMappingInfo info, HandlerMethod handlerMethod) {
+        if (!info.getMethodsCondition().getMethods().contains(RequestMethod.GET)) {
+            return false;
+        }
+
+        String className = handlerMethod.getBeanType().getName();
+        for (String basePackage : basePackages) {
+            if (className.startsWith(basePackage + ".")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
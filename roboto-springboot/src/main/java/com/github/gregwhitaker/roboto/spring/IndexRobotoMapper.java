@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * {@link RobotoMapper} that loads allowed and disallowed paths from the index generated at compile time by the
+ * roboto-processor annotation processor, skipping classpath scanning and reflection entirely.
+ */
+public class IndexRobotoMapper extends RobotoMapper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexRobotoMapper.class);
+
+    public static final String INDEX_LOCATION = "META-INF/roboto/roboto.index";
+
+    private final ClassLoader classLoader;
+
+    public IndexRobotoMapper(ClassLoader classLoader) throws IOException {
+        this.classLoader = classLoader;
+
+        long start = System.currentTimeMillis();
+        doMapping(classLoader);
+        logMappingTime(start);
+    }
+
+    /**
+     * Creates a mapper from index entries that have already been read, such as those stored in a snapshot.
+     *
+     * @param classLoader class loader used to load sitemap url providers
+     * @param entries index entries
+     */
+    protected IndexRobotoMapper(ClassLoader classLoader, List<String> entries) {
+        this.classLoader = classLoader;
+
+        long start = System.currentTimeMillis();
+        entries.forEach(this::loadEntry);
+        logMappingTime(start);
+    }
+
+    /**
+     * Checks to see if a Roboto index is available on the classpath.
+     *
+     * @param classLoader class loader to search
+     * @return <code>true</code> if at least one index was found; otherwise <code>false</code>
+     */
+    public static boolean isIndexPresent(ClassLoader classLoader) {
+        return classLoader.getResource(INDEX_LOCATION) != null;
+    }
+
+    /**
+     * Loads every index on the classpath, so that controllers packaged in separate jars are all mapped.
+     *
+     * @param classLoader class loader to search
+     * @throws IOException if an index could not be read
+     */
+    private void doMapping(ClassLoader classLoader) throws IOException {
+        Enumeration<URL> indexes = classLoader.getResources(INDEX_LOCATION);
+
+        while (indexes.hasMoreElements()) {
+            URL index = indexes.nextElement();
+            LOGGER.debug("Loading Roboto index from {}", index);
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    loadEntry(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a single index entry to the allowed or disallowed list, or to the crawl delays.
+     *
+     * @param line index entry
+     */
+    private void loadEntry(String line) {
+        String[] fields = line.split("\t");
+
+        if (fields.length == 2 && fields[0].equals("allow")) {
+            allow(Collections.singleton(fields[1]));
+        } else if (fields.length == 3 && fields[0].equals("disallow")) {
+            disallow(new String[] { fields[1] }, Collections.singleton(fields[2]));
+        } else if (fields.length == 2 && fields[0].equals("provider")) {
+            addSitemapUrlProvider(loadProvider(fields[1]));
+        } else if (fields.length == 3 && fields[0].equals("crawl-delay")) {
+            crawlDelay(new String[] { fields[1] }, Integer.parseInt(fields[2]));
+        } else if (!line.isEmpty()) {
+            LOGGER.warn("Ignoring invalid Roboto index entry: {}", line);
+        }
+    }
+
+    /**
+     * Loads a {@link SitemapUrlProvider} class referenced by the index.
+     *
+     * @param className provider class name
+     * @return provider class
+     */
+    private Class<? extends SitemapUrlProvider> loadProvider(String className) {
+        try {
+            return Class.forName(className, false, classLoader).asSubclass(SitemapUrlProvider.class);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Sitemap url provider in Roboto index not found: " + className, e);
+        }
+    }
+}
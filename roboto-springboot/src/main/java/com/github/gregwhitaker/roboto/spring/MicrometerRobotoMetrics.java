@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RobotoMetrics} that publishes measurements to a Micrometer {@link MeterRegistry}.
+ *
+ * Response meters are looked up once per document, host and status and then reused, so that recording a response
+ * does not go through meter registration.
+ */
+public class MicrometerRobotoMetrics implements RobotoMetrics {
+
+    /**
+     * Number of response meters kept per host: one for each document and status served for it.
+     */
+    private static final int RESPONSE_METERS_PER_HOST = 32;
+
+    /**
+     * Names of the meters tagged with the requested host.
+     */
+    private static final String[] HOST_TAGGED_METERS = {
+            "roboto.render", "roboto.document.urls", "roboto.document.size", "roboto.responses"
+    };
+
+    private final MeterRegistry registry;
+    private final int maxResponseMeters;
+    private final ConcurrentMap<ResponseKey, DistributionSummary> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the metrics.
+     *
+     * @param registry meter registry
+     * @param maxHosts maximum number of distinct host tag values, which protects the registry against requests
+     *                 with arbitrary Host headers
+     */
+    public MicrometerRobotoMetrics(MeterRegistry registry, int maxHosts) {
+        this.registry = registry;
+        this.maxResponseMeters = maxHosts * RESPONSE_METERS_PER_HOST;
+
+        // Micrometer 1.0 matches the meter name exactly rather than as a prefix, so each meter gets its own filter
+        for (String name : HOST_TAGGED_METERS) {
+            registry.config().meterFilter(MeterFilter.maximumAllowableTags(name, "host", maxHosts, MeterFilter.deny()));
+        }
+    }
+
+    @Override
+    public void recordMapping(RobotoMapper mapper) {
+        Timer.builder("roboto.mapping")
+                .description("Time taken to discover the application's endpoints")
+                .tag("mapper", mapper.getClass().getSimpleName())
+                .register(registry)
+                .record(mapper.getMappingTime(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("roboto.paths", mapper, m -> m.getAllowed().size())
+                .description("Number of mapped paths")
+                .tag("type", "allowed")
+                .register(registry);
+
+        Gauge.builder("roboto.paths", mapper, MicrometerRobotoMetrics::countDisallowed)
+                .description("Number of mapped paths")
+                .tag("type", "disallowed")
+                .register(registry);
+    }
+
+    @Override
+    public void monitorCache(RobotoCache cache) {
+        FunctionCounter.builder("roboto.cache.gets", cache, RobotoCache::getHits)
+                .description("Number of document cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+
+        FunctionCounter.builder("roboto.cache.gets", cache, RobotoCache::getMisses)
+                .description("Number of document cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+
+        Gauge.builder("roboto.cache.size", cache, RobotoCache::size)
+                .description("Number of cached documents")
+                .register(registry);
+    }
+
+    @Override
+    public void recordRender(RobotoCache.Key key, RobotoDocument document, long durationNanos) {
+        Timer.builder("roboto.render")
+                .description("Time taken to render a document")
+                .tags("document", key.getDocument(), "host", key.getHost())
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        DistributionSummary.builder("roboto.document.urls")
+                .description("Number of urls or paths listed in a rendered document")
+                .tags("document", key.getDocument(), "host", key.getHost())
+                .register(registry)
+                .record(document.getUrlCount());
+
+        DistributionSummary.builder("roboto.document.size")
+                .description("Size of a rendered document")
+                .baseUnit("bytes")
+                .tags("document", key.getDocument(), "host", key.getHost())
+                .register(registry)
+                .record(document.getContentLength());
+    }
+
+    @Override
+    public void recordResponse(String document, String host, int status, long bytes) {
+        ResponseKey key = new ResponseKey(document, host, status);
+
+        DistributionSummary summary = responses.get(key);
+        if (summary == null) {
+            summary = DistributionSummary.builder("roboto.responses")
+                    .description("Size of the robots.txt and sitemap responses")
+                    .baseUnit("bytes")
+                    .tags("document", document, "host", host, "status", Integer.toString(status))
+                    .register(registry);
+
+            if (responses.size() < maxResponseMeters) {
+                responses.putIfAbsent(key, summary);
+            }
+        }
+
+        summary.record(bytes);
+    }
+
+    private static long countDisallowed(RobotoMapper mapper) {
+        long count = 0;
+        for (Map.Entry<String, Set<String>> entry : mapper.getDisallowed().entrySet()) {
+            count += entry.getValue().size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Identifies the meter of a response.
+     */
+    private static final class ResponseKey {
+
+        private final String document;
+        private final String host;
+        private final int status;
+
+        private ResponseKey(String document, String host, int status) {
+            this.document = document;
+            this.host = host;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ResponseKey that = (ResponseKey) o;
+            return status == that.status && document.equals(that.document) && host.equals(that.host);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * document.hashCode() + host.hashCode()) + status;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe, size-bounded cache of rendered documents keyed by mapper, scheme, host, port and document name.
+ *
+ * Lookups of cached documents do not lock. When the cache is full the least recently used documents are evicted, a
+ * tenth of the cache at a time, so that the cache is not scanned on every miss. The time of use is recorded to the
+ * millisecond, so that hot documents are not written to on every request. Concurrent
+ * requests for a document that is not cached yet wait for a single rendering instead of each rendering the document
+ * themselves.
+ *
+ * Cached documents can be re-rendered in the background with {@link #refresh()}. The new documents replace the old
+ * ones only after every one of them has rendered successfully, all at once, by publishing a new generation of the
+ * cache. Requests are served either the old or the new documents, never a mix of both. Renderers that are given the
+ * previous document can return it as it is when nothing it was rendered from has changed.
+ */
+public class RobotoCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RobotoCache.class);
+
+    /**
+     * Minimum time between two updates of a document's time of use.
+     */
+    private static final long USE_RESOLUTION = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int maxEntries;
+    private final AtomicReference<ConcurrentMap<Key, CacheEntry>> generation =
+            new AtomicReference<>(new ConcurrentHashMap<>());
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final RobotoMetrics metrics;
+
+    public RobotoCache(int maxEntries) {
+        this(maxEntries, RobotoMetrics.NOOP);
+    }
+
+    public RobotoCache(int maxEntries, RobotoMetrics metrics) {
+        this.maxEntries = maxEntries;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets a document from the cache, rendering it if it is not cached. If the document is already being rendered by
+     * another thread, waits for that rendering to complete.
+     *
+     * @param key cache key
+     * @param renderer renders the document on a cache miss
+     * @return the cached or newly rendered document
+     */
+    public RobotoDocument get(Key key, Supplier<RobotoDocument> renderer) {
+        return get(key, previous -> renderer.get());
+    }
+
+    /**
+     * Gets a document from the cache, rendering it if it is not cached. If the document is already being rendered by
+     * another thread, waits for that rendering to complete.
+     *
+     * @param key cache key
+     * @param renderer renders the document given its previous rendering, which is <code>null</code> on a cache miss
+     *                 and the cached document on a refresh
+     * @return the cached or newly rendered document
+     */
+    public RobotoDocument get(Key key, UnaryOperator<RobotoDocument> renderer) {
+        if (!key.cached) {
+            misses.increment();
+            return render(key, new CacheEntry(renderer), null);
+        }
+
+        ConcurrentMap<Key, CacheEntry> entries = generation.get();
+        CacheEntry entry = entries.get(key);
+        boolean owner = false;
+
+        if (entry == null) {
+            CacheEntry created = new CacheEntry(renderer);
+            created.task = new FutureTask<>(() -> render(key, created, null));
+
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                owner = true;
+            }
+        }
+
+        FutureTask<RobotoDocument> task = entry.task;
+
+        if (owner) {
+            misses.increment();
+            evict(entries);
+            task.run();
+        } else {
+            hits.increment();
+            entry.use();
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key.getDocument(), e);
+        } catch (ExecutionException e) {
+            // Don't cache failures, so that the next request tries again
+            remove(entries, key, task);
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException("Failed to render " + key.getDocument(), e.getCause());
+        }
+    }
+
+    /**
+     * Gets a document from the cache without blocking. Documents that are still being rendered are not returned.
+     *
+     * @param key cache key
+     * @return the cached document, or <code>null</code> if it has not been rendered yet or is not cached
+     */
+    public RobotoDocument getIfPresent(Key key) {
+        if (!key.cached) {
+            return null;
+        }
+
+        CacheEntry entry = generation.get().get(key);
+        if (entry == null || !entry.task.isDone()) {
+            return null;
+        }
+
+        RobotoDocument document = getIfRendered(entry.task);
+        if (document != null) {
+            hits.increment();
+            entry.use();
+        }
+
+        return document;
+    }
+
+    /**
+     * Re-renders every cached document and replaces them all at once when all of them have rendered. Requests keep
+     * being served the previous documents while rendering is in progress. If any document fails to render, the
+     * previous documents are kept.
+     *
+     * Documents whose content has not changed are kept as they are, so that their ETag and Last-Modified
+     * date stay the same.
+     *
+     * @return <code>true</code> if the documents were refreshed; otherwise <code>false</code>
+     */
+    public boolean refresh() {
+        ConcurrentMap<Key, CacheEntry> entries = generation.get();
+        Map<Key, CacheEntry> current = new LinkedHashMap<>(entries);
+
+        Map<Key, CacheEntry> rendered = new LinkedHashMap<>();
+        for (Map.Entry<Key, CacheEntry> cached : current.entrySet()) {
+            CacheEntry entry = cached.getValue();
+
+            // Documents that are still being rendered for the first time are already up to date
+            if (!entry.task.isDone()) {
+                continue;
+            }
+
+            try {
+                RobotoDocument previous = getIfRendered(entry.task);
+                CacheEntry refreshed = new CacheEntry(entry.renderer);
+                RobotoDocument document = render(cached.getKey(), refreshed, previous);
+
+                if (previous == null || !previous.getEtag().equals(document.getEtag())) {
+                    refreshed.task = new FutureTask<>(() -> document);
+                    refreshed.task.run();
+                    refreshed.lastUsed = entry.lastUsed;
+
+                    rendered.put(cached.getKey(), refreshed);
+                } else {
+                    entry.renderTime = refreshed.renderTime;
+                    entry.renderedAt = refreshed.renderedAt;
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to refresh " + cached.getKey() + ", keeping the previous documents", e);
+                return false;
+            }
+        }
+
+        // Documents added while rendering are carried over, and documents evicted in the meantime stay evicted
+        ConcurrentMap<Key, CacheEntry> next = new ConcurrentHashMap<>(entries);
+        for (Map.Entry<Key, CacheEntry> entry : rendered.entrySet()) {
+            next.replace(entry.getKey(), current.get(entry.getKey()), entry.getValue());
+        }
+
+        if (!generation.compareAndSet(entries, next)) {
+            LOGGER.warn("Roboto documents were cleared or refreshed while refreshing, keeping the current documents");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the documents that have finished rendering, from least to most recently used, along with when they were
+     * last rendered and how long that took. Documents kept as they were by a refresh count as rendered by it.
+     *
+     * @return rendered documents
+     */
+    public List<CachedDocument> getDocuments() {
+        List<Map.Entry<Key, CacheEntry>> current = new ArrayList<>(generation.get().entrySet());
+        current.sort(Comparator.comparing(Map.Entry::getValue, CacheEntry.LEAST_RECENTLY_USED));
+
+        List<CachedDocument> documents = new ArrayList<>(current.size());
+        for (Map.Entry<Key, CacheEntry> cached : current) {
+            CacheEntry entry = cached.getValue();
+            RobotoDocument document = entry.task.isDone() ? getIfRendered(entry.task) : null;
+
+            if (document != null) {
+                documents.add(new CachedDocument(cached.getKey(), document, Duration.ofNanos(entry.renderTime),
+                        entry.renderedAt));
+            }
+        }
+
+        return documents;
+    }
+
+    /**
+     * Removes all documents from the cache.
+     */
+    public void clear() {
+        generation.set(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Gets the number of documents in the cache, including documents that are being rendered.
+     *
+     * @return number of documents
+     */
+    public int size() {
+        return generation.get().size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Gets the number of requests that were served from the cache or waited for another thread's rendering.
+     *
+     * @return cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests that rendered a document.
+     *
+     * @return cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private RobotoDocument render(Key key, CacheEntry entry, RobotoDocument previous) {
+        long start = System.nanoTime();
+        RobotoDocument document = entry.renderer.apply(previous);
+        long duration = System.nanoTime() - start;
+
+        entry.renderTime = duration;
+        entry.renderedAt = System.currentTimeMillis();
+        metrics.recordRender(key, document, duration);
+
+        return document;
+    }
+
+    private static void remove(ConcurrentMap<Key, CacheEntry> entries, Key key, FutureTask<RobotoDocument> task) {
+        CacheEntry entry = entries.get(key);
+
+        if (entry != null && entry.task == task) {
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Evicts the least recently used documents when the cache holds more than the maximum number of documents,
+     * leaving room for a tenth of the maximum. Only called when a document is added, so that lookups never scan the
+     * cache, and misses only scan it once per batch of evicted documents.
+     */
+    private void evict(ConcurrentMap<Key, CacheEntry> entries) {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+
+        List<Map.Entry<Key, CacheEntry>> eldest = new ArrayList<>(entries.entrySet());
+        eldest.sort(Comparator.comparing(Map.Entry::getValue, CacheEntry.LEAST_RECENTLY_USED));
+
+        int evicted = eldest.size() - (maxEntries - maxEntries / 10);
+        for (int i = 0; i < evicted; i++) {
+            entries.remove(eldest.get(i).getKey(), eldest.get(i).getValue());
+        }
+    }
+
+    private static RobotoDocument getIfRendered(FutureTask<RobotoDocument> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A cached document, along with the renderer used to refresh it and when it was last used and rendered. The task
+     * is set before the entry is added to the cache.
+     */
+    private static final class CacheEntry {
+
+        private static final Comparator<CacheEntry> LEAST_RECENTLY_USED =
+                (a, b) -> Long.signum(a.lastUsed - b.lastUsed);
+
+        private final UnaryOperator<RobotoDocument> renderer;
+        private FutureTask<RobotoDocument> task;
+        private volatile long lastUsed = System.nanoTime();
+        private volatile long renderTime;
+        private volatile long renderedAt;
+
+        private CacheEntry(UnaryOperator<RobotoDocument> renderer) {
+            this.renderer = renderer;
+        }
+
+        /**
+         * Records that the document was used, unless that was already recorded within the last millisecond.
+         */
+        private void use() {
+            long now = System.nanoTime();
+            if (now - lastUsed >= USE_RESOLUTION) {
+                lastUsed = now;
+            }
+        }
+    }
+
+    /**
+     * A rendered document in the cache.
+     */
+    public static final class CachedDocument {
+
+        private final Key key;
+        private final RobotoDocument document;
+        private final Duration renderTime;
+        private final long renderedAt;
+
+        private CachedDocument(Key key, RobotoDocument document, Duration renderTime, long renderedAt) {
+            this.key = key;
+            this.document = document;
+            this.renderTime = renderTime;
+            this.renderedAt = renderedAt;
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public RobotoDocument getDocument() {
+            return document;
+        }
+
+        /**
+         * Gets how long the document last took to render.
+         *
+         * @return render time
+         */
+        public Duration getRenderTime() {
+            return renderTime;
+        }
+
+        /**
+         * Gets the time the document was last rendered, in milliseconds since the epoch.
+         *
+         * @return time rendered
+         */
+        public long getRenderedAt() {
+            return renderedAt;
+        }
+    }
+
+    /**
+     * Identifies a rendered document. Documents embed absolute urls, so they are cached separately for each
+     * scheme, host and port they are requested on. Documents of keys that are not cached are rendered every time
+     * they are requested.
+     */
+    public static final class Key {
+
+        private final RobotoMapper mapper;
+        private final String scheme;
+        private final String host;
+        private final int port;
+        private final String document;
+        private final boolean cached;
+        private final int hash;
+
+        public Key(RobotoMapper mapper, String scheme, String host, int port, String document) {
+            this(mapper, scheme, host, port, document, true);
+        }
+
+        Key(RobotoMapper mapper, String scheme, String host, int port, String document, boolean cached) {
+            this.mapper = mapper;
+            this.scheme = scheme;
+            this.host = host;
+            this.port = port;
+            this.document = document;
+            this.cached = cached;
+
+            int hash = System.identityHashCode(mapper);
+            hash = 31 * hash + scheme.hashCode();
+            hash = 31 * hash + host.hashCode();
+            hash = 31 * hash + port;
+            this.hash = 31 * hash + document.hashCode();
+        }
+
+        public RobotoMapper getMapper() {
+            return mapper;
+        }
+
+        public String getScheme() {
+            return scheme;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public String getDocument() {
+            return document;
+        }
+
+        /**
+         * Gets the base url that absolute urls in the document are built from. The port is left out when it is the
+         * default port of the scheme, or unknown.
+         *
+         * @return scheme, host and port
+         */
+        public String getBaseUrl() {
+            if (port < 0 || port == 80 && "http".equals(scheme) || port == 443 && "https".equals(scheme)) {
+                return scheme + "://" + host;
+            }
+
+            return scheme + "://" + host + ":" + port;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return port == key.port &&
+                    mapper == key.mapper &&
+                    scheme.equals(key.scheme) &&
+                    host.equals(key.host) &&
+                    document.equals(key.document);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return getBaseUrl() + "/" + document;
+        }
+    }
+}
@@ -16,23 +16,104 @@
 
 package com.github.gregwhitaker.roboto.spring;
 
-import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.function.Supplier;
 
 @Configuration
+@Import(RobotoCoreConfiguration.class)
 public class RobotoConfiguration {
+    private static final String HANDLER_MAPPING = "requestMappingHandlerMapping";
+
+    @Bean
+    public RobotoMapperFactory robotoMapperFactory() {
+        return beanFactory -> {
+            if (!beanFactory.containsBean(HANDLER_MAPPING)) {
+                return null;
+            }
+
+            RequestMappingHandlerMapping handlerMapping =
+                    beanFactory.getBean(HANDLER_MAPPING, RequestMappingHandlerMapping.class);
+
+            return new HandlerMappingRobotoMapper(beanFactory, handlerMapping);
+        };
+    }
+
+    @Bean
+    @Autowired
+    public FilterRegistrationBean<RobotoMetricsFilter> robotoMetricsFilter(ObjectProvider<RobotoMetrics> metrics) {
+        RobotoMetrics robotoMetrics = metrics.getIfAvailable(() -> RobotoMetrics.NOOP);
+
+        FilterRegistrationBean<RobotoMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RobotoMetricsFilter(robotoMetrics));
+        registration.addUrlPatterns("/robots.txt", "*.xml", "*.gz");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        // Without a meter registry there is nothing to record
+        registration.setEnabled(robotoMetrics != RobotoMetrics.NOOP);
+
+        return registration;
+    }
 
     @Bean
     @Autowired
-    public RobotoMapper robotoMapper(BeanFactory beanFactory) {
-        return new RobotoMapper(beanFactory);
+    public FilterRegistrationBean<RobotoEnforcementFilter> robotoEnforcementFilter(RobotoInitializer initializer,
+                                                                                   ObjectProvider<RobotoHosts> robotoHosts,
+                                                                                   RobotoProperties properties) {
+        Supplier<RobotoHosts> hosts = initializer.whenReady(mapper -> robotoHosts.getObject());
+
+        FilterRegistrationBean<RobotoEnforcementFilter> registration =
+                new FilterRegistrationBean<>(RobotoEnforcementFilter.forHosts(hosts));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.setEnabled(properties.getEnforcement().isEnabled());
+
+        return registration;
+    }
+
+    @Bean
+    @Autowired
+    public FilterRegistrationBean<RobotoRateLimitFilter> robotoRateLimitFilter(RobotoInitializer initializer,
+                                                                               RobotoProperties properties) {
+        RobotoProperties.Enforcement enforcement = properties.getEnforcement();
+        Supplier<CrawlRateLimiter> limiter = initializer.whenReady(mapper -> CrawlRateLimiter.create(mapper.getGroups(),
+                mapper.getCrawlDelays(), enforcement.getCrawlerUserAgents(), enforcement.getRateLimit().getBurst()));
+
+        FilterRegistrationBean<RobotoRateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RobotoRateLimitFilter(limiter));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        registration.setEnabled(enforcement.getRateLimit().isEnabled());
+
+        return registration;
+    }
+
+    @Bean
+    @Autowired
+    public FilterRegistrationBean<RobotoFastPathFilter> robotoFastPathFilter(RobotoInitializer initializer,
+                                                                             ObjectProvider<RobotoHosts> robotoHosts,
+                                                                             RobotoCache cache,
+                                                                             RobotoProperties properties) {
+        Supplier<RobotoHosts> hosts = initializer.whenReady(mapper -> robotoHosts.getObject());
+
+        FilterRegistrationBean<RobotoFastPathFilter> registration =
+                new FilterRegistrationBean<>(new RobotoFastPathFilter(hosts, cache, properties));
+        registration.addUrlPatterns("/robots.txt", "*.xml", "*.gz");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        registration.setEnabled(properties.getFastPath().isEnabled());
+
+        return registration;
     }
 
     @Bean
     @Autowired
-    public RobotoController robotoController(RobotoMapper mapper) {
-        return new RobotoController(mapper);
+    public RobotoController robotoController(RobotoInitializer initializer, ObjectProvider<RobotoHosts> robotoHosts,
+                                             RobotoCache cache, RobotoProperties properties) {
+        return new RobotoController(initializer.whenReady(mapper -> robotoHosts.getObject()), cache, properties);
     }
 }
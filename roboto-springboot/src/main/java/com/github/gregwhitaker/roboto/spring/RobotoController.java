@@ -16,23 +16,76 @@
 
 package com.github.gregwhitaker.roboto.spring;
 
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Supplier;
 
 /**
  * Controller responsible for creating and hosting the robots.txt and sitemap files.
+ *
+ * While the endpoints are still being mapped, requests are answered with 503 Service Unavailable and a
+ * <code>Retry-After</code> header, or with a robots.txt that allows everything if so configured.
+ *
+ * Each host is served the documents of its own rules, as selected by {@link RobotoHosts}.
+ *
+ * Large sitemaps can be streamed with non-blocking I/O, see {@link RobotoProperties.Streaming}.
  */
 @Controller
 public class RobotoController {
+    private static final MediaType APPLICATION_GZIP = MediaType.valueOf("application/gzip");
+    private static final int CHUNK_SIZE = 8192;
 
-    private final RobotoMapper mapper;
+    /**
+     * Result of a streamed request once the document has been written, which leaves nothing more to write.
+     */
+    private static final ResponseEntity<Resource> STREAMED = ResponseEntity.ok().build();
 
-    public RobotoController(RobotoMapper mapper) {
-        this.mapper = mapper;
+    private final Supplier<RobotoHosts> hosts;
+    private final RobotoCache cache;
+    private final CacheControl cacheControl;
+    private final String retryAfter;
+    private final boolean permissiveRobots;
+    private final boolean streaming;
+    private final int streamingMinSize;
+    private final Duration streamingTimeout;
+
+    /**
+     * Creates a controller whose hosts, and the mapper they were created from, may not be available yet.
+     *
+     * @param hosts supplies the hosts, or <code>null</code> while the endpoints are being mapped
+     * @param cache document cache
+     * @param properties roboto properties
+     */
+    public RobotoController(Supplier<RobotoHosts> hosts, RobotoCache cache, RobotoProperties properties) {
+        this.hosts = hosts;
+        this.cache = cache;
+        this.cacheControl = properties.getCacheControl().toHttpCacheControl();
+        this.retryAfter = Long.toString(properties.getInitialization().getRetryAfter().getSeconds());
+        this.permissiveRobots = properties.getInitialization().isPermissiveRobots();
+        this.streaming = properties.getStreaming().isEnabled();
+        this.streamingMinSize = properties.getStreaming().getMinSize();
+        this.streamingTimeout = properties.getStreaming().getTimeout();
     }
 
     /**
@@ -42,9 +95,17 @@ public class RobotoController {
      */
     @RequestMapping(value = { "/robots.txt" },
                     produces = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<String> robots(HttpServletRequest request) {
+    public ResponseEntity<Resource> robots(HttpServletRequest request) {
+        RobotoHosts robotoHosts = hosts.get();
+        if (robotoHosts == null) {
+            return permissiveRobots ? allowAll() : unavailable();
+        }
+
+        SitemapGenerator generator = robotoHosts.getGenerator(request.getServerName());
+
         try {
-            return ResponseEntity.ok(RobotsResponse.create(request, mapper));
+            RobotoCache.Key key = createKey(robotoHosts, request, generator, RobotsResponse.DOCUMENT);
+            return respond(request, RobotsResponse.create(cache, key));
         } catch (Exception e) {
             // In the event of an exception just don't return a robots.txt file
             return ResponseEntity.notFound().build();
@@ -54,16 +115,349 @@ public class RobotoController {
     /**
      * Handles requests for sitemap.xml file.
      *
-     * @return a {@link ResponseEntity} containing the sitemap.xml file.
+     * @return a {@link ResponseEntity} containing the sitemap.xml file, or <code>null</code> if it is streamed
      */
     @RequestMapping(value = { "/sitemap.xml" },
                     produces = MediaType.APPLICATION_XML_VALUE)
-    public ResponseEntity<SitemapResponse.XmlUrlSet> sitemap(HttpServletRequest request) {
+    public ResponseEntity<Resource> sitemap(HttpServletRequest request, HttpServletResponse response,
+                                            WebRequest webRequest) {
+        RobotoHosts robotoHosts = hosts.get();
+        if (robotoHosts == null) {
+            return unavailable();
+        }
+
+        SitemapGenerator generator = robotoHosts.getGenerator(request.getServerName());
+
         try {
-            return ResponseEntity.ok(SitemapResponse.create(request, mapper));
+            RobotoCache.Key key = createKey(robotoHosts, request, generator, SitemapResponse.DOCUMENT);
+            return respondOrStream(request, response, webRequest, SitemapResponse.create(cache, key, generator), false);
         } catch (Exception e) {
             // In the event of an exception just don't return a sitemap.xml file
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Handles requests for the gzip compressed sitemap.xml.gz file.
+     *
+     * @return a {@link ResponseEntity} containing the compressed sitemap.xml file, or <code>null</code> if it is
+     *         streamed
+     */
+    @RequestMapping(value = { "/sitemap.xml.gz" })
+    public ResponseEntity<Resource> sitemapGzip(HttpServletRequest request, HttpServletResponse response,
+                                                WebRequest webRequest) {
+        RobotoHosts robotoHosts = hosts.get();
+        if (robotoHosts == null) {
+            return unavailable();
+        }
+
+        SitemapGenerator generator = robotoHosts.getGenerator(request.getServerName());
+
+        try {
+            RobotoCache.Key key = createKey(robotoHosts, request, generator, SitemapResponse.DOCUMENT);
+            return respondOrStream(request, response, webRequest, SitemapResponse.create(cache, key, generator), true);
+        } catch (Exception e) {
+            // In the event of an exception just don't return a sitemap.xml.gz file
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Handles requests for a sitemap shard when the sitemap has been split into a sitemap index.
+     *
+     * @return a {@link ResponseEntity} containing the sitemap shard, or <code>null</code> if it is streamed
+     */
+    @RequestMapping(value = { "/sitemap-{shard:\\d+}.xml" },
+                    produces = MediaType.APPLICATION_XML_VALUE)
+    public ResponseEntity<Resource> sitemapShard(HttpServletRequest request, HttpServletResponse response,
+                                                 WebRequest webRequest, @PathVariable("shard") int shard) {
+        RobotoHosts robotoHosts = hosts.get();
+        if (robotoHosts == null) {
+            return unavailable();
+        }
+
+        SitemapGenerator generator = robotoHosts.getGenerator(request.getServerName());
+
+        try {
+            RobotoCache.Key key = createKey(robotoHosts, request, generator, SitemapGenerator.getShardDocument(shard));
+            return respondOrStream(request, response, webRequest,
+                    SitemapResponse.createShard(cache, key, generator, shard), false);
+        } catch (Exception e) {
+            // In the event of an exception, or if the shard does not exist, just don't return a sitemap file
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Handles requests for a gzip compressed sitemap shard.
+     *
+     * @return a {@link ResponseEntity} containing the compressed sitemap shard, or <code>null</code> if it is
+     *         streamed
+     */
+    @RequestMapping(value = { "/sitemap-{shard:\\d+}.xml.gz" })
+    public ResponseEntity<Resource> sitemapShardGzip(HttpServletRequest request, HttpServletResponse response,
+                                                     WebRequest webRequest, @PathVariable("shard") int shard) {
+        RobotoHosts robotoHosts = hosts.get();
+        if (robotoHosts == null) {
+            return unavailable();
+        }
+
+        SitemapGenerator generator = robotoHosts.getGenerator(request.getServerName());
+
+        try {
+            RobotoCache.Key key = createKey(robotoHosts, request, generator, SitemapGenerator.getShardDocument(shard));
+            return respondOrStream(request, response, webRequest,
+                    SitemapResponse.createShard(cache, key, generator, shard), true);
+        } catch (Exception e) {
+            // In the event of an exception, or if the shard does not exist, just don't return a sitemap file
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Creates the cache key of a document for the host, scheme and port of the request.
+     *
+     * @param hosts hosts
+     * @param request http request
+     * @param generator sitemap generator of the request's host
+     * @param document document name
+     * @return cache key
+     */
+    private static RobotoCache.Key createKey(RobotoHosts hosts, HttpServletRequest request, SitemapGenerator generator,
+                                             String document) {
+        return hosts.createKey(generator, request.getScheme(), request.getServerName(), request.getServerPort(), document);
+    }
+
+    /**
+     * Creates a response for a rendered document, using the pre-compressed variant when the client accepts gzip.
+     * Conditional requests matching the ETag or Last-Modified date are answered with 304 Not Modified by
+     * Spring MVC without writing the body.
+     *
+     * @param request http request
+     * @param document rendered document
+     * @return a {@link ResponseEntity} containing the document
+     */
+    private ResponseEntity<Resource> respond(HttpServletRequest request, RobotoDocument document) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(document.getContentType())
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .lastModified(document.getLastModified());
+
+        if (acceptsGzip(request)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .eTag(document.getGzipEtag())
+                    .body(new ByteBufferResource(document.getGzipBodyBuffer()));
+        }
+
+        return builder.eTag(document.getEtag())
+                .body(new ByteBufferResource(document.getBodyBuffer()));
+    }
+
+    /**
+     * Creates a response for a rendered sitemap. When streaming is enabled, sitemaps of at least the minimum size are
+     * instead written to the response with non-blocking I/O, so that no thread waits on the client while it reads
+     * the sitemap.
+     *
+     * Streaming is started through Spring MVC's {@link org.springframework.web.context.request.async.WebAsyncManager}
+     * with a {@link DeferredResult}, so that filters and interceptors treat the request as asynchronous. Once the
+     * document has been written, or the client goes away, the result is set to a response without a body and Spring
+     * MVC completes the request in an async dispatch.
+     *
+     * The Content-Length of the whole document has been sent by then, so a client that times out is not sent a
+     * complete looking response. The result is set to a {@link StreamingAbortedException} instead, which the
+     * container treats as a failed request and closes the connection, and the client sees a truncated body.
+     *
+     * @param request http request
+     * @param response http response
+     * @param webRequest web request, used to answer conditional requests
+     * @param document rendered document
+     * @param gzipFile <code>true</code> to serve the compressed document as a gzip file
+     * @return a {@link ResponseEntity} containing the document, or <code>null</code> if it is streamed or was not
+     *         modified
+     * @throws Exception if streaming could not be started
+     */
+    private ResponseEntity<Resource> respondOrStream(HttpServletRequest request, HttpServletResponse response,
+                                                     WebRequest webRequest, RobotoDocument document,
+                                                     boolean gzipFile) throws Exception {
+        boolean gzip = gzipFile || acceptsGzip(request);
+        ByteBuffer body = gzip ? document.getGzipBodyBuffer() : document.getBodyBuffer();
+
+        // HEAD responses have no body to stream, and the servlet API's body-less response does not support
+        // non-blocking writes
+        if (!streaming || body.remaining() < streamingMinSize || !request.isAsyncSupported()
+                || "HEAD".equals(request.getMethod())) {
+            return gzipFile ? respondGzip(document) : respond(request, document);
+        }
+
+        if (gzipFile) {
+            response.setContentType(APPLICATION_GZIP.toString());
+        } else {
+            response.setContentType(document.getContentType().toString());
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+
+        if (cacheControl.getHeaderValue() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+
+        // Sets the ETag and Last-Modified headers, and the 304 status if they match
+        String etag = gzip ? document.getGzipEtag() : document.getEtag();
+        if (webRequest.checkNotModified(etag, document.getLastModified())) {
+            return null;
+        }
+
+        response.setContentLengthLong(body.remaining());
+
+        DeferredResult<ResponseEntity<Resource>> result =
+                new DeferredResult<>(streamingTimeout != null ? streamingTimeout.toMillis() : null);
+        ServletOutputStream out = response.getOutputStream();
+        DocumentWriter writer = new DocumentWriter(out, document, gzip, streamingTimeout, result);
+        result.onTimeout(writer::abort);
+        result.onError(e -> result.setResult(STREAMED));
+
+        // Spring MVC resumes the request in the async dispatch with this model and view container
+        WebAsyncUtils.getAsyncManager(request).startDeferredResultProcessing(result, new ModelAndViewContainer());
+
+        out.setWriteListener(writer);
+        return null;
+    }
+
+    /**
+     * Creates a response containing the gzip compressed variant of a rendered document as a gzip file.
+     *
+     * @param document rendered document
+     * @return a {@link ResponseEntity} containing the compressed document
+     */
+    private ResponseEntity<Resource> respondGzip(RobotoDocument document) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_GZIP)
+                .cacheControl(cacheControl)
+                .eTag(document.getGzipEtag())
+                .lastModified(document.getLastModified())
+                .body(new ByteBufferResource(document.getGzipBodyBuffer()));
+    }
+
+    /**
+     * Creates a response telling clients to retry once the endpoints have been mapped. The response must not be
+     * cached, so that caches in front of the application pick up the real document as soon as it is available.
+     *
+     * @return a 503 Service Unavailable {@link ResponseEntity}
+     */
+    private ResponseEntity<Resource> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                .cacheControl(CacheControl.noStore())
+                .build();
+    }
+
+    /**
+     * Creates a robots.txt response that allows everything, served while the endpoints are being mapped.
+     *
+     * @return a {@link ResponseEntity} containing the permissive robots.txt file
+     */
+    private ResponseEntity<Resource> allowAll() {
+        return ResponseEntity.ok()
+                .contentType(RobotsResponse.CONTENT_TYPE)
+                .cacheControl(CacheControl.noStore())
+                .body(new ByteArrayResource(RobotsResponse.ALLOW_ALL.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Checks to see if the client accepts gzip encoded responses.
+     *
+     * @param request http request
+     * @return <code>true</code> if gzip is acceptable; otherwise <code>false</code>
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        return AcceptEncoding.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Writes a document to an asynchronous response one chunk at a time, whenever the client is ready to receive
+     * more. Memory-mapped documents are copied through a small buffer. The deferred result is set once the whole
+     * document has been written, when the client goes away, or to an error when it times out, and writing stops
+     * once it is set.
+     *
+     * The servlet container does not time out requests whose non-blocking writes keep making progress, so clients
+     * that read slowly are timed out here as well.
+     */
+    private static final class DocumentWriter implements WriteListener {
+
+        private final ServletOutputStream out;
+        private final ByteBuffer source;
+        private final byte[] array;
+        private final byte[] chunk;
+        private final long start = System.nanoTime();
+        private final long timeout;
+        private final DeferredResult<ResponseEntity<Resource>> result;
+
+        private DocumentWriter(ServletOutputStream out, RobotoDocument document, boolean gzip, Duration timeout,
+                               DeferredResult<ResponseEntity<Resource>> result) {
+            this.out = out;
+            this.source = gzip ? document.getGzipBodyBuffer() : document.getBodyBuffer();
+            this.array = document.getHeapBody(gzip);
+            this.chunk = array != null ? null : new byte[CHUNK_SIZE];
+            this.timeout = timeout != null ? timeout.toNanos() : Long.MAX_VALUE;
+            this.result = result;
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            while (out.isReady()) {
+                if (result.isSetOrExpired()) {
+                    // Timed out, or the client has gone away
+                    return;
+                }
+
+                if (!source.hasRemaining()) {
+                    result.setResult(STREAMED);
+                    return;
+                }
+
+                if (System.nanoTime() - start > timeout) {
+                    abort();
+                    return;
+                }
+
+                int length = Math.min(CHUNK_SIZE, source.remaining());
+
+                if (array != null) {
+                    out.write(array, source.position(), length);
+                    source.position(source.position() + length);
+                } else {
+                    source.get(chunk, 0, length);
+                    out.write(chunk, 0, length);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            result.setResult(STREAMED);
+        }
+
+        /**
+         * Fails the request of a client that timed out before the whole document was written.
+         */
+        private void abort() {
+            result.setErrorResult(new StreamingAbortedException(String.format(
+                    "Timed out after writing %d of %d bytes", source.position(), source.limit())));
+        }
+    }
+
+    /**
+     * Thrown in the async dispatch of a streamed document that could not be written in time, so that the container
+     * closes the connection instead of completing a response whose body is shorter than its Content-Length.
+     */
+    static final class StreamingAbortedException extends IOException {
+
+        StreamingAbortedException(String message) {
+            super(message);
+        }
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mapping, rendering and caching shared by the Spring MVC and WebFlux configurations. Nothing here depends on the
+ * servlet API or on a web framework; handler mappings are read through the {@link RobotoMapperFactory} each of them
+ * provides.
+ */
+@Configuration
+@EnableConfigurationProperties(RobotoProperties.class)
+@Import({ RobotoMetricsConfiguration.class, RobotoEndpointConfiguration.class })
+public class RobotoCoreConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RobotoCoreConfiguration.class);
+
+    @Bean
+    @Autowired
+    public RobotoInitializer robotoInitializer(ListableBeanFactory beanFactory, RobotoProperties properties,
+                                               ObjectProvider<RobotoMapperFactory> mapperFactory,
+                                               ObjectProvider<RobotoMetrics> metrics,
+                                               ObjectProvider<BuildProperties> buildProperties) {
+        // Beans are looked up before mapping starts, since the mapping may run on another thread while beans are
+        // still being created
+        RobotoMapperFactory factory = mapperFactory.getIfAvailable(() -> bf -> null);
+        RobotoMetrics robotoMetrics = metrics.getIfAvailable(() -> RobotoMetrics.NOOP);
+        BuildProperties build = buildProperties.getIfAvailable();
+
+        return new RobotoInitializer(() -> {
+            RobotoMapper mapper = loadOrCreateMapper(beanFactory, factory, properties, build);
+            robotoMetrics.recordMapping(mapper);
+
+            return mapper;
+        }, properties.getInitialization().getMode());
+    }
+
+    /**
+     * The mapper is created on first use, so that it does not hold up startup unless endpoints are mapped eagerly.
+     */
+    @Bean
+    @Lazy
+    @Autowired
+    public RobotoMapper robotoMapper(RobotoInitializer initializer) {
+        return initializer.get();
+    }
+
+    /**
+     * Loads the mapper from its snapshot if the snapshot was saved by the running build, otherwise maps the
+     * application's endpoints and saves a snapshot for the next startup.
+     */
+    private RobotoMapper loadOrCreateMapper(ListableBeanFactory beanFactory, RobotoMapperFactory mapperFactory,
+                                            RobotoProperties properties, BuildProperties buildProperties)
+            throws IOException {
+        String file = properties.getSnapshot().getFile();
+        String fingerprint = properties.getSnapshot().getFingerprint() != null
+                ? properties.getSnapshot().getFingerprint()
+                : SnapshotRobotoMapper.getFingerprint(buildProperties);
+
+        if (file == null) {
+            return createMapper(beanFactory, mapperFactory, properties);
+        }
+
+        if (fingerprint == null) {
+            LOGGER.warn("No build fingerprint available, so the Roboto snapshot at {} is not used", file);
+            return createMapper(beanFactory, mapperFactory, properties);
+        }
+
+        // Snapshots taken in another mapping mode may have mapped different endpoints, and the saved robots.txt
+        // rules depend on the owned directories
+        fingerprint += "/" + properties.getMappingMode() + "/" + properties.getRobots().getOwnedDirectories();
+
+        try {
+            RobotoMapper mapper = SnapshotRobotoMapper.load(Paths.get(file), fingerprint, ClassUtils.getDefaultClassLoader());
+            if (mapper != null) {
+                // Host mappers compute their own rules
+                mapper.setOwnedDirectories(properties.getRobots().getOwnedDirectories());
+                return mapper;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to load the Roboto snapshot at " + file + ", mapping endpoints instead", e);
+        }
+
+        RobotoMapper mapper = createMapper(beanFactory, mapperFactory, properties);
+
+        try {
+            SnapshotRobotoMapper.save(mapper, Paths.get(file), fingerprint);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save the Roboto snapshot to " + file, e);
+        }
+
+        return mapper;
+    }
+
+    private RobotoMapper createMapper(ListableBeanFactory beanFactory, RobotoMapperFactory mapperFactory,
+                                      RobotoProperties properties) throws IOException {
+        RobotoMapper mapper = mapEndpoints(beanFactory, mapperFactory, properties);
+        mapper.setOwnedDirectories(properties.getRobots().getOwnedDirectories());
+
+        return mapper;
+    }
+
+    private RobotoMapper mapEndpoints(ListableBeanFactory beanFactory, RobotoMapperFactory mapperFactory,
+                                      RobotoProperties properties) throws IOException {
+        if (properties.getMappingMode() == RobotoProperties.MappingMode.INDEX) {
+            ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+
+            if (IndexRobotoMapper.isIndexPresent(classLoader)) {
+                return new IndexRobotoMapper(classLoader);
+            }
+
+            LOGGER.warn("No Roboto index found at {}, falling back to classpath scanning", IndexRobotoMapper.INDEX_LOCATION);
+        }
+
+        if (properties.getMappingMode() == RobotoProperties.MappingMode.HANDLER_MAPPING) {
+            // Applications started without a web server, such as for an export, have no handler mapping
+            RobotoMapper mapper = mapperFactory.createFromHandlerMapping(beanFactory);
+            if (mapper != null) {
+                return mapper;
+            }
+
+            LOGGER.warn("No handler mapping found, falling back to classpath scanning");
+        }
+
+        return new RobotoMapper(beanFactory);
+    }
+
+    @Bean(destroyMethod = "save")
+    @Autowired
+    public SitemapIndex sitemapIndex(RobotoProperties properties) throws IOException {
+        String indexFile = properties.getSitemap().getIndexFile();
+
+        return indexFile != null ? new SitemapIndex(Paths.get(indexFile)) : new SitemapIndex();
+    }
+
+    @Bean
+    @Lazy
+    @Autowired
+    public SitemapGenerator sitemapGenerator(RobotoMapper mapper, SitemapIndex sitemapIndex, BeanFactory beanFactory,
+                                             RobotoProperties properties) {
+        List<SitemapUrlProvider> providers = new ArrayList<>();
+        for (Class<? extends SitemapUrlProvider> providerType : mapper.getSitemapUrlProviders()) {
+            providers.add(beanFactory.getBean(providerType));
+        }
+
+        String spoolDirectory = properties.getSitemap().getSpoolDirectory();
+        return new SitemapGenerator(mapper, providers,
+                properties.getSitemap().getMaxUrlsPerShard(), properties.getSitemap().getPageSize(), sitemapIndex,
+                spoolDirectory != null ? Paths.get(spoolDirectory) : null);
+    }
+
+    /**
+     * The hosts are created on first use, once the endpoints have been mapped.
+     */
+    @Bean
+    @Lazy
+    @Autowired
+    public RobotoHosts robotoHosts(SitemapGenerator sitemapGenerator, RobotoProperties properties) {
+        return RobotoHosts.create(sitemapGenerator, properties);
+    }
+
+    @Bean
+    @Autowired
+    public RobotoCache robotoCache(RobotoProperties properties, ObjectProvider<RobotoMetrics> metrics) {
+        RobotoMetrics robotoMetrics = metrics.getIfAvailable(() -> RobotoMetrics.NOOP);
+
+        RobotoCache cache = new RobotoCache(properties.getCache().getMaxEntries(), robotoMetrics);
+        robotoMetrics.monitorCache(cache);
+
+        return cache;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @Autowired
+    public RobotoRefresher robotoRefresher(RobotoCache cache, SitemapIndex sitemapIndex, RobotoProperties properties) {
+        return new RobotoRefresher(cache, sitemapIndex, properties.getRefresh().getInterval());
+    }
+}
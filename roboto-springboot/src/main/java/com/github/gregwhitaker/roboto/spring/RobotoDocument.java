@@ -0,0 +1,321 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A robots.txt or sitemap file rendered once into bytes, along with a gzip compressed variant and the
+ * validators needed to answer conditional requests for it.
+ *
+ * Documents rendered to a file are memory-mapped rather than read into the heap, so that large sitemaps do not
+ * count against the heap however many of them are cached. Their content is read with {@link #getBodyBuffer()} and
+ * {@link #getGzipBodyBuffer()}, which do not copy it.
+ */
+public final class RobotoDocument {
+
+    private final MediaType contentType;
+    private final ByteBuffer body;
+    private final ByteBuffer gzipBody;
+    private final String etag;
+    private final String gzipEtag;
+    private final long lastModified;
+    private final long urlCount;
+    private final long sourceHash;
+
+    private RobotoDocument(MediaType contentType, ByteBuffer body, ByteBuffer gzipBody, String digest, long urlCount,
+                           long sourceHash) {
+        this.contentType = contentType;
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = "\"" + digest + "\"";
+        this.gzipEtag = "\"" + digest + "-gzip\"";
+        // HTTP dates only have second precision
+        this.lastModified = (System.currentTimeMillis() / 1000) * 1000;
+        this.urlCount = urlCount;
+        this.sourceHash = sourceHash;
+    }
+
+    /**
+     * Creates a document from rendered content.
+     *
+     * @param contentType content type of the document
+     * @param body rendered content, which must not be modified afterwards
+     * @return the document
+     */
+    public static RobotoDocument of(MediaType contentType, byte[] body) {
+        return of(contentType, body, 0);
+    }
+
+    /**
+     * Creates a document from rendered content.
+     *
+     * @param contentType content type of the document
+     * @param body rendered content, which must not be modified afterwards
+     * @param urlCount number of urls or paths listed in the document
+     * @return the document
+     */
+    public static RobotoDocument of(MediaType contentType, byte[] body, long urlCount) {
+        return of(contentType, body, urlCount, 0);
+    }
+
+    /**
+     * Creates a document from rendered content.
+     *
+     * @param contentType content type of the document
+     * @param body rendered content, which must not be modified afterwards
+     * @param urlCount number of urls or paths listed in the document
+     * @param sourceHash hash of everything the document was rendered from, see {@link #getSourceHash()}
+     * @return the document
+     */
+    public static RobotoDocument of(MediaType contentType, byte[] body, long urlCount, long sourceHash) {
+        return new RobotoDocument(contentType, ByteBuffer.wrap(body), ByteBuffer.wrap(gzip(body)),
+                DigestUtils.md5DigestAsHex(body), urlCount, sourceHash);
+    }
+
+    /**
+     * Creates a document from content rendered to a file. The file is compressed next to itself, and both files are
+     * memory-mapped and then deleted, so they take no disk space once the document is no longer used. Where mapped
+     * files cannot be deleted, they are deleted when the JVM exits.
+     *
+     * @param contentType content type of the document
+     * @param file rendered content, which the document takes ownership of
+     * @param urlCount number of urls or paths listed in the document
+     * @param sourceHash hash of everything the document was rendered from, see {@link #getSourceHash()}
+     * @return the document
+     */
+    public static RobotoDocument of(MediaType contentType, Path file, long urlCount, long sourceHash) {
+        Path gzipFile = file.resolveSibling(file.getFileName() + ".gz");
+
+        try {
+            String digest;
+            try (InputStream in = Files.newInputStream(file)) {
+                digest = DigestUtils.md5DigestAsHex(in);
+            }
+
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = gzip(Files.newOutputStream(gzipFile))) {
+                byte[] buffer = new byte[64 * 1024];
+                for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            return new RobotoDocument(contentType, map(file), map(gzipFile), digest, urlCount, sourceHash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a document from " + file, e);
+        } finally {
+            delete(file);
+            delete(gzipFile);
+        }
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the rendered content. The returned array is shared and must not be modified, except for memory-mapped
+     * documents, whose content is copied into the heap.
+     *
+     * @return rendered content
+     */
+    public byte[] getBody() {
+        return toArray(body);
+    }
+
+    /**
+     * Gets the gzip compressed content. The returned array is shared and must not be modified, except for
+     * memory-mapped documents, whose content is copied into the heap.
+     *
+     * @return compressed content
+     */
+    public byte[] getGzipBody() {
+        return toArray(gzipBody);
+    }
+
+    /**
+     * Gets a read-only view of the rendered content, without copying it.
+     *
+     * @return rendered content, positioned at its start
+     */
+    public ByteBuffer getBodyBuffer() {
+        return body.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets a read-only view of the gzip compressed content, without copying it.
+     *
+     * @return compressed content, positioned at its start
+     */
+    public ByteBuffer getGzipBodyBuffer() {
+        return gzipBody.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the array holding the content of a document held in the heap, without copying it. The array is shared
+     * and must not be modified.
+     *
+     * @param gzip <code>true</code> for the gzip compressed content
+     * @return content, or <code>null</code> if the document is memory-mapped
+     */
+    byte[] getHeapBody(boolean gzip) {
+        ByteBuffer buffer = gzip ? gzipBody : body;
+        return buffer.hasArray() ? buffer.array() : null;
+    }
+
+    /**
+     * Gets the length of the rendered content.
+     *
+     * @return length in bytes
+     */
+    public int getContentLength() {
+        return body.remaining();
+    }
+
+    /**
+     * Gets the length of the gzip compressed content.
+     *
+     * @return length in bytes
+     */
+    public int getGzipContentLength() {
+        return gzipBody.remaining();
+    }
+
+    /**
+     * Checks to see if the content of the document is memory-mapped rather than held in the heap.
+     *
+     * @return <code>true</code> if the document is memory-mapped; otherwise <code>false</code>
+     */
+    public boolean isMapped() {
+        return !body.hasArray();
+    }
+
+    /**
+     * Gets the strong entity tag of the rendered content, including the surrounding quotes.
+     *
+     * @return entity tag
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Gets the strong entity tag of the gzip compressed content, including the surrounding quotes.
+     *
+     * @return entity tag
+     */
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    /**
+     * Gets the time the document was rendered, in milliseconds since the epoch.
+     *
+     * @return last modified time
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the number of urls or paths listed in the document.
+     *
+     * @return url count
+     */
+    public long getUrlCount() {
+        return urlCount;
+    }
+
+    /**
+     * Gets the hash of everything the document was rendered from, such as its base url and its entries. Renderers
+     * compare it to skip rendering a document again when nothing it is rendered from has changed.
+     *
+     * @return source hash, or <code>0</code> if the document does not have one
+     */
+    public long getSourceHash() {
+        return sourceHash;
+    }
+
+    /**
+     * Compresses the supplied content. Documents are compressed only once, so the best compression level is used.
+     *
+     * @param body content to compress
+     * @return compressed content
+     */
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+
+        try (OutputStream gzip = gzip(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static OutputStream gzip(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, 64 * 1024) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        };
+    }
+
+    /**
+     * Maps a file into memory. The mapping stays valid after the channel is closed and the file is deleted.
+     */
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Some platforms do not allow deleting files that are mapped
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.remaining()) {
+            return buffer.array();
+        }
+
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return copy;
+    }
+}
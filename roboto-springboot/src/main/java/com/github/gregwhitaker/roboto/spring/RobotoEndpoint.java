@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Actuator endpoint, exposed at <code>/actuator/roboto</code>, that shows the mapped endpoints, the rendered
+ * documents and the cache statistics, and refreshes the rendered documents on demand, for example after a data
+ * import.
+ */
+@Endpoint(id = "roboto")
+public class RobotoEndpoint {
+
+    private final RobotoInitializer initializer;
+    private final RobotoCache cache;
+    private final RobotoRefresher refresher;
+
+    public RobotoEndpoint(RobotoInitializer initializer, RobotoCache cache, RobotoRefresher refresher) {
+        this.initializer = initializer;
+        this.cache = cache;
+        this.refresher = refresher;
+    }
+
+    /**
+     * Gets the mapped endpoints, the rendered documents, the cache statistics and the outcome of the last refresh.
+     * Does not wait for the endpoints to be mapped.
+     *
+     * @return roboto details
+     */
+    @ReadOperation
+    public Map<String, Object> roboto() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("mapping", getMapping());
+        details.put("documents", getDocuments());
+        details.put("cache", getCache());
+        details.put("refresh", getRefresh());
+
+        return details;
+    }
+
+    /**
+     * Re-renders the cached documents on a background thread. Requests keep being served the previous documents
+     * until the refresh completes.
+     *
+     * @return the outcome of the last completed refresh
+     */
+    @WriteOperation
+    public Map<String, Object> refresh() {
+        refresher.refresh();
+
+        return getRefresh();
+    }
+
+    private Map<String, Object> getMapping() {
+        RobotoMapper mapper = initializer.getIfReady();
+
+        Map<String, Object> mapping = new LinkedHashMap<>();
+        mapping.put("ready", mapper != null);
+
+        if (mapper == null) {
+            return mapping;
+        }
+
+        List<String> providers = new ArrayList<>();
+        for (Class<? extends SitemapUrlProvider> provider : mapper.getSitemapUrlProviders()) {
+            providers.add(provider.getName());
+        }
+
+        mapping.put("mappingTime", mapper.getMappingTime());
+        mapping.put("allowed", mapper.getSortedAllowed());
+        mapping.put("disallowed", sort(mapper.getDisallowed()));
+        mapping.put("robotsRules", sort(mapper.getRobotsRules()));
+        mapping.put("crawlDelays", new TreeMap<>(mapper.getCrawlDelays()));
+        mapping.put("sitemapUrlProviders", providers);
+
+        return mapping;
+    }
+
+    private List<Map<String, Object>> getDocuments() {
+        List<Map<String, Object>> documents = new ArrayList<>();
+
+        for (RobotoCache.CachedDocument cached : cache.getDocuments()) {
+            RobotoDocument document = cached.getDocument();
+
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("url", cached.getKey().toString());
+            details.put("urls", document.getUrlCount());
+            details.put("size", document.getContentLength());
+            details.put("gzipSize", document.getGzipContentLength());
+            details.put("mapped", document.isMapped());
+            details.put("etag", document.getEtag());
+            details.put("lastModified", Instant.ofEpochMilli(document.getLastModified()).toString());
+            details.put("renderedAt", Instant.ofEpochMilli(cached.getRenderedAt()).toString());
+            details.put("renderTime", cached.getRenderTime().toNanos() / 1000000.0);
+            documents.add(details);
+        }
+
+        return documents;
+    }
+
+    private Map<String, Object> getCache() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("size", cache.size());
+        details.put("maxEntries", cache.getMaxEntries());
+        details.put("hits", cache.getHits());
+        details.put("misses", cache.getMisses());
+
+        return details;
+    }
+
+    private Map<String, Object> getRefresh() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        long lastRefreshTime = refresher.getLastRefreshTime();
+
+        details.put("lastRefreshTime", lastRefreshTime != 0 ? Instant.ofEpochMilli(lastRefreshTime).toString() : null);
+        details.put("lastRefreshDuration", refresher.getLastRefreshDuration());
+        details.put("lastRefreshSucceeded", refresher.isLastRefreshSucceeded());
+
+        return details;
+    }
+
+    private static Map<String, Set<String>> sort(Map<String, Set<String>> paths) {
+        Map<String, Set<String>> sorted = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : paths.entrySet()) {
+            sorted.put(entry.getKey(), new TreeSet<>(entry.getValue()));
+        }
+
+        return sorted;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Rejects crawler requests for paths that robots.txt disallows with 403 Forbidden, before they reach the
+ * application. Requests are let through while the endpoints are still being mapped.
+ *
+ * Each host can have rules of its own, as selected by {@link RobotoHosts}.
+ */
+public class RobotoEnforcementFilter extends OncePerRequestFilter {
+
+    private final Function<String, RobotsMatcher> matchers;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public RobotoEnforcementFilter(RobotsMatcher matcher) {
+        this(() -> matcher);
+    }
+
+    /**
+     * Creates a filter whose matcher may not be available yet.
+     *
+     * @param matcher supplies the matcher, or <code>null</code> while the endpoints are being mapped
+     */
+    public RobotoEnforcementFilter(Supplier<RobotsMatcher> matcher) {
+        this(host -> matcher.get());
+    }
+
+    /**
+     * Creates a filter that applies the rules of the host of each request.
+     *
+     * @param matchers gets the matcher of a host, or <code>null</code> while the endpoints are being mapped
+     */
+    public RobotoEnforcementFilter(Function<String, RobotsMatcher> matchers) {
+        this.matchers = matchers;
+    }
+
+    /**
+     * Creates a filter that applies the rules of the host of each request.
+     *
+     * @param hosts supplies the hosts, or <code>null</code> while the endpoints are being mapped
+     * @return filter
+     */
+    public static RobotoEnforcementFilter forHosts(Supplier<RobotoHosts> hosts) {
+        return new RobotoEnforcementFilter((String host) -> {
+            RobotoHosts robotoHosts = hosts.get();
+            return robotoHosts != null ? robotoHosts.getMatcher(host) : null;
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RobotsMatcher robotsMatcher = matchers.apply(request.getServerName());
+        String userAgent = request.getHeader(HttpHeaders.USER_AGENT);
+
+        // Rules are matched against the decoded path without ;parameters and duplicate slashes that Spring MVC
+        // selects the handler by, so that encoding a disallowed path differently does not get around them
+        if (robotsMatcher != null && userAgent != null
+                && robotsMatcher.isDisallowed(userAgent, urlPathHelper.getLookupPathForRequest(request), 0)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
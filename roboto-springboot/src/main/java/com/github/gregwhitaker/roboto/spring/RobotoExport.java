@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Command line entry point that starts an application without a web server and exports its robots.txt and
+ * sitemap files with {@link RobotoExporter}.
+ *
+ * Usage:
+ * <pre>
+ * java -cp &lt;application classpath&gt; com.github.gregwhitaker.roboto.spring.RobotoExport \
+ *     &lt;application class&gt; &lt;base url&gt; &lt;output directory&gt; [application arguments...]
+ * </pre>
+ * The application arguments, such as <code>--spring.profiles.active=export</code>, are passed to the application.
+ */
+public final class RobotoExport {
+
+    private RobotoExport() {
+        // Entry point only
+    }
+
+    public static void main(String... args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: RobotoExport <application class> <base url> <output directory> [application arguments...]");
+            System.exit(1);
+        }
+
+        Class<?> application = ClassUtils.forName(args[0], ClassUtils.getDefaultClassLoader());
+        String baseUrl = args[1];
+        Path directory = Paths.get(args[2]);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+                .main(application)
+                .web(WebApplicationType.NONE)
+                .run(Arrays.copyOfRange(args, 3, args.length));
+
+        try {
+            // Waits for the endpoints to be mapped, if they are being mapped in the background
+            context.getBean(RobotoInitializer.class).get();
+
+            // Hosts with rules of their own are exported with their own sitemap generator
+            SitemapGenerator generator = context.getBean(RobotoHosts.class).getGenerator(URI.create(baseUrl).getHost());
+
+            new RobotoExporter(generator).export(baseUrl, directory);
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Writes robots.txt and the sitemap files to a directory, so that they can be hosted on a CDN or object store
+ * instead of being served by the application. The files are named after the urls {@link RobotoController}
+ * serves them on, including the gzip compressed sitemaps.
+ *
+ * Sitemap files that are already in the directory are only written again if the urls they list have changed since
+ * they were exported, according to the generator's {@link SitemapIndex}.
+ */
+public class RobotoExporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RobotoExporter.class);
+
+    private final SitemapGenerator generator;
+
+    public RobotoExporter(SitemapGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Renders and writes all documents.
+     *
+     * @param baseUrl base url the files will be hosted at, such as <code>https://www.example.com</code>
+     * @param directory directory to write the files to, which is created if it does not exist
+     * @return the files written
+     * @throws IOException if a file could not be written
+     */
+    public List<Path> export(String baseUrl, Path directory) throws IOException {
+        // Urls in the documents are appended to the base url with a leading slash
+        String url = baseUrl;
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        String root = url;
+
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+
+        RobotoDocument robots = RobotsResponse.render(root, generator.getMapper());
+        files.add(write(directory.resolve(RobotsResponse.DOCUMENT), robots.getBodyBuffer()));
+
+        // Shards are exported first, so that the sitemap index lists their new lastmod dates
+        int unchanged = 0;
+        for (int shard = 1; shard <= generator.getShardCount(); shard++) {
+            String document = SitemapGenerator.getShardDocument(shard);
+            int current = shard;
+
+            if (!writeSitemap(directory, document, hash -> generator.renderShard(root, current, hash), files)) {
+                unchanged++;
+            }
+        }
+
+        if (!writeSitemap(directory, SitemapResponse.DOCUMENT, hash -> generator.render(root, hash), files)) {
+            unchanged++;
+        }
+
+        LOGGER.info("Exported {} files for {} to {}, {} sitemaps unchanged", files.size(), root, directory, unchanged);
+        return files;
+    }
+
+    /**
+     * Writes a sitemap document and its gzip compressed copy, unless both are already in the directory and the
+     * document has not changed since they were written.
+     *
+     * @return <code>true</code> if the files were written; otherwise <code>false</code>
+     */
+    private boolean writeSitemap(Path directory, String document, LongFunction<RobotoDocument> renderer, List<Path> files) throws IOException {
+        Path file = directory.resolve(document);
+        Path gzipFile = directory.resolve(document + ".gz");
+
+        long previousSourceHash = Files.exists(file) && Files.exists(gzipFile)
+                ? generator.getIndex().getDocumentSourceHash(generator.getIndexName(document))
+                : 0;
+
+        RobotoDocument sitemap = renderer.apply(previousSourceHash);
+        if (sitemap == null) {
+            LOGGER.debug("Skipping unchanged {}", file);
+            return false;
+        }
+
+        files.add(write(file, sitemap.getBodyBuffer()));
+        files.add(write(gzipFile, sitemap.getGzipBodyBuffer()));
+        return true;
+    }
+
+    private Path write(Path file, ByteBuffer content) throws IOException {
+        LOGGER.debug("Writing {}", file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+
+        return file;
+    }
+}
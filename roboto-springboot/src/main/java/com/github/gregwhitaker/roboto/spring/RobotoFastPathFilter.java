@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves robots.txt and the sitemaps straight from the {@link RobotoCache}, skipping Spring MVC's dispatch, handler
+ * mapping and message conversion. The responses are the same as the {@link RobotoController}'s.
+ *
+ * Only documents that are already cached are served. Everything else is passed on to the controller, which answers
+ * as usual: documents that still need rendering, range requests, streamed sitemaps, and requests made while the
+ * endpoints are being mapped.
+ */
+public class RobotoFastPathFilter extends OncePerRequestFilter {
+    private static final MediaType APPLICATION_GZIP = MediaType.valueOf("application/gzip");
+    // At most 9 digits, so that the shard number always fits in an int. Longer numbers are left to the controller.
+    private static final Pattern SHARD = Pattern.compile("/sitemap-(\\d{1,9})\\.xml(\\.gz)?");
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Supplier<RobotoHosts> hosts;
+    private final RobotoCache cache;
+    private final String cacheControl;
+    private final boolean streaming;
+    private final int streamingMinSize;
+
+    /**
+     * Creates a filter.
+     *
+     * @param hosts supplies the hosts, or <code>null</code> while the endpoints are being mapped
+     * @param cache document cache shared with the controller
+     * @param properties roboto properties
+     */
+    public RobotoFastPathFilter(Supplier<RobotoHosts> hosts, RobotoCache cache, RobotoProperties properties) {
+        this.hosts = hosts;
+        this.cache = cache;
+        this.cacheControl = properties.getCacheControl().toHttpCacheControl().getHeaderValue();
+        this.streaming = properties.getStreaming().isEnabled();
+        this.streamingMinSize = properties.getStreaming().getMinSize();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+
+        return !("GET".equals(method) || "HEAD".equals(method)) || request.getHeader(HttpHeaders.RANGE) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String documentName = getDocument(path);
+        RobotoHosts robotoHosts = documentName != null ? hosts.get() : null;
+
+        RobotoDocument document = null;
+        if (robotoHosts != null) {
+            SitemapGenerator generator = robotoHosts.getGenerator(request.getServerName());
+            document = cache.getIfPresent(robotoHosts.createKey(generator, request.getScheme(),
+                    request.getServerName(), request.getServerPort(), documentName));
+        }
+
+        if (document == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean gzipFile = path.endsWith(".gz");
+        boolean gzip = gzipFile || RobotoController.acceptsGzip(request);
+        ByteBuffer body = gzip ? document.getGzipBodyBuffer() : document.getBodyBuffer();
+
+        if (streaming && body.remaining() >= streamingMinSize) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (gzipFile) {
+            response.setContentType(APPLICATION_GZIP.toString());
+        } else {
+            response.setContentType(document.getContentType().toString());
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+
+        if (cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+
+        // Sets the ETag and Last-Modified headers, and the 304 status if they match
+        String etag = gzip ? document.getGzipEtag() : document.getEtag();
+        if (new ServletWebRequest(request, response).checkNotModified(etag, document.getLastModified())) {
+            return;
+        }
+
+        response.setContentLength(body.remaining());
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        write(document, gzip, response.getOutputStream());
+    }
+
+    /**
+     * Gets the name of the document requested by a path.
+     *
+     * @param path request path, within the application
+     * @return document name, or <code>null</code> if the path is not a Roboto document
+     */
+    private static String getDocument(String path) {
+        switch (path) {
+            case "/robots.txt":
+                return RobotsResponse.DOCUMENT;
+            case "/sitemap.xml":
+            case "/sitemap.xml.gz":
+                return SitemapResponse.DOCUMENT;
+            default:
+                Matcher shard = SHARD.matcher(path);
+                return shard.matches() ? SitemapGenerator.getShardDocument(Integer.parseInt(shard.group(1))) : null;
+        }
+    }
+
+    /**
+     * Writes a document, copying memory-mapped documents through a small buffer.
+     */
+    private static void write(RobotoDocument document, boolean gzip, ServletOutputStream out) throws IOException {
+        byte[] array = document.getHeapBody(gzip);
+        if (array != null) {
+            out.write(array);
+            return;
+        }
+
+        ByteBuffer source = gzip ? document.getGzipBodyBuffer() : document.getBodyBuffer();
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, source.remaining())];
+
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+}
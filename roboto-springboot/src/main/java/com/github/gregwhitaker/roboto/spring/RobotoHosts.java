@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Selects the sitemap generator and crawler enforcement rules for the host of a request, for applications that
+ * serve several domains with rules of their own. Hosts without rules of their own share the rules of the
+ * application's endpoints.
+ *
+ * The mapper, robots.txt rules and enforcement matcher of each host are computed once, when the hosts are created,
+ * and are selected with a single hash lookup per request. Documents are rendered once per host and kept in the
+ * {@link RobotoCache}.
+ *
+ * Requests to hosts without rules of their own, or without a host name, are keyed and rendered with the canonical
+ * host if one is configured. Otherwise they are rendered with their own host name, and requests without one with
+ * <code>localhost</code>. The documents of only the first {@value #MAX_REQUEST_HOSTS} such host names are cached, and
+ * later ones are rendered on every request, so that arbitrary Host headers cannot fill the cache.
+ */
+public class RobotoHosts {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RobotoHosts.class);
+    private static final String LOCALHOST = "localhost";
+
+    /**
+     * Maximum number of host names without rules of their own that are used as they are when no canonical host is
+     * configured.
+     */
+    static final int MAX_REQUEST_HOSTS = 16;
+
+    private final Host defaultHost;
+    private final Map<String, Host> hosts;
+    private final String canonicalScheme;
+    private final String canonicalHost;
+    private final Integer canonicalPort;
+    private final Set<String> requestHosts = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean requestHostsExceeded = new AtomicBoolean();
+
+    private RobotoHosts(Host defaultHost, Map<String, Host> hosts, String canonicalScheme, String canonicalHost,
+                        Integer canonicalPort) {
+        this.defaultHost = defaultHost;
+        this.hosts = hosts;
+        this.canonicalScheme = canonicalScheme;
+        this.canonicalHost = canonicalHost;
+        this.canonicalPort = canonicalPort;
+    }
+
+    /**
+     * Creates the hosts configured in the supplied properties.
+     *
+     * @param generator sitemap generator of the application's endpoints, used for hosts without rules of their own
+     * @param properties roboto properties
+     * @return hosts
+     */
+    public static RobotoHosts create(SitemapGenerator generator, RobotoProperties properties) {
+        List<String> crawlerUserAgents = properties.getEnforcement().getCrawlerUserAgents();
+        Map<String, Host> hosts = new HashMap<>();
+
+        for (RobotoProperties.Host host : properties.getHosts()) {
+            if (host.getNames().isEmpty()) {
+                throw new IllegalArgumentException("Roboto host rules require at least one host name");
+            }
+
+            RobotoMapper mapper = generator.getMapper().forHost(host.getUserAgents().toArray(new String[0]), host.getDisallow());
+
+            // Aliases share their documents in the index, but are still rendered with their own base url
+            Host rules = new Host(generator.forHost(normalize(host.getNames().get(0)), mapper), crawlerUserAgents);
+            for (String name : host.getNames()) {
+                if (hosts.put(normalize(name), rules) != null) {
+                    throw new IllegalArgumentException("Roboto host " + name + " is configured more than once");
+                }
+            }
+        }
+
+        String canonicalHost = properties.getCanonical().getHost();
+        return new RobotoHosts(new Host(generator, crawlerUserAgents), hosts, properties.getCanonical().getScheme(),
+                canonicalHost != null ? normalize(canonicalHost) : null, properties.getCanonical().getPort());
+    }
+
+    /**
+     * Gets the sitemap generator of a host.
+     *
+     * @param host host name of the request
+     * @return sitemap generator of the host, or of the application's endpoints if the host has no rules of its own
+     */
+    public SitemapGenerator getGenerator(String host) {
+        return get(host).generator;
+    }
+
+    /**
+     * Gets the crawler enforcement matcher of a host.
+     *
+     * @param host host name of the request
+     * @return matcher of the host, or of the application's endpoints if the host has no rules of its own
+     */
+    public RobotsMatcher getMatcher(String host) {
+        return get(host).matcher;
+    }
+
+    /**
+     * Creates the cache key of a document, using the canonical scheme and port instead of the request's if they
+     * are configured. Host names without rules of their own are canonicalized first. Documents of host names that
+     * are not cached are rendered by the cache on every request.
+     *
+     * @param generator sitemap generator of the host
+     * @param scheme scheme of the request
+     * @param host host name of the request, or <code>null</code> if it is not known
+     * @param port port of the request, or <code>-1</code> if it is not known
+     * @param document document name
+     * @return cache key
+     */
+    public RobotoCache.Key createKey(SitemapGenerator generator, String scheme, String host, int port, String document) {
+        if (canonicalScheme != null) {
+            // The request's port belongs to the request's scheme, such as a proxy's plain http port
+            scheme = canonicalScheme;
+            port = -1;
+        }
+
+        if (canonicalPort != null) {
+            port = canonicalPort;
+        }
+
+        String name = host != null && !host.isEmpty() ? normalize(host) : null;
+        if (name != null && hosts.containsKey(name)) {
+            return new RobotoCache.Key(generator.getMapper(), scheme, name, port, document);
+        }
+
+        if (canonicalHost != null) {
+            return new RobotoCache.Key(generator.getMapper(), scheme, canonicalHost, port, document);
+        }
+
+        if (name == null) {
+            return new RobotoCache.Key(generator.getMapper(), scheme, LOCALHOST, port, document);
+        }
+
+        return new RobotoCache.Key(generator.getMapper(), scheme, name, port, document, isCached(name));
+    }
+
+    /**
+     * Checks to see if the documents of a host name without rules of their own are cached, admitting it if fewer
+     * than {@value #MAX_REQUEST_HOSTS} host names have been admitted so far.
+     *
+     * @param name normalized host name of the request
+     * @return <code>true</code> if the documents of the host name are cached; otherwise <code>false</code>
+     */
+    private boolean isCached(String name) {
+        if (requestHosts.contains(name)) {
+            return true;
+        }
+
+        // Concurrent requests may admit a few more host names than the maximum, which only bounds the cache
+        if (requestHosts.size() < MAX_REQUEST_HOSTS) {
+            requestHosts.add(name);
+            return true;
+        }
+
+        if (requestHostsExceeded.compareAndSet(false, true)) {
+            LOGGER.warn("Requests were received for more than {} host names without rules of their own. Documents " +
+                    "for further host names are rendered on every request. Set roboto.canonical.host to the host " +
+                    "name of the application.", MAX_REQUEST_HOSTS);
+        }
+
+        return false;
+    }
+
+    private Host get(String host) {
+        if (host == null || hosts.isEmpty()) {
+            return defaultHost;
+        }
+
+        Host rules = hosts.get(normalize(host));
+        return rules != null ? rules : defaultHost;
+    }
+
+    private static String normalize(String host) {
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sitemap generator and enforcement matcher of a single host.
+     */
+    private static final class Host {
+
+        private final SitemapGenerator generator;
+        private final RobotsMatcher matcher;
+
+        private Host(SitemapGenerator generator, List<String> crawlerUserAgents) {
+            this.generator = generator;
+            this.matcher = RobotsMatcher.compile(generator.getMapper().getRobotsRules(), crawlerUserAgents);
+        }
+    }
+}
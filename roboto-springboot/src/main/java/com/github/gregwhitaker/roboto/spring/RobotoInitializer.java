@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Maps the application's endpoints when they are first needed, on startup or on a background thread, so that the
+ * application can serve its own traffic before Roboto is ready.
+ *
+ * Components that depend on the mapping are obtained with {@link #whenReady(Function)}, which returns
+ * <code>null</code> until the mapping is done. Callers that cannot do without the mapping use {@link #get()},
+ * which maps the endpoints on the calling thread or waits for the background thread to finish.
+ */
+public class RobotoInitializer implements ApplicationListener<ContextRefreshedEvent> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RobotoInitializer.class);
+
+    private final Callable<RobotoMapper> mapping;
+    private final RobotoProperties.InitializationMode mode;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile RobotoMapper mapper;
+
+    /**
+     * Creates an initializer. In {@link RobotoProperties.InitializationMode#EAGER EAGER} mode the endpoints are
+     * mapped right away, and a failure to map them fails the application.
+     *
+     * @param mapping maps the application's endpoints
+     * @param mode when the endpoints are mapped
+     */
+    public RobotoInitializer(Callable<RobotoMapper> mapping, RobotoProperties.InitializationMode mode) {
+        this.mapping = mapping;
+        this.mode = mode;
+
+        if (mode == RobotoProperties.InitializationMode.EAGER) {
+            get();
+        }
+    }
+
+    /**
+     * Starts mapping on a background thread once the application context has started, in
+     * {@link RobotoProperties.InitializationMode#BACKGROUND BACKGROUND} mode.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (mode == RobotoProperties.InitializationMode.BACKGROUND) {
+            start();
+        }
+    }
+
+    /**
+     * Starts mapping on a background thread, unless the endpoints are already mapped or being mapped.
+     */
+    public void start() {
+        if (mapper != null || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                get();
+            } catch (RuntimeException e) {
+                // The next request starts another attempt
+                LOGGER.error("Failed to map endpoints for robots.txt and sitemap.xml", e);
+            } finally {
+                running.set(false);
+            }
+        }, "roboto-initializer");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the mapper, mapping the endpoints on the calling thread if they have not been mapped yet.
+     *
+     * @return the mapper
+     */
+    public synchronized RobotoMapper get() {
+        if (mapper == null) {
+            try {
+                mapper = mapping.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to map endpoints", e);
+            }
+        }
+
+        return mapper;
+    }
+
+    /**
+     * Gets the mapper without waiting for it. Unless the endpoints are mapped on startup, the first call starts
+     * mapping them in the background.
+     *
+     * @return the mapper, or <code>null</code> if the endpoints have not been mapped yet
+     */
+    public RobotoMapper getIfReady() {
+        RobotoMapper result = mapper;
+
+        if (result == null) {
+            start();
+        }
+
+        return result;
+    }
+
+    public boolean isReady() {
+        return mapper != null;
+    }
+
+    /**
+     * Creates a component that depends on the mapping once the mapping is ready. The component is created at most
+     * once, by the first call after the mapping is ready.
+     *
+     * @param factory creates the component from the mapper
+     * @param <T> component type
+     * @return supplier of the component, which supplies <code>null</code> until the mapping is ready
+     */
+    public <T> Supplier<T> whenReady(Function<RobotoMapper, T> factory) {
+        return new Supplier<T>() {
+            private volatile T component;
+
+            @Override
+            public T get() {
+                T result = component;
+
+                if (result == null) {
+                    RobotoMapper ready = getIfReady();
+                    if (ready == null) {
+                        return null;
+                    }
+
+                    synchronized (this) {
+                        if (component == null) {
+                            component = factory.apply(ready);
+                        }
+
+                        result = component;
+                    }
+                }
+
+                return result;
+            }
+        };
+    }
+}
@@ -16,15 +16,22 @@
 
 package com.github.gregwhitaker.roboto.spring;
 
+import com.github.gregwhitaker.roboto.spring.annotation.CrawlDelay;
+import com.github.gregwhitaker.roboto.spring.annotation.CrawlDelays;
 import com.github.gregwhitaker.roboto.spring.annotation.DisallowRobots;
+import com.github.gregwhitaker.roboto.spring.annotation.SitemapUrls;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.BeanFactory;
-import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -32,11 +39,18 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Maps resource endpoint methods to allowed or disallowed from robots collections.
@@ -46,9 +60,24 @@ public class RobotoMapper {
 
     private final Set<String> allowed = new HashSet<>();
     private final Map<String, Set<String>> disallowed = new HashMap<>();
+    private final Set<Class<? extends SitemapUrlProvider>> sitemapUrlProviders = new LinkedHashSet<>();
+    private final Map<String, Integer> crawlDelays = new HashMap<>();
+    private final Set<String> ownedDirectories = new HashSet<>();
+    private volatile List<String> sortedAllowed;
+    private volatile Map<String, Set<String>> robotsRules;
+    private long mappingTime;
 
     public RobotoMapper(BeanFactory beanFactory) {
+        long start = System.currentTimeMillis();
         doMapping(beanFactory);
+        logMappingTime(start);
+    }
+
+    /**
+     * Creates an empty mapper for subclasses that discover endpoints by other means than classpath scanning.
+     */
+    protected RobotoMapper() {
+
     }
 
     /**
@@ -60,6 +89,124 @@ public class RobotoMapper {
         return allowed;
     }
 
+    /**
+     * Gets all allowed paths in sorted order. The list is computed once, on first use, and must not be modified.
+     *
+     * @return sorted allowed paths
+     */
+    public List<String> getSortedAllowed() {
+        List<String> result = sortedAllowed;
+
+        if (result == null) {
+            List<String> paths = new ArrayList<>(allowed);
+            Collections.sort(paths);
+
+            result = Collections.unmodifiableList(paths);
+            sortedAllowed = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the minimized robots.txt rules computed by {@link RobotsRules}. The rules are computed once, on first use,
+     * and must not be modified.
+     *
+     * @return disallow rules by user agent
+     */
+    public Map<String, Set<String>> getRobotsRules() {
+        Map<String, Set<String>> result = robotsRules;
+
+        if (result == null) {
+            result = Collections.unmodifiableMap(RobotsRules.of(this));
+            robotsRules = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Sets robots.txt rules that were computed earlier, such as those loaded from a snapshot.
+     *
+     * @param robotsRules disallow rules by user agent
+     */
+    protected void setRobotsRules(Map<String, Set<String>> robotsRules) {
+        this.robotsRules = Collections.unmodifiableMap(robotsRules);
+    }
+
+    /**
+     * Gets the types of the {@link SitemapUrlProvider} beans bound to allowed handler methods.
+     *
+     * @return provider types, in the order they were found
+     */
+    public Set<Class<? extends SitemapUrlProvider>> getSitemapUrlProviders() {
+        return sitemapUrlProviders;
+    }
+
+    /**
+     * Gets the crawl delays by user agent.
+     *
+     * @return delay between requests in seconds, by user agent
+     */
+    public Map<String, Integer> getCrawlDelays() {
+        return crawlDelays;
+    }
+
+    /**
+     * Gets the directories whose urls are all served by mapped endpoints, which robots.txt rules may be collapsed to.
+     *
+     * @return owned directories, each ending with a slash
+     */
+    public Set<String> getOwnedDirectories() {
+        return ownedDirectories;
+    }
+
+    /**
+     * Sets the directories whose urls are all served by mapped endpoints. Must be called before the robots.txt rules
+     * are first computed.
+     *
+     * @param directories owned directories, with or without a trailing slash
+     */
+    public void setOwnedDirectories(Collection<String> directories) {
+        ownedDirectories.clear();
+        for (String directory : directories) {
+            ownedDirectories.add(directory.endsWith("/") ? directory : directory + "/");
+        }
+    }
+
+    /**
+     * Creates a copy of this mapper for a single host, with additional paths disallowed for the supplied user agents.
+     * The copy computes its own robots.txt rules.
+     *
+     * @param userAgents user agents the paths are disallowed for
+     * @param paths additional paths to disallow, in request mapping or robots.txt form
+     * @return mapper for the host
+     */
+    public RobotoMapper forHost(String[] userAgents, Collection<String> paths) {
+        RobotoMapper mapper = new RobotoMapper();
+        mapper.allowed.addAll(allowed);
+        mapper.sitemapUrlProviders.addAll(sitemapUrlProviders);
+        mapper.crawlDelays.putAll(crawlDelays);
+        mapper.ownedDirectories.addAll(ownedDirectories);
+        mapper.mappingTime = mappingTime;
+
+        for (Map.Entry<String, Set<String>> entry : disallowed.entrySet()) {
+            mapper.disallowed.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+
+        mapper.disallow(userAgents, paths);
+        return mapper;
+    }
+
+    /**
+     * Gets the time it took to map the application's endpoints.
+     *
+     * @return mapping time in milliseconds
+     */
+    public long getMappingTime() {
+        return mappingTime;
+    }
+
     /**
      * Gets the list of all disallowed paths by user agent.
      *
@@ -69,34 +216,83 @@ public class RobotoMapper {
         return disallowed;
     }
 
+    /**
+     * Gets the user agent groups published in robots.txt, which are the user agents with disallowed paths followed
+     * by the user agents that only declare a crawl delay.
+     *
+     * @return disallowed paths by user agent, with an empty set for user agents that only declare a crawl delay
+     */
+    public Map<String, Set<String>> getGroups() {
+        Map<String, Set<String>> groups = new LinkedHashMap<>(disallowed);
+        for (String userAgent : crawlDelays.keySet()) {
+            groups.putIfAbsent(userAgent, Collections.emptySet());
+        }
+
+        return groups;
+    }
+
     /**
      * Scans the classpath for resource methods and maps allowed and disallowed endpoints.
      *
+     * Base packages are scanned, and the classes found are loaded and inspected, in parallel. The results are
+     * mapped in the order the classes were found, so that sitemap url providers keep a stable order.
+     *
      * @param beanFactory
      */
     private void doMapping(BeanFactory beanFactory) {
+        // Scanning threads do not share the caller's context class loader
+        ResourceLoader resourceLoader = new DefaultResourceLoader(ClassUtils.getDefaultClassLoader());
+
+        List<Class<?>> classes = AutoConfigurationPackages.get(beanFactory).parallelStream()
+                .flatMap(basePackage -> createScanner(resourceLoader).findCandidateComponents(basePackage).stream())
+                .map(beanDefinition -> loadClass(beanDefinition.getBeanClassName(), resourceLoader.getClassLoader()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        List<List<Method>> mappingMethods = classes.parallelStream()
+                .map(clazz -> Arrays.stream(clazz.getDeclaredMethods())
+                        .filter(method -> isMappingMethod(clazz, method))
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < classes.size(); i++) {
+            Class<?> clazz = classes.get(i);
+            mapCrawlDelays(clazz);
+
+            for (Method method : mappingMethods.get(i)) {
+                if (isMappingMethodDisallowed(clazz, method)) {
+                    disallowMethod(clazz, method);
+                } else {
+                    allowMethod(clazz, method);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a scanner for controller classes and classes declaring crawl delays. Scanners are not thread-safe, so
+     * each base package gets its own.
+     *
+     * @param resourceLoader resource loader used to find classes
+     * @return scanner
+     */
+    private static ClassPathScanningCandidateComponentProvider createScanner(ResourceLoader resourceLoader) {
         ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.setResourceLoader(resourceLoader);
         scanner.addIncludeFilter(new AnnotationTypeFilter(Controller.class));
         scanner.addIncludeFilter(new AnnotationTypeFilter(RestController.class));
+        scanner.addIncludeFilter(new AnnotationTypeFilter(CrawlDelay.class));
+        scanner.addIncludeFilter(new AnnotationTypeFilter(CrawlDelays.class));
 
-        for (String basePackage : AutoConfigurationPackages.get(beanFactory)) {
-            for (BeanDefinition beanDefinition : scanner.findCandidateComponents(basePackage)) {
-                try {
-                    Class<?> clazz = Class.forName(beanDefinition.getBeanClassName());
-
-                    for (Method method : clazz.getDeclaredMethods()) {
-                        if (isMappingMethod(clazz, method)) {
-                            if (isMappingMethodDisallowed(clazz, method)) {
-                                disallowMethod(clazz, method);
-                            } else {
-                                allowMethod(clazz, method);
-                            }
-                        }
-                    }
-                } catch (ClassNotFoundException e) {
-                    LOGGER.error("Error during bean scanning", e);
-                }
-            }
+        return scanner;
+    }
+
+    private static Class<?> loadClass(String className, ClassLoader classLoader) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            LOGGER.error("Error during bean scanning", e);
+            return null;
         }
     }
 
@@ -147,14 +343,19 @@ public class RobotoMapper {
      * @param method
      */
     private void allowMethod(Class clazz, Method method) {
+        // Parameterized paths are enumerated in the sitemap by their provider
+        if (method.isAnnotationPresent(SitemapUrls.class)) {
+            addSitemapUrlProvider(method.getAnnotation(SitemapUrls.class).value());
+        }
+
         if (method.isAnnotationPresent(GetMapping.class)) {
             List<String> paths = Arrays.asList(method.getAnnotation(GetMapping.class).value());
-            allowed.addAll(paths);
+            allow(paths);
         }
 
         if (method.isAnnotationPresent(RequestMapping.class)) {
             List<String> paths = Arrays.asList(method.getAnnotation(RequestMapping.class).value());
-            allowed.addAll(paths);
+            allow(paths);
         }
     }
 
@@ -177,13 +378,7 @@ public class RobotoMapper {
             }
 
             DisallowRobots clazzAnnotation = (DisallowRobots) clazz.getAnnotation(DisallowRobots.class);
-            for (String userAgent : clazzAnnotation.userAgents()) {
-                if (disallowed.containsKey(userAgent)) {
-                    disallowed.get(userAgent).addAll(paths);
-                } else {
-                    disallowed.put(userAgent, paths);
-                }
-            }
+            disallow(clazzAnnotation.userAgents(), paths);
         }
 
         // Method level configurations override class level configurations
@@ -199,13 +394,97 @@ public class RobotoMapper {
             }
 
             DisallowRobots methodAnnotation = method.getAnnotation(DisallowRobots.class);
-            for (String userAgent : methodAnnotation.userAgents()) {
-                if (disallowed.containsKey(userAgent)) {
-                    disallowed.get(userAgent).addAll(paths);
-                } else {
-                    disallowed.put(userAgent, paths);
-                }
+            disallow(methodAnnotation.userAgents(), paths);
+        }
+    }
+
+    /**
+     * Adds the supplied paths to the allowed list.
+     *
+     * @param paths paths to allow
+     */
+    protected void allow(Collection<String> paths) {
+        allowed.addAll(paths);
+    }
+
+    /**
+     * Adds a provider of concrete urls for a parameterized allowed handler method.
+     *
+     * @param providerType type of the provider bean
+     */
+    protected void addSitemapUrlProvider(Class<? extends SitemapUrlProvider> providerType) {
+        sitemapUrlProviders.add(providerType);
+    }
+
+    /**
+     * Adds the supplied paths to the disallow list of each of the supplied user agents.
+     *
+     * @param userAgents user agents the paths are disallowed for
+     * @param paths paths to disallow
+     */
+    protected void disallow(String[] userAgents, Collection<String> paths) {
+        for (String userAgent : userAgents) {
+            disallowed.computeIfAbsent(userAgent, key -> new HashSet<>()).addAll(paths);
+        }
+    }
+
+    /**
+     * Sets the crawl delay of each of the supplied user agents, keeping the longest delay if one is already set.
+     *
+     * @param userAgents user agents the delay applies to
+     * @param seconds delay between requests in seconds
+     */
+    protected void crawlDelay(String[] userAgents, int seconds) {
+        for (String userAgent : userAgents) {
+            crawlDelays.merge(userAgent, seconds, Math::max);
+        }
+    }
+
+    /**
+     * Maps the crawl delays declared with {@link CrawlDelay} on the supplied class.
+     *
+     * @param clazz class to inspect
+     */
+    protected void mapCrawlDelays(Class<?> clazz) {
+        for (CrawlDelay crawlDelay : AnnotatedElementUtils.findMergedRepeatableAnnotations(clazz, CrawlDelay.class)) {
+            crawlDelay(crawlDelay.userAgents(), crawlDelay.value());
+        }
+    }
+
+    /**
+     * Maps the crawl delays declared with {@link CrawlDelay} on the beans of the application, such as the
+     * application class, for mappers that do not scan the classpath.
+     *
+     * @param beanFactory bean factory
+     */
+    protected void mapCrawlDelays(BeanFactory beanFactory) {
+        if (!(beanFactory instanceof ListableBeanFactory)) {
+            return;
+        }
+
+        ListableBeanFactory listableBeanFactory = (ListableBeanFactory) beanFactory;
+
+        Set<String> beanNames = new LinkedHashSet<>(Arrays.asList(listableBeanFactory.getBeanNamesForAnnotation(CrawlDelay.class)));
+        beanNames.addAll(Arrays.asList(listableBeanFactory.getBeanNamesForAnnotation(CrawlDelays.class)));
+
+        for (String beanName : beanNames) {
+            Class<?> type = listableBeanFactory.getType(beanName);
+
+            if (type != null) {
+                mapCrawlDelays(type);
             }
         }
     }
+
+    /**
+     * Logs and records the time taken to map endpoints so that the cost of the different mapping modes can be compared.
+     *
+     * @param start time the mapping started, in milliseconds
+     */
+    protected void logMappingTime(long start) {
+        mappingTime = System.currentTimeMillis() - start;
+
+        LOGGER.info("Mapped {} allowed paths and {} disallowed user agents in {}ms",
+                allowed.size(), disallowed.size(), mappingTime);
+    }
 }
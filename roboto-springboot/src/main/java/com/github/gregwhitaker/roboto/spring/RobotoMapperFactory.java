@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+
+/**
+ * Maps the endpoints registered with the web framework's handler mapping, for
+ * {@link RobotoProperties.MappingMode#HANDLER_MAPPING}. Spring MVC and WebFlux each provide their own factory.
+ */
+@FunctionalInterface
+public interface RobotoMapperFactory {
+
+    /**
+     * Creates a mapper from the application's handler mapping.
+     *
+     * @param beanFactory bean factory holding the handler mapping
+     * @return mapper, or <code>null</code> if the application has no handler mapping
+     */
+    RobotoMapper createFromHandlerMapping(ListableBeanFactory beanFactory);
+}
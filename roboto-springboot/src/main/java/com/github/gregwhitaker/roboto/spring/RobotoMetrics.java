@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+/**
+ * Receives measurements of Roboto's mapping, rendering and serving. All methods do nothing by default.
+ *
+ * Implementations are called on the request path and must be cheap.
+ */
+public interface RobotoMetrics {
+
+    /**
+     * Metrics implementation that discards all measurements.
+     */
+    RobotoMetrics NOOP = new RobotoMetrics() { };
+
+    /**
+     * Checks to see if a request path is one of the robots.txt or sitemap documents.
+     *
+     * @param path request path, relative to the context path
+     * @return <code>true</code> if the path is a Roboto document; otherwise <code>false</code>
+     */
+    static boolean isDocument(String path) {
+        return path.equals("/robots.txt") || path.equals("/sitemap.xml") || path.equals("/sitemap.xml.gz") ||
+                path.startsWith("/sitemap-");
+    }
+
+    /**
+     * Gets the document a response is tagged with.
+     *
+     * @param path request path, relative to the context path
+     * @param status response status code
+     * @return document name
+     */
+    static String getDocument(String path, int status) {
+        String document = path.substring(1);
+
+        // Requests for shards that don't exist would otherwise add a tag per shard number requested
+        if (status >= 400 && document.startsWith("sitemap-")) {
+            return document.endsWith(".gz") ? "sitemap-shard.xml.gz" : "sitemap-shard.xml";
+        }
+
+        return document;
+    }
+
+    /**
+     * Called once the endpoints of the application have been mapped.
+     *
+     * @param mapper roboto mapper
+     */
+    default void recordMapping(RobotoMapper mapper) {
+
+    }
+
+    /**
+     * Called when a document cache is created, so that its hits, misses and size can be monitored.
+     *
+     * @param cache document cache
+     */
+    default void monitorCache(RobotoCache cache) {
+
+    }
+
+    /**
+     * Called each time a document has been rendered, on a cache miss or during a refresh.
+     *
+     * @param key cache key of the document
+     * @param document rendered document
+     * @param durationNanos time taken to render the document
+     */
+    default void recordRender(RobotoCache.Key key, RobotoDocument document, long durationNanos) {
+
+    }
+
+    /**
+     * Called each time a robots.txt or sitemap response has been written.
+     *
+     * @param document requested document
+     * @param host requested host
+     * @param status response status code
+     * @param bytes response body size
+     */
+    default void recordResponse(String document, String host, int status, long bytes) {
+
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+
+/**
+ * Records the status and size of the robots.txt and sitemap responses, including the 304 Not Modified responses
+ * Spring MVC answers conditional requests with.
+ */
+public class RobotoMetricsFilter extends OncePerRequestFilter {
+
+    private final RobotoMetrics metrics;
+
+    public RobotoMetricsFilter(RobotoMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !RobotoMetrics.isDocument(getPath(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentLengthResponseWrapper wrapper = new ContentLengthResponseWrapper(response);
+
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            int status = wrapper.getStatus();
+
+            metrics.recordResponse(RobotoMetrics.getDocument(getPath(request), status), request.getServerName(),
+                    status, wrapper.contentLength);
+        }
+    }
+
+    private static String getPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * Captures the Content-Length of the response. Roboto's responses are always written with a known length.
+     */
+    private static final class ContentLengthResponseWrapper extends HttpServletResponseWrapper {
+
+        private long contentLength;
+
+        private ContentLengthResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            contentLength = len;
+            super.setContentLength(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLength = len;
+            super.setContentLengthLong(len);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            captureContentLength(name, value);
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            captureContentLength(name, value);
+            super.addHeader(name, value);
+        }
+
+        private void captureContentLength(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,769 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration properties for Roboto.
+ */
+@ConfigurationProperties(prefix = "roboto")
+public class RobotoProperties {
+
+    /**
+     * Strategy used to discover controller endpoints.
+     */
+    private MappingMode mappingMode = MappingMode.CLASSPATH;
+
+    /**
+     * Cache-Control settings for the robots.txt and sitemap responses.
+     */
+    private final Cachecontrol cacheControl = new Cachecontrol();
+
+    /**
+     * Sitemap settings.
+     */
+    private final Sitemap sitemap = new Sitemap();
+
+    /**
+     * Rendered document cache settings.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Background refresh settings.
+     */
+    private final Refresh refresh = new Refresh();
+
+    /**
+     * Settings for streaming large documents asynchronously.
+     */
+    private final Streaming streaming = new Streaming();
+
+    /**
+     * Settings for serving cached documents without going through Spring MVC.
+     */
+    private final FastPath fastPath = new FastPath();
+
+    /**
+     * Micrometer metrics settings.
+     */
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * Crawler enforcement settings.
+     */
+    private final Enforcement enforcement = new Enforcement();
+
+    /**
+     * Mapping snapshot settings.
+     */
+    private final Snapshot snapshot = new Snapshot();
+
+    /**
+     * Startup settings.
+     */
+    private final Initialization initialization = new Initialization();
+
+    /**
+     * Canonical base url settings.
+     */
+    private final Canonical canonical = new Canonical();
+
+    /**
+     * robots.txt settings.
+     */
+    private final Robots robots = new Robots();
+
+    /**
+     * Hosts with rules of their own, for applications that serve several domains.
+     */
+    private List<Host> hosts = new ArrayList<>();
+
+    public MappingMode getMappingMode() {
+        return mappingMode;
+    }
+
+    public void setMappingMode(MappingMode mappingMode) {
+        this.mappingMode = mappingMode;
+    }
+
+    public Cachecontrol getCacheControl() {
+        return cacheControl;
+    }
+
+    public Sitemap getSitemap() {
+        return sitemap;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Refresh getRefresh() {
+        return refresh;
+    }
+
+    public Streaming getStreaming() {
+        return streaming;
+    }
+
+    public FastPath getFastPath() {
+        return fastPath;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Enforcement getEnforcement() {
+        return enforcement;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public Initialization getInitialization() {
+        return initialization;
+    }
+
+    public Canonical getCanonical() {
+        return canonical;
+    }
+
+    public Robots getRobots() {
+        return robots;
+    }
+
+    public List<Host> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(List<Host> hosts) {
+        this.hosts = hosts;
+    }
+
+    /**
+     * Strategies used to discover controller endpoints.
+     */
+    public enum MappingMode {
+
+        /**
+         * Scans the application's base packages for controller classes.
+         */
+        CLASSPATH,
+
+        /**
+         * Reads the handler methods already registered with Spring MVC.
+         */
+        HANDLER_MAPPING,
+
+        /**
+         * Loads the index generated at compile time by the roboto-processor annotation processor.
+         */
+        INDEX
+    }
+
+    /**
+     * Sitemap settings.
+     */
+    public static class Sitemap {
+
+        /**
+         * Maximum number of urls in a single sitemap before it is split into shards referenced from a sitemap
+         * index. Values above the protocol limit of 50,000 are capped.
+         */
+        private int maxUrlsPerShard = SitemapGenerator.MAX_URLS;
+
+        /**
+         * Number of urls requested from each SitemapUrlProvider at a time.
+         */
+        private int pageSize = 1000;
+
+        /**
+         * File that records when each sitemap url last changed, so that lastmod dates and unchanged sitemaps
+         * survive restarts. When not set, the record only lives in memory.
+         */
+        private String indexFile;
+
+        /**
+         * Directory that urls and rendered sitemaps are spooled to while rendering. Rendered sitemaps are served
+         * from memory-mapped files instead of the heap. When not set, sitemaps are rendered in memory and urls beyond
+         * the first page are spooled to the default temporary directory.
+         */
+        private String spoolDirectory;
+
+        public int getMaxUrlsPerShard() {
+            return maxUrlsPerShard;
+        }
+
+        public void setMaxUrlsPerShard(int maxUrlsPerShard) {
+            this.maxUrlsPerShard = maxUrlsPerShard;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public String getIndexFile() {
+            return indexFile;
+        }
+
+        public void setIndexFile(String indexFile) {
+            this.indexFile = indexFile;
+        }
+
+        public String getSpoolDirectory() {
+            return spoolDirectory;
+        }
+
+        public void setSpoolDirectory(String spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+        }
+    }
+
+    /**
+     * When the endpoints are mapped.
+     */
+    public enum InitializationMode {
+
+        /**
+         * Maps the endpoints while the application starts.
+         */
+        EAGER,
+
+        /**
+         * Maps the endpoints on a background thread once the application has started.
+         */
+        BACKGROUND,
+
+        /**
+         * Maps the endpoints on a background thread when robots.txt or a sitemap is first requested.
+         */
+        LAZY
+    }
+
+    /**
+     * Startup settings.
+     */
+    public static class Initialization {
+
+        /**
+         * When the endpoints are mapped. Until they are, robots.txt and the sitemaps are answered with
+         * 503 Service Unavailable and crawler enforcement lets every request through.
+         */
+        private InitializationMode mode = InitializationMode.EAGER;
+
+        /**
+         * Retry-After sent with 503 Service Unavailable responses while the endpoints are being mapped.
+         */
+        private Duration retryAfter = Duration.ofSeconds(10);
+
+        /**
+         * Whether to serve a robots.txt that allows everything, instead of 503 Service Unavailable, while the
+         * endpoints are being mapped.
+         */
+        private boolean permissiveRobots = false;
+
+        public InitializationMode getMode() {
+            return mode;
+        }
+
+        public void setMode(InitializationMode mode) {
+            this.mode = mode;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        public boolean isPermissiveRobots() {
+            return permissiveRobots;
+        }
+
+        public void setPermissiveRobots(boolean permissiveRobots) {
+            this.permissiveRobots = permissiveRobots;
+        }
+    }
+
+    /**
+     * Canonical base url settings.
+     */
+    public static class Canonical {
+
+        /**
+         * Scheme used in the urls of robots.txt and the sitemaps, such as https when TLS is terminated in front of
+         * the application. When not set, the scheme of the request is used.
+         */
+        private String scheme;
+
+        /**
+         * Host name used in the urls of robots.txt and the sitemaps of requests to hosts without rules of their own,
+         * and of requests without a host name. When not set, the host name of the request is used, and the documents
+         * of only a limited number of different host names are cached.
+         */
+        private String host;
+
+        /**
+         * Port used in the urls of robots.txt and the sitemaps. When not set, the port of the request is used,
+         * unless a canonical scheme is set. Default ports are left out of the urls.
+         */
+        private Integer port;
+
+        public String getScheme() {
+            return scheme;
+        }
+
+        public void setScheme(String scheme) {
+            this.scheme = scheme;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public Integer getPort() {
+            return port;
+        }
+
+        public void setPort(Integer port) {
+            this.port = port;
+        }
+    }
+
+    /**
+     * Rules of a single host, added to the rules of the application's endpoints.
+     */
+    public static class Host {
+
+        /**
+         * Host names the rules apply to, such as www.example.com and example.com.
+         */
+        private List<String> names = new ArrayList<>();
+
+        /**
+         * Additional paths disallowed on the host, such as the pages of another brand. Paths disallowed for all
+         * user agents are also left out of the host's sitemap.
+         */
+        private List<String> disallow = new ArrayList<>();
+
+        /**
+         * User agents the additional paths are disallowed for.
+         */
+        private List<String> userAgents = new ArrayList<>(Arrays.asList("*"));
+
+        public List<String> getNames() {
+            return names;
+        }
+
+        public void setNames(List<String> names) {
+            this.names = names;
+        }
+
+        public List<String> getDisallow() {
+            return disallow;
+        }
+
+        public void setDisallow(List<String> disallow) {
+            this.disallow = disallow;
+        }
+
+        public List<String> getUserAgents() {
+            return userAgents;
+        }
+
+        public void setUserAgents(List<String> userAgents) {
+            this.userAgents = userAgents;
+        }
+    }
+
+    /**
+     * Mapping snapshot settings.
+     */
+    public static class Snapshot {
+
+        /**
+         * File the mapped endpoints and robots.txt rules are saved to after mapping, and loaded from on startup
+         * instead of mapping when it was saved by the same build. When not set, endpoints are mapped on every startup.
+         */
+        private String file;
+
+        /**
+         * Fingerprint identifying the build, such as a version or commit id. Defaults to the group, artifact,
+         * version and time in META-INF/build-info.properties. Snapshots are not used when neither is available.
+         */
+        private String fingerprint;
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public void setFingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * robots.txt settings.
+     */
+    public static class Robots {
+
+        /**
+         * Directories, such as /admin/, whose urls are all served by the application's mapped endpoints. Disallowed
+         * endpoints under one of them are published as a single rule for the directory when none of its endpoints may
+         * be crawled. Other directories may hold static resources or endpoints that are not mapped, so their
+         * endpoints are always listed one by one.
+         */
+        private List<String> ownedDirectories = new ArrayList<>();
+
+        public List<String> getOwnedDirectories() {
+            return ownedDirectories;
+        }
+
+        public void setOwnedDirectories(List<String> ownedDirectories) {
+            this.ownedDirectories = ownedDirectories;
+        }
+    }
+
+    /**
+     * Rendered document cache settings.
+     */
+    public static class Cache {
+
+        /**
+         * Maximum number of rendered documents to keep. Documents are cached separately for each scheme, host and
+         * port, and each sitemap shard counts as a document.
+         */
+        private int maxEntries = 1000;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * Background refresh settings.
+     */
+    public static class Refresh {
+
+        /**
+         * Time between background refreshes of the rendered documents. When not set, documents are only
+         * refreshed on demand.
+         */
+        private Duration interval;
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+    }
+
+    /**
+     * Settings for streaming large documents asynchronously.
+     */
+    public static class Streaming {
+
+        /**
+         * Whether to write large sitemaps to clients with non-blocking I/O, so that slow clients do not hold on to
+         * the servlet container's request threads while they read them.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Minimum size in bytes of the documents that are streamed. Smaller documents are written directly.
+         */
+        private int minSize = 64 * 1024;
+
+        /**
+         * Time allowed for a client to read a streamed document, after which the connection is closed. When empty,
+         * Spring MVC's async request timeout applies.
+         */
+        private Duration timeout = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Settings for serving cached documents without going through Spring MVC.
+     */
+    public static class FastPath {
+
+        /**
+         * Whether to serve robots.txt and sitemaps that are already cached from a servlet filter, skipping the
+         * DispatcherServlet. Documents that are not cached yet are still rendered by the controller.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Micrometer metrics settings.
+     */
+    public static class Metrics {
+
+        /**
+         * Whether to publish metrics when Micrometer is on the classpath.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of distinct hosts to tag metrics with. Metrics for further hosts are not recorded.
+         */
+        private int maxHosts = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxHosts() {
+            return maxHosts;
+        }
+
+        public void setMaxHosts(int maxHosts) {
+            this.maxHosts = maxHosts;
+        }
+    }
+
+    /**
+     * Crawler enforcement settings.
+     */
+    public static class Enforcement {
+
+        /**
+         * Whether to reject crawler requests for paths disallowed by robots.txt with 403 Forbidden.
+         */
+        private boolean enabled = false;
+
+        /**
+         * User-Agent substrings, matched ignoring case, that identify a crawler. The rules for all user agents
+         * are only enforced for crawlers. Rules for a named user agent are enforced for every request whose
+         * User-Agent contains that name.
+         */
+        private List<String> crawlerUserAgents = new ArrayList<>(Arrays.asList("bot", "crawl", "spider", "slurp"));
+
+        /**
+         * Crawl rate limiting settings.
+         */
+        private final RateLimit rateLimit = new RateLimit();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getCrawlerUserAgents() {
+            return crawlerUserAgents;
+        }
+
+        public void setCrawlerUserAgents(List<String> crawlerUserAgents) {
+            this.crawlerUserAgents = crawlerUserAgents;
+        }
+
+        public RateLimit getRateLimit() {
+            return rateLimit;
+        }
+    }
+
+    /**
+     * Crawl rate limiting settings.
+     */
+    public static class RateLimit {
+
+        /**
+         * Whether to reject crawler requests that exceed the Crawl-delay published in robots.txt with
+         * 429 Too Many Requests.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of requests a crawler can make back to back before its Crawl-delay is enforced.
+         */
+        private int burst = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * Cache-Control settings for the robots.txt and sitemap responses.
+     */
+    public static class Cachecontrol {
+
+        /**
+         * Maximum time the response may be cached. When not set no Cache-Control header is sent.
+         */
+        private Duration maxAge = Duration.ofHours(1);
+
+        /**
+         * Maximum time a stale response may be served while it is revalidated in the background.
+         */
+        private Duration staleWhileRevalidate;
+
+        /**
+         * Maximum time a stale response may be served when revalidation fails.
+         */
+        private Duration staleIfError;
+
+        /**
+         * Whether shared caches, such as CDNs, may store the response.
+         */
+        private boolean cachePublic = true;
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        public Duration getStaleIfError() {
+            return staleIfError;
+        }
+
+        public void setStaleIfError(Duration staleIfError) {
+            this.staleIfError = staleIfError;
+        }
+
+        public boolean isCachePublic() {
+            return cachePublic;
+        }
+
+        public void setCachePublic(boolean cachePublic) {
+            this.cachePublic = cachePublic;
+        }
+
+        /**
+         * Converts these settings to a {@link CacheControl}.
+         *
+         * @return cache control, or {@link CacheControl#empty()} if no max age is configured
+         */
+        public CacheControl toHttpCacheControl() {
+            if (maxAge == null) {
+                return CacheControl.empty();
+            }
+
+            CacheControl cacheControl = CacheControl.maxAge(maxAge.getSeconds(), TimeUnit.SECONDS);
+
+            if (staleWhileRevalidate != null) {
+                cacheControl = cacheControl.staleWhileRevalidate(staleWhileRevalidate.getSeconds(), TimeUnit.SECONDS);
+            }
+
+            if (staleIfError != null) {
+                cacheControl = cacheControl.staleIfError(staleIfError.getSeconds(), TimeUnit.SECONDS);
+            }
+
+            if (cachePublic) {
+                cacheControl = cacheControl.cachePublic();
+            }
+
+            return cacheControl;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rejects crawler requests that exceed the <code>Crawl-delay</code> published in robots.txt with
+ * 429 Too Many Requests and a <code>Retry-After</code> header, before they reach the application.
+ * Requests for robots.txt itself are never limited, and no requests are limited while the endpoints are still being
+ * mapped.
+ */
+public class RobotoRateLimitFilter extends OncePerRequestFilter {
+    private static final String ROBOTS_PATH = "/robots.txt";
+
+    private final Supplier<CrawlRateLimiter> limiter;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public RobotoRateLimitFilter(CrawlRateLimiter limiter) {
+        this(() -> limiter);
+    }
+
+    /**
+     * Creates a filter whose limiter may not be available yet.
+     *
+     * @param limiter supplies the limiter, or <code>null</code> while the endpoints are being mapped
+     */
+    public RobotoRateLimitFilter(Supplier<CrawlRateLimiter> limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CrawlRateLimiter crawlRateLimiter = limiter.get();
+
+        // robots.txt is recognized by the path Spring MVC dispatches on, without ;parameters and the context path
+        if (crawlRateLimiter != null && !ROBOTS_PATH.equals(urlPathHelper.getLookupPathForRequest(request))) {
+            long wait = crawlRateLimiter.acquire(request.getHeader(HttpHeaders.USER_AGENT), request.getRemoteAddr());
+
+            if (wait > 0) {
+                long seconds = (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Refreshes the documents in a {@link RobotoCache} on a background thread, either on a fixed interval or on demand,
+ * so that crawler requests never wait for a rebuild. The {@link SitemapIndex} is saved after each refresh, so that the
+ * dates it has recorded survive a crash and not only a clean shutdown.
+ */
+public class RobotoRefresher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RobotoRefresher.class);
+
+    private final RobotoCache cache;
+    private final SitemapIndex index;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    private volatile long lastRefreshTime;
+    private volatile long lastRefreshDuration;
+    private volatile boolean lastRefreshSucceeded = true;
+
+    /**
+     * Creates a refresher.
+     *
+     * @param cache document cache
+     * @param index sitemap index the documents are rendered with
+     * @param interval time between scheduled refreshes, or <code>null</code> to only refresh on demand
+     */
+    public RobotoRefresher(RobotoCache cache, SitemapIndex index, Duration interval) {
+        this.cache = cache;
+        this.index = index;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "roboto-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (interval != null) {
+            long millis = interval.toMillis();
+            executor.scheduleWithFixedDelay(this::refreshNow, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Requests a refresh on the background thread. Requests made while a refresh is already waiting to run are
+     * combined with it.
+     */
+    public void refresh() {
+        if (pending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                pending.set(false);
+                refreshNow();
+            });
+        }
+    }
+
+    /**
+     * Gets the time the last refresh completed, in milliseconds since the epoch.
+     *
+     * @return last refresh time, or <code>0</code> if the documents have not been refreshed
+     */
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    /**
+     * Gets how long the last refresh took.
+     *
+     * @return duration in milliseconds
+     */
+    public long getLastRefreshDuration() {
+        return lastRefreshDuration;
+    }
+
+    /**
+     * Checks to see if the last refresh succeeded. When it failed, the previous documents are still being served.
+     *
+     * @return <code>true</code> if the last refresh succeeded; otherwise <code>false</code>
+     */
+    public boolean isLastRefreshSucceeded() {
+        return lastRefreshSucceeded;
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void refreshNow() {
+        long start = System.currentTimeMillis();
+
+        try {
+            lastRefreshSucceeded = cache.refresh();
+        } catch (RuntimeException e) {
+            // Keep the scheduled refreshes running
+            LOGGER.error("Failed to refresh Roboto documents", e);
+            lastRefreshSucceeded = false;
+        }
+
+        // Only writes the index if the refresh changed it
+        try {
+            index.save();
+        } catch (IOException e) {
+            LOGGER.error("Failed to save the sitemap index", e);
+        }
+
+        lastRefreshTime = System.currentTimeMillis();
+        lastRefreshDuration = lastRefreshTime - start;
+
+        LOGGER.debug("Refreshed {} Roboto documents in {}ms", cache.size(), lastRefreshDuration);
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Matches requests against the disallow rules published in robots.txt, using the same rules crawlers apply.
+ *
+ * The disallowed paths of each user agent are compiled into a trie. Rules match by prefix, <code>*</code> matches
+ * any sequence of characters and a trailing <code>$</code> anchors a rule to the end of the path. A crawler obeys
+ * the rules of the user agent its User-Agent header names, and otherwise the rules for all user agents. The rules
+ * for all user agents are only applied to requests that identify as a crawler, so that browsers are never matched.
+ *
+ * Matching does not allocate, as it runs on every request. Rules without wildcards are matched by walking the trie.
+ * Rules with wildcards are matched by following every trie node the path can be in at once, so that each character
+ * is looked at once per node instead of backtracking, which would take exponential time on crafted paths.
+ */
+public final class RobotsMatcher {
+    private static final String ROBOTS_PATH = "/robots.txt";
+
+    private final UserAgentMatcher userAgents;
+    private final Node[] userAgentRules;
+    private final Node allUserAgentRules;
+    private final ThreadLocal<ActiveNodes> activeNodes;
+
+    private RobotsMatcher(UserAgentMatcher userAgents, Node[] userAgentRules, Node allUserAgentRules, int nodeCount) {
+        this.userAgents = userAgents;
+        this.userAgentRules = userAgentRules;
+        this.allUserAgentRules = allUserAgentRules;
+        this.activeNodes = ThreadLocal.withInitial(() -> new ActiveNodes(nodeCount));
+    }
+
+    /**
+     * Compiles a matcher for the supplied disallow rules.
+     *
+     * @param disallowed disallowed paths by user agent, as returned by {@link RobotoMapper#getGroups()}
+     * @param crawlerUserAgents User-Agent substrings, such as <code>bot</code>, that identify a crawler
+     * @return compiled matcher
+     */
+    public static RobotsMatcher compile(Map<String, Set<String>> disallowed, Collection<String> crawlerUserAgents) {
+        List<String> userAgents = new ArrayList<>();
+        List<Node> userAgentRules = new ArrayList<>();
+        Node allUserAgentRules = null;
+        int[] nodeCount = new int[1];
+
+        // More specific, that is longer, user agents are checked first
+        Map<String, Set<String>> sorted = new TreeMap<>(UserAgentMatcher.SPECIFICITY);
+        sorted.putAll(disallowed);
+
+        for (Map.Entry<String, Set<String>> entry : sorted.entrySet()) {
+            Node rules = compileRules(entry.getValue(), nodeCount);
+
+            if (UserAgentMatcher.ALL_USER_AGENTS.equals(entry.getKey())) {
+                allUserAgentRules = rules;
+            } else if (!entry.getKey().isEmpty()) {
+                userAgents.add(entry.getKey());
+                userAgentRules.add(rules);
+            }
+        }
+
+        UserAgentMatcher matcher = new UserAgentMatcher(userAgents,
+                allUserAgentRules != null ? crawlerUserAgents : Collections.<String>emptyList());
+
+        return new RobotsMatcher(matcher, userAgentRules.toArray(new Node[0]), allUserAgentRules, nodeCount[0]);
+    }
+
+    /**
+     * Checks to see if a request is disallowed by robots.txt.
+     *
+     * @param userAgent User-Agent header of the request, which may be <code>null</code>
+     * @param uri request uri
+     * @param offset index in the uri at which the path starts, which is the length of the context path
+     * @return <code>true</code> if the request is disallowed; otherwise <code>false</code>
+     */
+    public boolean isDisallowed(String userAgent, String uri, int offset) {
+        if (userAgent == null || uri.startsWith(ROBOTS_PATH, offset) && uri.length() == offset + ROBOTS_PATH.length()) {
+            return false;
+        }
+
+        int match = userAgents.match(userAgent);
+        if (match == UserAgentMatcher.NONE) {
+            return false;
+        }
+
+        Node rules = match == UserAgentMatcher.CRAWLER ? allUserAgentRules : userAgentRules[match];
+        return matches(rules, uri, offset);
+    }
+
+    /**
+     * Checks to see if a path is disallowed for all user agents, such as when deciding whether to list it in the
+     * sitemap.
+     *
+     * @param path path
+     * @return <code>true</code> if the rules for all user agents disallow the path; otherwise <code>false</code>
+     */
+    public boolean isDisallowedForAll(String path) {
+        return allUserAgentRules != null && matches(allUserAgentRules, path, 0);
+    }
+
+    private boolean matches(Node root, String path, int position) {
+        return root.wildcards ? matchWildcards(root, path, position) : walk(root, path, position);
+    }
+
+    /**
+     * Matches a path against rules without wildcards, which can only be in one node of the trie at a time.
+     */
+    private static boolean walk(Node node, String path, int position) {
+        for (int i = position; i < path.length(); i++) {
+            if (node.prefixMatch) {
+                return true;
+            }
+
+            node = node.getChild(path.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+
+        return node.prefixMatch || node.exactMatch;
+    }
+
+    /**
+     * Matches a path against rules with wildcards, keeping track of every node of the trie the path can be in.
+     * A node reached through a <code>*</code> stays active for the rest of the path, since the wildcard can match
+     * any number of characters.
+     */
+    private boolean matchWildcards(Node root, String path, int position) {
+        ActiveNodes active = activeNodes.get();
+        Node[] current = active.current;
+        Node[] next = active.next;
+
+        int size = active.add(current, 0, root, active.nextGeneration());
+        if (size < 0) {
+            return true;
+        }
+
+        for (int i = position; i < path.length(); i++) {
+            char c = path.charAt(i);
+            int generation = active.nextGeneration();
+            int nextSize = 0;
+
+            for (int j = 0; j < size && nextSize >= 0; j++) {
+                Node node = current[j];
+
+                if (node.afterWildcard) {
+                    nextSize = active.add(next, nextSize, node, generation);
+                }
+
+                Node child = node.getChild(c);
+                if (child != null && nextSize >= 0) {
+                    nextSize = active.add(next, nextSize, child, generation);
+                }
+            }
+
+            if (nextSize <= 0) {
+                return nextSize < 0;
+            }
+
+            Node[] swap = current;
+            current = next;
+            next = swap;
+            size = nextSize;
+        }
+
+        for (int j = 0; j < size; j++) {
+            if (current[j].exactMatch) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Node compileRules(Set<String> paths, int[] nodeCount) {
+        NodeBuilder root = new NodeBuilder();
+
+        for (String path : paths) {
+            // An empty rule disallows nothing
+            if (path.isEmpty()) {
+                continue;
+            }
+
+            String robotsPath = RobotsResponse.toRobotsPath(path);
+            boolean anchored = robotsPath.endsWith("$");
+            if (anchored) {
+                robotsPath = robotsPath.substring(0, robotsPath.length() - 1);
+            }
+
+            NodeBuilder node = root;
+            for (int i = 0; i < robotsPath.length(); i++) {
+                node = node.child(robotsPath.charAt(i));
+            }
+
+            if (anchored) {
+                node.exactMatch = true;
+            } else {
+                node.prefixMatch = true;
+            }
+        }
+
+        return root.build(false, nodeCount);
+    }
+
+    /**
+     * Node of the compiled trie. Children are kept in sorted arrays so that lookups don't box characters.
+     */
+    private static final class Node {
+
+        private final int id;
+        private final char[] keys;
+        private final Node[] children;
+        private final Node wildcard;
+        private final boolean afterWildcard;
+        private final boolean wildcards;
+        private final boolean prefixMatch;
+        private final boolean exactMatch;
+
+        private Node(int id, char[] keys, Node[] children, Node wildcard, boolean afterWildcard,
+                     boolean prefixMatch, boolean exactMatch) {
+            this.id = id;
+            this.keys = keys;
+            this.children = children;
+            this.wildcard = wildcard;
+            this.afterWildcard = afterWildcard;
+            this.prefixMatch = prefixMatch;
+            this.exactMatch = exactMatch;
+
+            boolean childWildcards = false;
+            for (Node child : children) {
+                childWildcards |= child.wildcards;
+            }
+            this.wildcards = wildcard != null || childWildcards;
+        }
+
+        private Node getChild(char c) {
+            int low = 0;
+            int high = keys.length - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+
+                if (keys[mid] < c) {
+                    low = mid + 1;
+                } else if (keys[mid] > c) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Mutable trie node used while compiling the rules.
+     */
+    private static final class NodeBuilder {
+
+        private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+        private NodeBuilder wildcard;
+        private boolean prefixMatch;
+        private boolean exactMatch;
+
+        private NodeBuilder child(char c) {
+            if (c == '*') {
+                if (wildcard == null) {
+                    wildcard = new NodeBuilder();
+                }
+
+                return wildcard;
+            }
+
+            return children.computeIfAbsent(c, key -> new NodeBuilder());
+        }
+
+        private Node build(boolean afterWildcard, int[] nodeCount) {
+            int id = nodeCount[0]++;
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+
+            int i = 0;
+            for (Map.Entry<Character, NodeBuilder> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().build(false, nodeCount);
+                i++;
+            }
+
+            return new Node(id, keys, nodes, wildcard != null ? wildcard.build(true, nodeCount) : null, afterWildcard,
+                    prefixMatch, exactMatch);
+        }
+    }
+
+    /**
+     * Per-thread buffers holding the trie nodes a path can be in while it is matched against rules with wildcards.
+     * Each node is added at most once per character, so the buffers never need more room than there are nodes.
+     */
+    private static final class ActiveNodes {
+
+        private final Node[] current;
+        private final Node[] next;
+        private final int[] added;
+        private int generation;
+
+        private ActiveNodes(int nodeCount) {
+            this.current = new Node[nodeCount];
+            this.next = new Node[nodeCount];
+            this.added = new int[nodeCount];
+        }
+
+        private int nextGeneration() {
+            if (++generation == 0) {
+                Arrays.fill(added, 0);
+                generation = 1;
+            }
+
+            return generation;
+        }
+
+        /**
+         * Adds a node, along with the node following its wildcard, since a wildcard can match no characters.
+         *
+         * @return new number of nodes, or -1 if the node matches every path it is reached by
+         */
+        private int add(Node[] nodes, int size, Node node, int generation) {
+            if (added[node.id] == generation) {
+                return size;
+            }
+
+            if (node.prefixMatch) {
+                return -1;
+            }
+
+            added[node.id] = generation;
+            nodes[size++] = node;
+
+            return node.wildcard != null ? add(nodes, size, node.wildcard, generation) : size;
+        }
+    }
+}
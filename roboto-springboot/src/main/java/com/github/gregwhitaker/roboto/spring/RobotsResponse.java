@@ -18,11 +18,9 @@ package com.github.gregwhitaker.roboto.spring;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 
-import javax.servlet.http.HttpServletRequest;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,52 +29,125 @@ import java.util.Set;
  */
 public class RobotsResponse {
     private static final Logger LOGGER = LoggerFactory.getLogger(RobotsResponse.class);
-    private static final Map<RobotoMapper, String> CACHE = new HashMap<>();
+
+    public static final String DOCUMENT = "robots.txt";
+
+    /**
+     * Maximum size of robots.txt read by Google. Rules after this limit are ignored.
+     */
+    public static final int MAX_BYTES = 500 * 1024;
+
+    /**
+     * robots.txt that allows every user agent to crawl everything.
+     */
+    public static final String ALLOW_ALL = "User-agent: *" + System.lineSeparator() + "Disallow:" + System.lineSeparator();
+
+    public static final MediaType CONTENT_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
 
     /**
-     * Creates a robots.txt file.
+     * Creates a robots.txt file for the base url and mapper of a cache key created by
+     * {@link RobotoHosts#createKey(SitemapGenerator, String, String, int, String)}. The file is rendered once per key
+     * and reused for subsequent requests.
      *
-     * @param request http request
+     * @param cache document cache
+     * @param key cache key of the robots.txt file
+     * @return rendered robots.txt file
+     */
+    public static RobotoDocument create(RobotoCache cache, RobotoCache.Key key) {
+        return cache.get(key, () -> render(key.getBaseUrl(), key.getMapper()));
+    }
+
+    /**
+     * Renders a robots.txt file from the rules computed by {@link RobotsRules}, which the mapper computes once.
+     *
+     * @param baseUrl base url of the application, used to reference the sitemap
      * @param mapper roboto mapper
-     * @return robots.txt file contents
+     * @return rendered robots.txt file
      */
-    public static String create(HttpServletRequest request, RobotoMapper mapper) {
-        return CACHE.computeIfAbsent(mapper, robots -> {
-            Map<String, Set<String>> disallowed = mapper.getDisallowed();
-
-            StringBuilder builder = new StringBuilder();
-            for(Map.Entry<String, Set<String>> entry : disallowed.entrySet()) {
-                builder.append("User-agent: ").append(entry.getKey()).append(System.lineSeparator());
-
-                if (entry.getValue().size() == 0) {
-                    // Allow all
-                    builder.append("Disallow:").append(System.lineSeparator());
-                } else {
-                    entry.getValue().forEach(path -> {
-                        builder.append("Disallow: ").append(path).append(System.lineSeparator());
-                    });
-                }
+    public static RobotoDocument render(String baseUrl, RobotoMapper mapper) {
+        Map<String, Set<String>> groups = mapper.getRobotsRules();
+        Map<String, Integer> crawlDelays = mapper.getCrawlDelays();
+
+        StringBuilder builder = new StringBuilder();
+        long pathCount = 0;
+        for (Map.Entry<String, Set<String>> entry : groups.entrySet()) {
+            String userAgent = entry.getKey();
+            Set<String> paths = entry.getValue();
+            pathCount += paths.size();
+
+            builder.append("User-agent: ").append(userAgent).append(System.lineSeparator());
 
-                builder.append(System.lineSeparator());
+            if (paths.size() == 0) {
+                // Allow all
+                builder.append("Disallow:").append(System.lineSeparator());
+            } else {
+                paths.forEach(path -> {
+                    builder.append("Disallow: ").append(path).append(System.lineSeparator());
+                });
             }
 
-            try {
-                URI uri = new URI(request.getRequestURL().toString());
+            Integer crawlDelay = crawlDelays.get(userAgent);
+            if (crawlDelay != null) {
+                builder.append("Crawl-delay: ").append(crawlDelay).append(System.lineSeparator());
+            }
+
+            builder.append(System.lineSeparator());
+        }
+
+        builder.append("Sitemap: ")
+                .append(baseUrl)
+                .append("/sitemap.xml");
+
+        builder.append(System.lineSeparator());
 
-                builder.append("Sitemap: ")
-                        .append(uri.getScheme())
-                        .append("://")
-                        .append(uri.getHost())
-                        .append(":")
-                        .append(uri.getPort())
-                        .append("/sitemap.xml");
+        byte[] body = builder.toString().getBytes(StandardCharsets.UTF_8);
+        if (body.length > MAX_BYTES) {
+            LOGGER.warn("robots.txt is {} bytes, which exceeds the limit of {} bytes read by crawlers. " +
+                    "Rules after the limit will be ignored.", body.length, MAX_BYTES);
+        } else if (body.length > MAX_BYTES * 0.8) {
+            LOGGER.warn("robots.txt is {} bytes, which is approaching the limit of {} bytes read by crawlers.",
+                    body.length, MAX_BYTES);
+        }
+
+        return RobotoDocument.of(CONTENT_TYPE, body, pathCount);
+    }
+
+    /**
+     * Converts a request mapping path into a robots.txt path. Path variables, such as <code>{id}</code>, and
+     * Ant-style wildcards match any characters, so both are written as the <code>*</code> wildcard.
+     *
+     * @param path request mapping path
+     * @return robots.txt path
+     */
+    static String toRobotsPath(String path) {
+        if (path.indexOf('{') < 0 && path.indexOf("**") < 0) {
+            return path;
+        }
+
+        StringBuilder builder = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+
+            if (c == '{') {
+                // Skip to the closing brace, allowing for braces in regular expressions such as {id:\d{3}}
+                int depth = 1;
+                while (depth > 0 && ++i < path.length()) {
+                    if (path.charAt(i) == '{') {
+                        depth++;
+                    } else if (path.charAt(i) == '}') {
+                        depth--;
+                    }
+                }
+
+                c = '*';
+            }
 
-                builder.append(System.lineSeparator());
-            } catch (URISyntaxException e) {
-                LOGGER.error("Failed to create sitemap.xml declaration for /robots.txt", e);
+            // Consecutive wildcards are equivalent to a single one
+            if (c != '*' || builder.length() == 0 || builder.charAt(builder.length() - 1) != '*') {
+                builder.append(c);
             }
+        }
 
-            return builder.toString();
-        });
+        return builder.toString();
     }
 }
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Computes the disallow rules published in robots.txt from the paths of a {@link RobotoMapper}.
+ *
+ * The disallowed paths of each user agent are reduced to the smallest set of rules that still disallows all of them:
+ * paths already covered by a shorter rule are dropped, and paths sharing a directory the application owns, such as
+ * <code>/admin/</code>, are replaced by a single rule for that directory, as long as the rule does not also disallow a
+ * path that user agent may crawl. Directories that are not owned, including the root, may hold urls the mapper never
+ * sees, such as static resources, so their paths are never collapsed. Rules and user agents are sorted, so the same
+ * application always produces the same robots.txt.
+ */
+public final class RobotsRules {
+    private static final String ALL_USER_AGENTS = "*";
+
+    /**
+     * Orders the rules for all user agents first, followed by the named user agents in alphabetical order.
+     */
+    private static final Comparator<String> USER_AGENT_ORDER = Comparator.comparing((String userAgent) -> !ALL_USER_AGENTS.equals(userAgent))
+            .thenComparing(Comparator.naturalOrder());
+
+    private RobotsRules() {
+        // Static utility
+    }
+
+    /**
+     * Computes the rules of each user agent group.
+     *
+     * @param mapper roboto mapper
+     * @return sorted rules in robots.txt form by user agent, with an empty set for user agents without rules
+     */
+    public static Map<String, Set<String>> of(RobotoMapper mapper) {
+        Map<String, Set<String>> groups = mapper.getGroups();
+
+        // Paths disallowed for one user agent may still be crawled by the others
+        List<String> paths = new ArrayList<>(mapper.getAllowed());
+        for (Set<String> disallowed : groups.values()) {
+            paths.addAll(disallowed);
+        }
+
+        String[] sorted = toSortedRobotsPaths(paths);
+        KnownPaths known = new KnownPaths(sorted);
+
+        Map<String, Set<String>> rules = new TreeMap<>(USER_AGENT_ORDER);
+        for (Map.Entry<String, Set<String>> entry : groups.entrySet()) {
+            Set<String> robotsPaths = new HashSet<>();
+            for (String path : entry.getValue()) {
+                robotsPaths.add(RobotsResponse.toRobotsPath(path));
+            }
+
+            // The known paths are sorted already, so filtering them is cheaper than sorting again
+            List<String> disallowed = new ArrayList<>(robotsPaths.size());
+            for (String path : sorted) {
+                if (robotsPaths.contains(path)) {
+                    disallowed.add(path);
+                }
+            }
+
+            rules.put(entry.getKey(), minimize(disallowed.toArray(new String[0]), known, mapper.getOwnedDirectories()));
+        }
+
+        return rules;
+    }
+
+    /**
+     * Reduces disallowed paths to the smallest set of rules that disallows them without disallowing any crawlable path.
+     *
+     * @param disallowed sorted, distinct disallowed paths in robots.txt form
+     * @param known all paths of the application, of which the ones not disallowed must stay crawlable
+     * @param owned directories whose urls are all served by the application's endpoints, each ending with a slash
+     * @return sorted rules
+     */
+    static Set<String> minimize(String[] disallowed, KnownPaths known, Set<String> owned) {
+        List<String> rules = new ArrayList<>();
+        Node root = new Node("");
+
+        for (String rule : removeCovered(disallowed)) {
+            // Rules that are not absolute paths are kept as they are
+            if (!rule.startsWith("/")) {
+                rules.add(rule);
+                continue;
+            }
+
+            Node node = root;
+            for (String segment : rule.substring(1).split("/", -1)) {
+                node = node.child(segment);
+            }
+
+            node.rule = true;
+        }
+
+        collapse(root, known, disallowed, owned, rules);
+
+        Collections.sort(rules);
+        return new LinkedHashSet<>(rules);
+    }
+
+    /**
+     * Drops the paths that are already disallowed by another, shorter, path.
+     *
+     * @param disallowed sorted disallowed paths
+     * @return remaining paths, in order
+     */
+    private static List<String> removeCovered(String[] disallowed) {
+        List<String> rules = new ArrayList<>();
+        List<String> wildcardRules = new ArrayList<>();
+        String lastLiteralRule = null;
+
+        for (String path : disallowed) {
+            // A literal rule covers the paths it prefixes, and those sort directly after it
+            if (lastLiteralRule != null && path.startsWith(lastLiteralRule) || isCovered(path, wildcardRules)) {
+                continue;
+            }
+
+            rules.add(path);
+
+            if (path.indexOf('*') < 0) {
+                lastLiteralRule = path;
+            } else {
+                wildcardRules.add(path);
+            }
+        }
+
+        return rules;
+    }
+
+    private static boolean isCovered(String path, List<String> wildcardRules) {
+        for (String rule : wildcardRules) {
+            if (matches(rule, path, 0, 0)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Collects the rules of a subtree, replacing them with a single directory rule where that is shorter and safe.
+     *
+     * @param node subtree
+     * @param known all paths of the application
+     * @param disallowed sorted disallowed paths, which are the known paths that need not stay crawlable
+     * @param owned directories whose urls are all served by the application's endpoints
+     * @param rules rules collected so far, to which the rules of the subtree are appended
+     */
+    private static void collapse(Node node, KnownPaths known, String[] disallowed, Set<String> owned,
+                                 List<String> rules) {
+        if (node.rule) {
+            rules.add(node.path);
+            return;
+        }
+
+        int start = rules.size();
+        for (Node child : node.children.values()) {
+            collapse(child, known, disallowed, owned, rules);
+        }
+
+        // The root is never owned, since a rule for it would disallow the whole site
+        String directory = node.path + "/";
+        if (rules.size() - start > 1 && !node.path.isEmpty() && isOwned(directory, owned)
+                && !known.isCrawlableDisallowedBy(directory, disallowed)) {
+            rules.subList(start, rules.size()).clear();
+            rules.add(directory);
+        }
+    }
+
+    /**
+     * Checks to see if a directory is one of the owned directories, or lies under one.
+     */
+    private static boolean isOwned(String directory, Set<String> owned) {
+        for (String ownedDirectory : owned) {
+            if (directory.startsWith(ownedDirectory)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Converts paths to robots.txt form, sorted and without duplicates.
+     *
+     * @param paths request mapping paths
+     * @return robots.txt paths
+     */
+    private static String[] toSortedRobotsPaths(Collection<String> paths) {
+        String[] robotsPaths = new String[paths.size()];
+
+        int count = 0;
+        for (String path : paths) {
+            // An empty rule disallows nothing
+            if (!path.isEmpty()) {
+                robotsPaths[count++] = RobotsResponse.toRobotsPath(path);
+            }
+        }
+
+        Arrays.sort(robotsPaths, 0, count);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || !robotsPaths[i].equals(robotsPaths[distinct - 1])) {
+                robotsPaths[distinct++] = robotsPaths[i];
+            }
+        }
+
+        return Arrays.copyOf(robotsPaths, distinct);
+    }
+
+    /**
+     * Checks to see if a rule matches a path the way crawlers do: by prefix, with <code>*</code> matching any sequence
+     * of characters and a trailing <code>$</code> anchoring the rule to the end of the path.
+     */
+    private static boolean matches(String rule, String path, int ruleIndex, int pathIndex) {
+        while (ruleIndex < rule.length()) {
+            char c = rule.charAt(ruleIndex);
+
+            if (c == '*') {
+                for (int i = pathIndex; i <= path.length(); i++) {
+                    if (matches(rule, path, ruleIndex + 1, i)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            if (c == '$' && ruleIndex == rule.length() - 1) {
+                return pathIndex == path.length();
+            }
+
+            if (pathIndex == path.length() || path.charAt(pathIndex) != c) {
+                return false;
+            }
+
+            ruleIndex++;
+            pathIndex++;
+        }
+
+        return true;
+    }
+
+    /**
+     * All paths of the application, along with the path templates among them, which contain wildcards.
+     */
+    static final class KnownPaths {
+
+        private final String[] paths;
+        private final List<String> templates = new ArrayList<>();
+
+        /**
+         * Creates the known paths.
+         *
+         * @param paths sorted, distinct paths in robots.txt form
+         */
+        KnownPaths(String[] paths) {
+            this.paths = paths;
+
+            for (String path : paths) {
+                if (path.indexOf('*') >= 0) {
+                    templates.add(path);
+                }
+            }
+        }
+
+        /**
+         * Checks to see if a rule would disallow any path that is not disallowed already. Templates are treated as
+         * disallowed whenever the rule and the template could match the same path.
+         *
+         * @param rule rule in robots.txt form
+         * @param disallowed sorted paths that are disallowed already
+         * @return <code>true</code> if the rule disallows a crawlable path; otherwise <code>false</code>
+         */
+        boolean isCrawlableDisallowedBy(String rule, String[] disallowed) {
+            String rulePrefix = literalPrefix(rule);
+
+            int start = Arrays.binarySearch(paths, rulePrefix);
+            for (int i = start >= 0 ? start : -start - 1; i < paths.length && paths[i].startsWith(rulePrefix); i++) {
+                String path = paths[i];
+
+                // Templates are checked below
+                if (path.indexOf('*') < 0 && Arrays.binarySearch(disallowed, path) < 0 && matches(rule, path, 0, 0)) {
+                    return true;
+                }
+            }
+
+            for (String template : templates) {
+                String templatePrefix = literalPrefix(template);
+
+                if ((rulePrefix.startsWith(templatePrefix) || templatePrefix.startsWith(rulePrefix))
+                        && Arrays.binarySearch(disallowed, template) < 0) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private static String literalPrefix(String path) {
+            int wildcard = path.indexOf('*');
+            return wildcard < 0 ? path : path.substring(0, wildcard);
+        }
+    }
+
+    /**
+     * Node of the path segment trie the rules are collapsed on.
+     */
+    private static final class Node {
+
+        private final String path;
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean rule;
+
+        private Node(String path) {
+            this.path = path;
+        }
+
+        private Node child(String segment) {
+            return children.computeIfAbsent(segment, key -> new Node(path + "/" + segment));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Supplies the images, videos and news articles of the urls of a {@link SitemapUrlProvider}, which are listed in the
+ * sitemap with the Google image, video and news sitemap extensions. Implemented by url providers in addition to
+ * {@link SitemapUrlProvider}.
+ *
+ * Extensions are requested one page of urls at a time, only while a sitemap is being written, so that the metadata
+ * of a single page is held in memory at a time. They are not requested for sitemaps that have not changed, so a
+ * change to a url's images, videos or news article should also change its {@link SitemapUrl#getVersion() version}.
+ */
+public interface SitemapExtensionProvider {
+
+    /**
+     * Gets the extensions of a page of urls. Image, video and player urls starting with <code>/</code> are resolved
+     * against the base url of the application.
+     *
+     * @param urls page of urls
+     * @return extensions keyed by url path; urls without extensions may be left out
+     */
+    Map<String, SitemapExtensions> getExtensions(List<SitemapUrl> urls);
+}
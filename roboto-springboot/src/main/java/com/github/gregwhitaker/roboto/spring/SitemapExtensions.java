@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The images, videos and news article of a single sitemap url, supplied by a {@link SitemapExtensionProvider}.
+ */
+public class SitemapExtensions {
+
+    private final List<String> images;
+    private final List<SitemapVideo> videos;
+    private final SitemapNews news;
+
+    /**
+     * Creates the extensions of a url.
+     *
+     * @param images urls of the images on the page, or <code>null</code> if there are none
+     * @param videos videos on the page, or <code>null</code> if there are none
+     * @param news news article on the page, or <code>null</code> if the page is not a news article
+     */
+    public SitemapExtensions(List<String> images, List<SitemapVideo> videos, SitemapNews news) {
+        this.images = images != null ? images : Collections.emptyList();
+        this.videos = videos != null ? videos : Collections.emptyList();
+        this.news = news;
+    }
+
+    /**
+     * Creates the extensions of a url with images only.
+     *
+     * @param images urls of the images on the page
+     * @return extensions
+     */
+    public static SitemapExtensions images(List<String> images) {
+        return new SitemapExtensions(images, null, null);
+    }
+
+    public List<String> getImages() {
+        return images;
+    }
+
+    public List<SitemapVideo> getVideos() {
+        return videos;
+    }
+
+    public SitemapNews getNews() {
+        return news;
+    }
+}
@@ -0,0 +1,678 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders sitemaps from the allowed paths of a {@link RobotoMapper} and the urls enumerated by
+ * {@link SitemapUrlProvider}s.
+ *
+ * When the total number of urls exceeds the maximum number of urls per sitemap, the urls are split into numbered
+ * shards and sitemap.xml becomes a sitemap index referencing them. The static paths and each provider are sharded
+ * separately, so a shard is always rendered from a single range of a single source, and provider urls are read
+ * one page at a time. The providers are counted when sitemap.xml is rendered, and shards are rendered from the ranges
+ * that rendering listed, so providers are not counted again for every shard.
+ *
+ * Each source is read once per rendering. The urls are hashed to decide whether the document has changed and
+ * spooled, so that the document is written from the very urls that were hashed. The first page of urls is kept in
+ * memory, and larger documents are spooled to a temporary file.
+ *
+ * Urls without a lastmod date of their own are published with the date they last changed according to a
+ * {@link SitemapIndex}, which is the date they were first listed for static paths. A document is only rendered again
+ * when the urls it lists have changed since the rendering it is compared with.
+ *
+ * Urls that the mapper's robots.txt rules disallow for all user agents are left out, which only happens for
+ * generators created for a single host with {@link #forHost(String, RobotoMapper)}.
+ *
+ * With a spool directory, urls are spooled to files in it rather than the default temporary directory, and documents
+ * are rendered to files that are memory-mapped, so that memory use does not grow with the size of the sitemap.
+ */
+public class SitemapGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SitemapGenerator.class);
+    private static final String CHANGEFREQ = "monthly";
+
+    public static final MediaType CONTENT_TYPE = new MediaType(MediaType.APPLICATION_XML, StandardCharsets.UTF_8);
+
+    /**
+     * Maximum number of urls allowed in a single sitemap by the sitemaps.org protocol.
+     */
+    public static final int MAX_URLS = 50000;
+
+    /**
+     * Maximum uncompressed size of a single sitemap allowed by the sitemaps.org protocol.
+     */
+    public static final int MAX_BYTES = 50 * 1024 * 1024;
+
+    private final RobotoMapper mapper;
+    private final List<SitemapUrlProvider> providers;
+    private final int maxUrls;
+    private final int pageSize;
+    private final List<String> paths;
+    private final SitemapIndex index;
+    private final String indexPrefix;
+    private final RobotsMatcher rules;
+    private final Path spoolDirectory;
+    private volatile long[] counts;
+
+    /**
+     * Creates a sitemap generator with an index that only lives in memory.
+     *
+     * @param mapper roboto mapper
+     * @param providers providers of parameterized urls
+     * @param maxUrls maximum number of urls per sitemap, capped at {@value #MAX_URLS}
+     * @param pageSize number of urls requested from providers at a time
+     */
+    public SitemapGenerator(RobotoMapper mapper, List<SitemapUrlProvider> providers, int maxUrls, int pageSize) {
+        this(mapper, providers, maxUrls, pageSize, new SitemapIndex());
+    }
+
+    /**
+     * Creates a sitemap generator.
+     *
+     * @param mapper roboto mapper
+     * @param providers providers of parameterized urls
+     * @param maxUrls maximum number of urls per sitemap, capped at {@value #MAX_URLS}
+     * @param pageSize number of urls requested from providers at a time
+     * @param index index recording when urls and documents last changed
+     */
+    public SitemapGenerator(RobotoMapper mapper, List<SitemapUrlProvider> providers, int maxUrls, int pageSize,
+                            SitemapIndex index) {
+        this(mapper, providers, maxUrls, pageSize, index, null);
+    }
+
+    /**
+     * Creates a sitemap generator that spools urls and rendered documents to files.
+     *
+     * @param mapper roboto mapper
+     * @param providers providers of parameterized urls
+     * @param maxUrls maximum number of urls per sitemap, capped at {@value #MAX_URLS}
+     * @param pageSize number of urls requested from providers at a time
+     * @param index index recording when urls and documents last changed
+     * @param spoolDirectory directory temporary files are written to, or <code>null</code> to render in memory
+     */
+    public SitemapGenerator(RobotoMapper mapper, List<SitemapUrlProvider> providers, int maxUrls, int pageSize,
+                            SitemapIndex index, Path spoolDirectory) {
+        this(mapper, providers, maxUrls, pageSize, index, spoolDirectory, "");
+    }
+
+    private SitemapGenerator(RobotoMapper mapper, List<SitemapUrlProvider> providers, int maxUrls, int pageSize,
+                             SitemapIndex index, Path spoolDirectory, String indexPrefix) {
+        this.mapper = mapper;
+        this.providers = providers;
+        this.maxUrls = Math.min(maxUrls, MAX_URLS);
+        this.pageSize = pageSize;
+        this.rules = RobotsMatcher.compile(mapper.getRobotsRules(), Collections.<String>emptyList());
+        this.paths = getStaticPaths(mapper, rules);
+        this.index = index;
+        this.spoolDirectory = spoolDirectory;
+        this.indexPrefix = indexPrefix;
+    }
+
+    /**
+     * Creates a generator for a single host, which lists the urls the host's mapper allows from the same providers.
+     * Its documents are recorded in the index under the host name, so that hosts listing different urls do not
+     * share change dates.
+     *
+     * @param host host name
+     * @param hostMapper mapper for the host, created with {@link RobotoMapper#forHost(String[], java.util.Collection)}
+     * @return generator for the host
+     */
+    public SitemapGenerator forHost(String host, RobotoMapper hostMapper) {
+        return new SitemapGenerator(hostMapper, providers, maxUrls, pageSize, index, spoolDirectory, host + "/");
+    }
+
+    public RobotoMapper getMapper() {
+        return mapper;
+    }
+
+    public SitemapIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the name a document of this generator is recorded under in the index.
+     *
+     * @param document document name
+     * @return name in the index
+     */
+    public String getIndexName(String document) {
+        return indexPrefix + document;
+    }
+
+    /**
+     * Gets the document name of a sitemap shard.
+     *
+     * @param shard shard number, starting at 1
+     * @return document name
+     */
+    public static String getShardDocument(int shard) {
+        return "sitemap-" + shard + ".xml";
+    }
+
+    /**
+     * Gets the number of shards the sitemap is split into, as of the last rendering of sitemap.xml.
+     *
+     * @return number of shards, or <code>0</code> if all urls fit in a single sitemap
+     */
+    public int getShardCount() {
+        return getShardCount(getCounts());
+    }
+
+    /**
+     * Renders sitemap.xml, which is a sitemap index if the sitemap is split into shards.
+     *
+     * @param baseUrl base url of the application
+     * @return rendered sitemap.xml file
+     */
+    public RobotoDocument render(String baseUrl) {
+        return render(baseUrl, 0);
+    }
+
+    /**
+     * Renders sitemap.xml, which is a sitemap index if the sitemap is split into shards, unless it has not changed
+     * since an earlier rendering.
+     *
+     * @param baseUrl base url of the application
+     * @param previousSourceHash source hash of the earlier rendering, or <code>0</code> to always render
+     * @return rendered sitemap.xml file, or <code>null</code> if it has not changed
+     */
+    public RobotoDocument render(String baseUrl, long previousSourceHash) {
+        long[] counts = countUrls();
+        int shards = getShardCount(counts);
+        LocalDate today = LocalDate.now();
+
+        if (shards == 0) {
+            List<UrlSection> sections = new ArrayList<>();
+
+            try {
+                sections.add(readPaths(paths, today));
+
+                for (int i = 0; i < providers.size(); i++) {
+                    sections.add(readProviderUrls(providers.get(i), 0, counts[i + 1], today));
+                }
+
+                return renderUrlSet(baseUrl, SitemapResponse.DOCUMENT, sections, today, previousSourceHash);
+            } finally {
+                for (UrlSection section : sections) {
+                    section.close();
+                }
+            }
+        }
+
+        // Shards that have not been rendered yet are listed as changed today
+        List<String> lastmods = new ArrayList<>(shards);
+        long hash = shards;
+        for (int shard = 1; shard <= shards; shard++) {
+            LocalDate lastmod = index.getDocumentLastmod(getIndexName(getShardDocument(shard)));
+            lastmods.add(SitemapWriter.formatLastmod(lastmod != null ? lastmod : today));
+            hash = SitemapIndex.combine(hash, SitemapIndex.hash(lastmods.get(shard - 1)));
+        }
+
+        long sourceHash = getSourceHash(hash, baseUrl);
+        if (sourceHash == previousSourceHash) {
+            return null;
+        }
+
+        // Sitemap indexes list their shards rather than urls
+        return write(SitemapResponse.DOCUMENT, shards, sourceHash, writer -> {
+            writer.startSitemapIndex();
+
+            for (int shard = 1; shard <= shards; shard++) {
+                writer.writeSitemap(baseUrl + "/" + getShardDocument(shard), lastmods.get(shard - 1));
+            }
+        });
+    }
+
+    /**
+     * Renders a single shard of a sitemap that is split into shards, as listed by the last rendering of sitemap.xml.
+     * Only the urls belonging to the shard are read.
+     *
+     * @param baseUrl base url of the application
+     * @param shard shard number, starting at 1
+     * @return rendered sitemap shard
+     * @throws IllegalArgumentException if the shard does not exist
+     */
+    public RobotoDocument renderShard(String baseUrl, int shard) {
+        return renderShard(baseUrl, shard, 0);
+    }
+
+    /**
+     * Renders a single shard of a sitemap that is split into shards, as listed by the last rendering of sitemap.xml,
+     * unless its urls have not changed since an earlier rendering. Only the urls belonging to the shard are read.
+     *
+     * @param baseUrl base url of the application
+     * @param shard shard number, starting at 1
+     * @param previousSourceHash source hash of the earlier rendering, or <code>0</code> to always render
+     * @return rendered sitemap shard, or <code>null</code> if it has not changed
+     * @throws IllegalArgumentException if the shard does not exist
+     */
+    public RobotoDocument renderShard(String baseUrl, int shard, long previousSourceHash) {
+        long[] counts = getCounts();
+
+        if (shard < 1 || shard > getShardCount(counts)) {
+            throw new IllegalArgumentException("Sitemap shard " + shard + " does not exist");
+        }
+
+        // Find the source the shard belongs to, and the shard's position within that source
+        int section = 0;
+        long sectionShard = shard - 1;
+        while (sectionShard >= getShardCount(counts[section])) {
+            sectionShard -= getShardCount(counts[section]);
+            section++;
+        }
+
+        // A provider that has grown since it was counted fills its last shard up to the maximum
+        long offset = sectionShard * maxUrls;
+        LocalDate today = LocalDate.now();
+
+        try (UrlSection urls = section == 0 ?
+                readPaths(paths.subList((int) offset, (int) Math.min(offset + maxUrls, paths.size())), today) :
+                readProviderUrls(providers.get(section - 1), offset, maxUrls, today)) {
+            return renderUrlSet(baseUrl, getShardDocument(shard), Collections.singletonList(urls), today, previousSourceHash);
+        }
+    }
+
+    /**
+     * Renders a urlset, unless its urls have not changed since an earlier rendering. The images, videos and news
+     * articles of the urls are requested from their providers one page at a time while the urlset is written; they
+     * are not part of the source hash, so unchanged urlsets never request them.
+     *
+     * @param baseUrl base url of the application
+     * @param document document name
+     * @param sections urls to list by source, with their lastmod dates resolved
+     * @param today current date
+     * @param previousSourceHash source hash of the earlier rendering, or <code>0</code> to always render
+     * @return rendered urlset, or <code>null</code> if it has not changed
+     */
+    private RobotoDocument renderUrlSet(String baseUrl, String document, List<UrlSection> sections, LocalDate today, long previousSourceHash) {
+        long count = 0;
+        long hash = 0;
+        boolean extensions = false;
+        for (UrlSection section : sections) {
+            count += section.count;
+            extensions |= section.provider instanceof SitemapExtensionProvider;
+            hash = SitemapIndex.combine(hash, section.hash);
+        }
+
+        hash = SitemapIndex.combine(hash, count);
+        long sourceHash = getSourceHash(hash, baseUrl);
+        index.updateDocument(getIndexName(document), hash, sourceHash, today);
+
+        if (sourceHash == previousSourceHash) {
+            return null;
+        }
+
+        boolean withExtensions = extensions;
+        return write(document, count, sourceHash, writer -> {
+            writer.startUrlSet(withExtensions);
+
+            for (UrlSection section : sections) {
+                writeUrls(writer, baseUrl, section);
+            }
+        });
+    }
+
+    /**
+     * Writes the spooled urls of a single source one page at a time, requesting their extensions if the source
+     * supplies them.
+     *
+     * @param writer sitemap writer
+     * @param baseUrl base url of the application
+     * @param section urls to write
+     * @throws XMLStreamException if the urls could not be written
+     */
+    private void writeUrls(SitemapWriter writer, String baseUrl, UrlSection section) throws XMLStreamException {
+        SitemapExtensionProvider extensionProvider = section.provider instanceof SitemapExtensionProvider ?
+                (SitemapExtensionProvider) section.provider : null;
+
+        try (UrlSpool.Reader reader = section.spool.read()) {
+            for (List<SitemapUrl> page = reader.read(pageSize); !page.isEmpty(); page = reader.read(pageSize)) {
+                Map<String, SitemapExtensions> extensions = extensionProvider != null ?
+                        extensionProvider.getExtensions(page) : Collections.emptyMap();
+
+                for (SitemapUrl url : page) {
+                    writer.writeUrl(baseUrl + url.getPath(), SitemapWriter.formatLastmod(url.getLastmod()),
+                            url.getChangefreq(), url.getPriority(), resolve(baseUrl, extensions.get(url.getPath())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the image, video and player urls of a url's extensions that start with <code>/</code> against the
+     * base url of the application.
+     *
+     * @param baseUrl base url of the application
+     * @param extensions extensions, or <code>null</code>
+     * @return extensions with absolute urls, or <code>null</code> if there are none
+     */
+    private static SitemapExtensions resolve(String baseUrl, SitemapExtensions extensions) {
+        if (extensions == null) {
+            return null;
+        }
+
+        List<String> images = new ArrayList<>(extensions.getImages().size());
+        for (String image : extensions.getImages()) {
+            images.add(resolve(baseUrl, image));
+        }
+
+        List<SitemapVideo> videos = new ArrayList<>(extensions.getVideos().size());
+        for (SitemapVideo video : extensions.getVideos()) {
+            videos.add(new SitemapVideo(resolve(baseUrl, video.getThumbnailLoc()), video.getTitle(),
+                    video.getDescription(), resolve(baseUrl, video.getContentLoc()),
+                    resolve(baseUrl, video.getPlayerLoc()), video.getDuration(), video.getPublicationDate()));
+        }
+
+        return new SitemapExtensions(images, videos, extensions.getNews());
+    }
+
+    private static String resolve(String baseUrl, String loc) {
+        return loc != null && loc.startsWith("/") ? baseUrl + loc : loc;
+    }
+
+    /**
+     * Reads static paths, dating each one from the index.
+     *
+     * @param paths static paths
+     * @param today current date
+     * @return urls
+     */
+    private UrlSection readPaths(List<String> paths, LocalDate today) {
+        return read(new UrlSection(null, paths, 0, paths.size()), today);
+    }
+
+    /**
+     * Reads a range of a provider's urls, requesting them one page at a time. Urls without a lastmod date are dated
+     * from the index.
+     *
+     * @param provider url provider
+     * @param offset index of the first url to read
+     * @param limit maximum number of urls to read
+     * @param today current date
+     * @return urls
+     */
+    private UrlSection readProviderUrls(SitemapUrlProvider provider, long offset, long limit, LocalDate today) {
+        return read(new UrlSection(provider, null, offset, limit), today);
+    }
+
+    /**
+     * Reads the urls of a section from their source one page at a time, leaving out urls disallowed for all user
+     * agents and dating urls without a lastmod date from the index. The urls are hashed, counted and spooled, so that
+     * they do not have to be read from their source again when the section is written.
+     *
+     * @param section section to read
+     * @param today current date
+     * @return the section
+     */
+    private UrlSection read(UrlSection section, LocalDate today) {
+        section.spool = new UrlSpool(spoolDirectory, pageSize);
+
+        try {
+            if (section.provider == null) {
+                for (String path : section.paths) {
+                    LocalDate lastmod = index.update(path, SitemapIndex.hash(path), today);
+                    section.add(new SitemapUrl(path, lastmod, CHANGEFREQ, null));
+                }
+
+                return section;
+            }
+
+            long read = 0;
+
+            while (read < section.limit) {
+                List<SitemapUrl> page = section.provider.getUrls(section.offset + read,
+                        (int) Math.min(pageSize, section.limit - read));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                for (SitemapUrl url : page) {
+                    if (read == section.limit) {
+                        break;
+                    }
+
+                    read++;
+                    if (rules.isDisallowedForAll(url.getPath())) {
+                        continue;
+                    }
+
+                    if (url.getLastmod() == null) {
+                        LocalDate lastmod = index.update(url.getPath(), hash(url), today);
+                        url = new SitemapUrl(url.getPath(), lastmod, url.getChangefreq(), url.getPriority(),
+                                url.getVersion());
+                    }
+
+                    section.add(url);
+                }
+            }
+
+            return section;
+        } catch (RuntimeException e) {
+            section.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Hashes everything about a url that is published in the sitemap, along with its version.
+     *
+     * @param url url
+     * @return hash
+     */
+    private static long hash(SitemapUrl url) {
+        long hash = SitemapIndex.hash(url.getPath());
+        hash = SitemapIndex.combine(hash, SitemapIndex.hash(url.getVersion()));
+        hash = SitemapIndex.combine(hash, SitemapIndex.hash(url.getChangefreq()));
+        hash = SitemapIndex.combine(hash, url.getPriority() != null ? Double.doubleToLongBits(url.getPriority()) : 0);
+        return SitemapIndex.combine(hash, url.getLastmod() != null ? url.getLastmod().toEpochDay() : 0);
+    }
+
+    /**
+     * Combines the hash of a document's urls with its base url. Zero means "no hash", so it is never returned.
+     */
+    private static long getSourceHash(long hash, String baseUrl) {
+        long sourceHash = SitemapIndex.combine(hash, SitemapIndex.hash(baseUrl));
+        return sourceHash != 0 ? sourceHash : 1;
+    }
+
+    /**
+     * Renders a document in memory, or to a memory-mapped file in the spool directory if there is one.
+     *
+     * @param document document name
+     * @param urlCount number of urls or sitemaps listed in the document
+     * @param sourceHash source hash of the document
+     * @param body writes the body of the document
+     * @return rendered document
+     */
+    private RobotoDocument write(String document, long urlCount, long sourceHash, SitemapBody body) {
+        try {
+            if (spoolDirectory == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                write(out, body);
+                checkSize(out.size());
+
+                return RobotoDocument.of(CONTENT_TYPE, out.toByteArray(), urlCount, sourceHash);
+            }
+
+            Path file = Files.createTempFile(Files.createDirectories(spoolDirectory), "sitemap-", ".xml");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+                    write(out, body);
+                }
+
+                checkSize(Files.size(file));
+                return RobotoDocument.of(CONTENT_TYPE, file, urlCount, sourceHash);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (XMLStreamException e) {
+            LOGGER.error("Failed to create " + document, e);
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            LOGGER.error("Failed to create " + document, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(OutputStream out, SitemapBody body) throws XMLStreamException {
+        try (SitemapWriter writer = new SitemapWriter(out)) {
+            body.write(writer);
+        }
+    }
+
+    private static void checkSize(long size) {
+        if (size > MAX_BYTES) {
+            LOGGER.warn("Sitemap is {} bytes, which exceeds the sitemap protocol limit of {} bytes. " +
+                    "Lower roboto.sitemap.max-urls-per-shard to split it into smaller shards.", size, MAX_BYTES);
+        }
+    }
+
+    /**
+     * Gets the number of urls of each source as of the last rendering of sitemap.xml, counting them if it has not
+     * been rendered yet.
+     *
+     * @return url counts
+     */
+    private long[] getCounts() {
+        long[] counts = this.counts;
+        return counts != null ? counts : countUrls();
+    }
+
+    /**
+     * Counts the urls of each source: the static paths first, followed by each provider.
+     *
+     * @return url counts
+     */
+    private long[] countUrls() {
+        long[] counts = new long[providers.size() + 1];
+        counts[0] = paths.size();
+
+        for (int i = 0; i < providers.size(); i++) {
+            counts[i + 1] = providers.get(i).count();
+        }
+
+        this.counts = counts;
+        return counts;
+    }
+
+    private int getShardCount(long[] counts) {
+        if (getTotal(counts) <= maxUrls) {
+            return 0;
+        }
+
+        int shards = 0;
+        for (long count : counts) {
+            shards += getShardCount(count);
+        }
+
+        return shards;
+    }
+
+    private static long getTotal(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        return total;
+    }
+
+    private int getShardCount(long count) {
+        return (int) ((count + maxUrls - 1) / maxUrls);
+    }
+
+    /**
+     * Gets the sorted allowed paths of the mapper, excluding path templates such as <code>/product/{id}</code>
+     * which are not valid urls on their own, and paths disallowed for all user agents.
+     *
+     * @param mapper roboto mapper
+     * @param rules robots.txt rules of the mapper
+     * @return static paths
+     */
+    private static List<String> getStaticPaths(RobotoMapper mapper, RobotsMatcher rules) {
+        List<String> paths = new ArrayList<>();
+
+        for (String path : mapper.getSortedAllowed()) {
+            if (path.indexOf('{') < 0 && !rules.isDisallowedForAll(path)) {
+                paths.add(path);
+            }
+        }
+
+        return Collections.unmodifiableList(paths);
+    }
+
+    /**
+     * Writes the body of a sitemap document.
+     */
+    @FunctionalInterface
+    private interface SitemapBody {
+        void write(SitemapWriter writer) throws XMLStreamException;
+    }
+
+    /**
+     * A range of urls of a single source, along with the spooled urls that are listed, their combined hash and their
+     * number.
+     */
+    private static final class UrlSection implements AutoCloseable {
+
+        private final SitemapUrlProvider provider;
+        private final List<String> paths;
+        private final long offset;
+        private final long limit;
+        private UrlSpool spool;
+        private long hash;
+        private long count;
+
+        private UrlSection(SitemapUrlProvider provider, List<String> paths, long offset, long limit) {
+            this.provider = provider;
+            this.paths = paths;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        private void add(SitemapUrl url) {
+            spool.add(url);
+            hash = SitemapIndex.combine(hash, hash(url));
+            count++;
+        }
+
+        @Override
+        public void close() {
+            if (spool != null) {
+                spool.close();
+            }
+        }
+    }
+}
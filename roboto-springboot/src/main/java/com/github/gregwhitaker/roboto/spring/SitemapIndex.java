@@ -0,0 +1,377 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records when each sitemap url and each sitemap document last changed, so that sitemaps publish truthful
+ * <code>lastmod</code> dates rather than the current date, and unchanged documents need not be rendered again.
+ *
+ * Urls are keyed by a 64-bit hash of their path and store a hash of their content, the date that content last
+ * changed and the date the url was last listed. They are kept in flat arrays, so the index costs about 28 bytes
+ * per url regardless of the length of the paths.
+ *
+ * The index is loaded from a file when it is created and written back by {@link #save()}. Urls that have not been
+ * listed for {@value #RETENTION_DAYS} days are dropped when saving. Without a file the index only lives in memory.
+ */
+public class SitemapIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SitemapIndex.class);
+
+    /**
+     * Number of days after which urls that are no longer listed are dropped from the index.
+     */
+    public static final int RETENTION_DAYS = 30;
+
+    private static final int MAGIC = 0x524f4249;
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path file;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private int[] changed = new int[INITIAL_CAPACITY];
+    private int[] seen = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final Map<String, Document> documents = new HashMap<>();
+    private boolean dirty;
+
+    /**
+     * Creates an index that only lives in memory.
+     */
+    public SitemapIndex() {
+        this.file = null;
+    }
+
+    /**
+     * Creates an index backed by a file, loading the file if it exists.
+     *
+     * @param file index file
+     * @throws IOException if the file exists but could not be read
+     */
+    public SitemapIndex(Path file) throws IOException {
+        this.file = file;
+
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    /**
+     * Records the content of a url and gets the date it last changed.
+     *
+     * @param path path of the url
+     * @param hash hash of the url's content
+     * @param today current date
+     * @return the date the content last changed, which is <code>today</code> for new or changed urls
+     */
+    public synchronized LocalDate update(String path, long hash, LocalDate today) {
+        int day = (int) today.toEpochDay();
+        long key = hashPath(path);
+        int slot = find(key);
+
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            hashes[slot] = hash;
+            changed[slot] = day;
+            seen[slot] = day;
+            dirty = true;
+
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+
+            return today;
+        }
+
+        if (hashes[slot] != hash) {
+            hashes[slot] = hash;
+            changed[slot] = day;
+            dirty = true;
+        }
+
+        if (seen[slot] != day) {
+            seen[slot] = day;
+            dirty = true;
+        }
+
+        return LocalDate.ofEpochDay(changed[slot]);
+    }
+
+    /**
+     * Records the content of a sitemap document and gets the date it last changed.
+     *
+     * @param document document name, such as <code>sitemap-1.xml</code>
+     * @param hash hash of the urls listed in the document, independent of the base url
+     * @param sourceHash hash the rendered document was tagged with, see {@link RobotoDocument#getSourceHash()}
+     * @param today current date
+     * @return the date the document last changed, which is <code>today</code> for new or changed documents
+     */
+    public synchronized LocalDate updateDocument(String document, long hash, long sourceHash, LocalDate today) {
+        Document previous = documents.get(document);
+
+        if (previous == null || previous.hash != hash) {
+            documents.put(document, new Document(hash, sourceHash, (int) today.toEpochDay()));
+            dirty = true;
+            return today;
+        }
+
+        if (previous.sourceHash != sourceHash) {
+            documents.put(document, new Document(hash, sourceHash, previous.changed));
+            dirty = true;
+        }
+
+        return LocalDate.ofEpochDay(previous.changed);
+    }
+
+    /**
+     * Gets the date a sitemap document last changed.
+     *
+     * @param document document name
+     * @return the date, or <code>null</code> if the document has not been rendered yet
+     */
+    public synchronized LocalDate getDocumentLastmod(String document) {
+        Document entry = documents.get(document);
+        return entry != null ? LocalDate.ofEpochDay(entry.changed) : null;
+    }
+
+    /**
+     * Gets the hash the last rendering of a sitemap document was tagged with.
+     *
+     * @param document document name
+     * @return source hash, or <code>0</code> if the document has not been rendered yet
+     */
+    public synchronized long getDocumentSourceHash(String document) {
+        Document entry = documents.get(document);
+        return entry != null ? entry.sourceHash : 0;
+    }
+
+    /**
+     * Gets the number of urls in the index.
+     *
+     * @return number of urls
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Writes the index to its file, if it has one and has changed since it was loaded or last saved. The file is
+     * replaced atomically, so a crash while saving leaves the previous index in place.
+     *
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void save() throws IOException {
+        if (file == null || !dirty) {
+            return;
+        }
+
+        int oldest = (int) LocalDate.now().toEpochDay() - RETENTION_DAYS;
+
+        int retained = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && seen[i] >= oldest) {
+                retained++;
+            }
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(retained);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && seen[i] >= oldest) {
+                    out.writeLong(keys[i]);
+                    out.writeLong(hashes[i]);
+                    out.writeInt(changed[i]);
+                    out.writeInt(seen[i]);
+                }
+            }
+
+            out.writeInt(documents.size());
+            for (Map.Entry<String, Document> entry : documents.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().hash);
+                out.writeLong(entry.getValue().sourceHash);
+                out.writeInt(entry.getValue().changed);
+            }
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        dirty = false;
+        LOGGER.debug("Saved {} sitemap urls to {}", retained, file);
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warn("Ignoring sitemap index {}, which was written by an incompatible version", file);
+                return;
+            }
+
+            int count = in.readInt();
+            resize(Integer.highestOneBit(Math.max(count, INITIAL_CAPACITY / 2)) * 4);
+
+            for (int i = 0; i < count; i++) {
+                long key = in.readLong();
+                int slot = find(key);
+                keys[slot] = key;
+                hashes[slot] = in.readLong();
+                changed[slot] = in.readInt();
+                seen[slot] = in.readInt();
+                size++;
+            }
+
+            int documentCount = in.readInt();
+            for (int i = 0; i < documentCount; i++) {
+                String document = in.readUTF();
+                documents.put(document, new Document(in.readLong(), in.readLong(), in.readInt()));
+            }
+        }
+
+        LOGGER.info("Loaded {} sitemap urls from {}", size, file);
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldHashes = hashes;
+        int[] oldChanged = changed;
+        int[] oldSeen = seen;
+
+        keys = new long[capacity];
+        hashes = new long[capacity];
+        changed = new int[capacity];
+        seen = new int[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                changed[slot] = oldChanged[i];
+                seen[slot] = oldSeen[i];
+            }
+        }
+    }
+
+    /**
+     * Hashes a path into a 64-bit key. Zero marks an empty slot, so it is never returned.
+     *
+     * @param path path
+     * @return key
+     */
+    static long hashPath(String path) {
+        long hash = hash(path);
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of a string, with a final mix so that similar strings spread over the table.
+     *
+     * @param value string to hash, or <code>null</code>
+     * @return hash
+     */
+    static long hash(String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * Combines two hashes.
+     *
+     * @param hash hash so far
+     * @param value hash to add
+     * @return combined hash
+     */
+    static long combine(long hash, long value) {
+        return mix(hash * 31 + value);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    /**
+     * A sitemap document's content hash, source hash and the date it last changed.
+     */
+    private static final class Document {
+
+        private final long hash;
+        private final long sourceHash;
+        private final int changed;
+
+        private Document(long hash, long sourceHash, int changed) {
+            this.hash = hash;
+            this.sourceHash = sourceHash;
+            this.changed = changed;
+        }
+    }
+}
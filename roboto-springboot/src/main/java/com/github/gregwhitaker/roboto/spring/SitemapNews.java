@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A news article, listed in the sitemap with the Google news sitemap extension.
+ */
+public class SitemapNews {
+
+    private final String publicationName;
+    private final String language;
+    private final OffsetDateTime publicationDate;
+    private final String title;
+
+    /**
+     * Creates a news entry.
+     *
+     * @param publicationName name of the news publication
+     * @param language ISO 639 language code of the publication, such as <code>en</code>
+     * @param publicationDate date the article was first published
+     * @param title title of the article
+     */
+    public SitemapNews(String publicationName, String language, OffsetDateTime publicationDate, String title) {
+        this.publicationName = publicationName;
+        this.language = language;
+        this.publicationDate = publicationDate;
+        this.title = title;
+    }
+
+    public String getPublicationName() {
+        return publicationName;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public OffsetDateTime getPublicationDate() {
+        return publicationDate;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+}
@@ -16,116 +16,54 @@
 
 package com.github.gregwhitaker.roboto.spring;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import javax.servlet.http.HttpServletRequest;
-import javax.xml.bind.annotation.XmlAccessType;
-import javax.xml.bind.annotation.XmlAccessorType;
-import javax.xml.bind.annotation.XmlElement;
-import javax.xml.bind.annotation.XmlElements;
-import javax.xml.bind.annotation.XmlRootElement;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.function.LongFunction;
 
 /**
- * Builds a sitemap.xml response based on the supplied {@link RobotoMapper}.
+ * Builds a sitemap.xml response using the supplied {@link SitemapGenerator}.
  */
 public class SitemapResponse {
-    private static final Logger LOGGER = LoggerFactory.getLogger(SitemapResponse.class);
-    private static final Map<RobotoMapper, XmlUrlSet> CACHE = new HashMap<>();
+    public static final String DOCUMENT = "sitemap.xml";
 
     /**
+     * Creates a sitemap.xml file for the base url of a cache key created by
+     * {@link RobotoHosts#createKey(SitemapGenerator, String, String, int, String)}. The file is rendered once per key
+     * and reused for subsequent requests.
      *
-     * @param request
-     * @param mapper
-     * @return
+     * @param cache document cache
+     * @param key cache key of the sitemap.xml file
+     * @param generator sitemap generator
+     * @return rendered sitemap.xml file, which is a sitemap index if the sitemap has been split into shards
      */
-    public static XmlUrlSet create(HttpServletRequest request, RobotoMapper mapper) {
-        return CACHE.computeIfAbsent(mapper, sitemap -> {
-            Set<String> allowed = mapper.getAllowed();
-
-            XmlUrlSet xmlUrlSet = new XmlUrlSet();
-
-            try {
-                URI uri = new URI(request.getRequestURL().toString());
-
-                for (String path : allowed) {
-                    StringBuilder builder = new StringBuilder();
-                    builder.append(uri.getScheme())
-                            .append("://")
-                            .append(uri.getHost())
-                            .append(":")
-                            .append(uri.getPort())
-                            .append(path);
-
-                    xmlUrlSet.addUrl(new XmlUrl(builder.toString()));
-                }
-
-                return xmlUrlSet;
-            } catch (URISyntaxException e) {
-                LOGGER.error("Failed to create sitemap.xml", e);
-                throw new RuntimeException(e);
-            }
-        });
+    public static RobotoDocument create(RobotoCache cache, RobotoCache.Key key, SitemapGenerator generator) {
+        return cache.get(key, previous -> rerender(previous, hash -> generator.render(key.getBaseUrl(), hash)));
     }
 
-    @XmlAccessorType(value = XmlAccessType.NONE)
-    @XmlRootElement(name = "urlset", namespace = "http://www.sitemaps.org/schemas/sitemap/0.9")
-    public static class XmlUrlSet {
-
-        @XmlElements({@XmlElement(name = "url", type = XmlUrl.class)})
-        private Collection<XmlUrl> xmlUrls = new ArrayList<>();
-
-        public void addUrl(XmlUrl xmlUrl) {
-            xmlUrls.add(xmlUrl);
-        }
-
-        public Collection<XmlUrl> getXmlUrls() {
-            return xmlUrls;
-        }
+    /**
+     * Creates a single shard of a sitemap that has been split into shards, for the base url of a cache key. Each
+     * shard is cached on its own.
+     *
+     * @param cache document cache
+     * @param key cache key of the shard
+     * @param generator sitemap generator
+     * @param shard shard number, starting at 1
+     * @return rendered sitemap shard
+     * @throws IllegalArgumentException if the shard does not exist
+     */
+    public static RobotoDocument createShard(RobotoCache cache, RobotoCache.Key key, SitemapGenerator generator, int shard) {
+        return cache.get(key, previous -> rerender(previous, hash -> generator.renderShard(key.getBaseUrl(), shard, hash)));
     }
 
-    @XmlAccessorType(value = XmlAccessType.NONE)
-    @XmlRootElement(name = "url")
-    public static class XmlUrl {
-
-        private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-
-        @XmlElement
-        private String loc;
-
-        @XmlElement
-        private String lastmod = sdf.format(new Date());
-
-        @XmlElement
-        private String changefreq = "monthly";
-
-        public XmlUrl() {
-
-        }
-
-        public XmlUrl(String loc) {
-            this.loc = loc;
-        }
-
-        public String getLoc() {
-            return loc;
-        }
-
-        public String getChangefreq() {
-            return changefreq;
-        }
+    /**
+     * Renders a sitemap document, keeping its previous rendering if the urls it lists have not changed.
+     *
+     * @param previous previous rendering, or <code>null</code> if there is none
+     * @param renderer renders the document given the source hash of the previous rendering, returning
+     *                 <code>null</code> if it has not changed
+     * @return rendered document
+     */
+    public static RobotoDocument rerender(RobotoDocument previous, LongFunction<RobotoDocument> renderer) {
+        RobotoDocument document = renderer.apply(previous != null ? previous.getSourceHash() : 0);
 
-        public String getLastmod() {
-            return lastmod;
-        }
+        return document != null ? document : previous;
     }
 }
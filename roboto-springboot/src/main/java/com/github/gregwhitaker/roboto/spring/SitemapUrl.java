@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.time.LocalDate;
+
+/**
+ * A single sitemap entry supplied by a {@link SitemapUrlProvider}.
+ */
+public class SitemapUrl {
+
+    private final String path;
+    private final LocalDate lastmod;
+    private final String changefreq;
+    private final Double priority;
+    private final String version;
+
+    /**
+     * Creates an entry without optional metadata.
+     *
+     * @param path path of the url, relative to the base url of the application
+     */
+    public SitemapUrl(String path) {
+        this(path, null, null, null);
+    }
+
+    /**
+     * Creates an entry.
+     *
+     * @param path path of the url, relative to the base url of the application
+     * @param lastmod date the page was last modified, or <code>null</code> to omit it
+     * @param changefreq how frequently the page changes, such as <code>daily</code>, or <code>null</code> to omit it
+     * @param priority priority of the page between 0.0 and 1.0, or <code>null</code> to omit it
+     */
+    public SitemapUrl(String path, LocalDate lastmod, String changefreq, Double priority) {
+        this(path, lastmod, changefreq, priority, null);
+    }
+
+    /**
+     * Creates an entry with a content version. For entries without a lastmod date, the date the version last changed
+     * is published instead.
+     *
+     * @param path path of the url, relative to the base url of the application
+     * @param lastmod date the page was last modified, or <code>null</code> to use the date its version last changed
+     * @param changefreq how frequently the page changes, such as <code>daily</code>, or <code>null</code> to omit it
+     * @param priority priority of the page between 0.0 and 1.0, or <code>null</code> to omit it
+     * @param version version of the page content, such as a revision number or content hash, or <code>null</code>
+     */
+    public SitemapUrl(String path, LocalDate lastmod, String changefreq, Double priority, String version) {
+        this.path = path;
+        this.lastmod = lastmod;
+        this.changefreq = changefreq;
+        this.priority = priority;
+        this.version = version;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public LocalDate getLastmod() {
+        return lastmod;
+    }
+
+    public String getChangefreq() {
+        return changefreq;
+    }
+
+    public Double getPriority() {
+        return priority;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+}
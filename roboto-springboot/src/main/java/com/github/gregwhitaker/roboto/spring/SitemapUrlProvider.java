@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.util.List;
+
+/**
+ * Enumerates the concrete urls of a parameterized handler method for the sitemap, such as one url per product for
+ * <code>/product/{id}</code>. Implementations are registered as beans and bound to handler methods with
+ * {@link com.github.gregwhitaker.roboto.spring.annotation.SitemapUrls}.
+ *
+ * Urls are requested one page at a time while the sitemap is being written, so implementations should read them
+ * from their data store page by page rather than loading them all at once.
+ */
+public interface SitemapUrlProvider {
+
+    /**
+     * Gets the total number of urls, used to split the sitemap into shards.
+     *
+     * @return number of urls
+     */
+    long count();
+
+    /**
+     * Gets a page of urls. Urls must be returned in a stable order so that pages do not overlap.
+     *
+     * @param offset index of the first url to return
+     * @param limit maximum number of urls to return
+     * @return urls, or an empty list if there are no more urls
+     */
+    List<SitemapUrl> getUrls(long offset, int limit);
+}
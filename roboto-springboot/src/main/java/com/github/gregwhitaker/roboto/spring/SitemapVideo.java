@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A video embedded in a page, listed in the sitemap with the Google video sitemap extension.
+ */
+public class SitemapVideo {
+
+    private final String thumbnailLoc;
+    private final String title;
+    private final String description;
+    private final String contentLoc;
+    private final String playerLoc;
+    private final Integer duration;
+    private final OffsetDateTime publicationDate;
+
+    /**
+     * Creates a video entry. Either a content location or a player location is required.
+     *
+     * @param thumbnailLoc url of the video thumbnail
+     * @param title title of the video
+     * @param description description of the video
+     * @param contentLoc url of the video media file, or <code>null</code> to omit it
+     * @param playerLoc url of the video player, or <code>null</code> to omit it
+     * @param duration duration of the video in seconds, or <code>null</code> to omit it
+     * @param publicationDate date the video was first published, or <code>null</code> to omit it
+     */
+    public SitemapVideo(String thumbnailLoc, String title, String description, String contentLoc, String playerLoc,
+                        Integer duration, OffsetDateTime publicationDate) {
+        if (contentLoc == null && playerLoc == null) {
+            throw new IllegalArgumentException("Video '" + title + "' requires a content location or a player location");
+        }
+
+        this.thumbnailLoc = thumbnailLoc;
+        this.title = title;
+        this.description = description;
+        this.contentLoc = contentLoc;
+        this.playerLoc = playerLoc;
+        this.duration = duration;
+        this.publicationDate = publicationDate;
+    }
+
+    public String getThumbnailLoc() {
+        return thumbnailLoc;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getContentLoc() {
+        return contentLoc;
+    }
+
+    public String getPlayerLoc() {
+        return playerLoc;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public OffsetDateTime getPublicationDate() {
+        return publicationDate;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams sitemap urlsets and sitemap indexes to an {@link OutputStream} one entry at a time, so that memory use
+ * does not grow with the number of urls written.
+ *
+ * Urlsets can list the images, videos and news articles of each url with the Google sitemap extensions.
+ *
+ * Usage:
+ * <pre>
+ * try (SitemapWriter writer = new SitemapWriter(out)) {
+ *     writer.startUrlSet();
+ *     writer.writeUrl(loc, lastmod, "monthly");
+ * }
+ * </pre>
+ */
+public class SitemapWriter implements AutoCloseable {
+    public static final String NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+    public static final String IMAGE_NAMESPACE = "http://www.google.com/schemas/sitemap-image/1.1";
+    public static final String VIDEO_NAMESPACE = "http://www.google.com/schemas/sitemap-video/1.1";
+    public static final String NEWS_NAMESPACE = "http://www.google.com/schemas/sitemap-news/0.9";
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final DateTimeFormatter LASTMOD_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final DateTimeFormatter PUBLICATION_DATE_FORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private final XMLStreamWriter xml;
+
+    public SitemapWriter(OutputStream out) throws XMLStreamException {
+        this.xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+        this.xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+    }
+
+    /**
+     * Formats a date as a sitemap lastmod value.
+     *
+     * @param date date to format
+     * @return formatted date
+     */
+    public static String formatLastmod(LocalDate date) {
+        return LASTMOD_FORMAT.format(date);
+    }
+
+    /**
+     * Starts a urlset. Must be called once, before any urls are written.
+     *
+     * @throws XMLStreamException if the element could not be written
+     */
+    public void startUrlSet() throws XMLStreamException {
+        startUrlSet(false);
+    }
+
+    /**
+     * Starts a urlset. Must be called once, before any urls are written.
+     *
+     * @param extensions whether to declare the image, video and news namespaces, which is required for writing
+     *                   urls with extensions
+     * @throws XMLStreamException if the element could not be written
+     */
+    public void startUrlSet(boolean extensions) throws XMLStreamException {
+        startRoot("urlset");
+
+        if (extensions) {
+            declareNamespace("image", IMAGE_NAMESPACE);
+            declareNamespace("video", VIDEO_NAMESPACE);
+            declareNamespace("news", NEWS_NAMESPACE);
+        }
+    }
+
+    /**
+     * Starts a sitemap index. Must be called once, before any sitemaps are written.
+     *
+     * @throws XMLStreamException if the element could not be written
+     */
+    public void startSitemapIndex() throws XMLStreamException {
+        startRoot("sitemapindex");
+    }
+
+    /**
+     * Writes a url entry of a urlset.
+     *
+     * @param loc absolute url
+     * @param lastmod last modification date, or <code>null</code> to omit it
+     * @param changefreq change frequency, or <code>null</code> to omit it
+     * @throws XMLStreamException if the entry could not be written
+     */
+    public void writeUrl(String loc, String lastmod, String changefreq) throws XMLStreamException {
+        writeUrl(loc, lastmod, changefreq, null);
+    }
+
+    /**
+     * Writes a url entry of a urlset.
+     *
+     * @param loc absolute url
+     * @param lastmod last modification date, or <code>null</code> to omit it
+     * @param changefreq change frequency, or <code>null</code> to omit it
+     * @param priority priority between 0.0 and 1.0, or <code>null</code> to omit it
+     * @throws XMLStreamException if the entry could not be written
+     */
+    public void writeUrl(String loc, String lastmod, String changefreq, Double priority) throws XMLStreamException {
+        writeUrl(loc, lastmod, changefreq, priority, null);
+    }
+
+    /**
+     * Writes a url entry of a urlset along with its images, videos and news article. The urlset must have been
+     * started with extensions enabled.
+     *
+     * @param loc absolute url
+     * @param lastmod last modification date, or <code>null</code> to omit it
+     * @param changefreq change frequency, or <code>null</code> to omit it
+     * @param priority priority between 0.0 and 1.0, or <code>null</code> to omit it
+     * @param extensions images, videos and news article of the url with absolute urls, or <code>null</code> if it
+     *                   has none
+     * @throws XMLStreamException if the entry could not be written
+     */
+    public void writeUrl(String loc, String lastmod, String changefreq, Double priority, SitemapExtensions extensions) throws XMLStreamException {
+        xml.writeStartElement("url");
+        writeElement("loc", loc);
+        writeElement("lastmod", lastmod);
+        writeElement("changefreq", changefreq);
+        writeElement("priority", priority != null ? priority.toString() : null);
+
+        if (extensions != null) {
+            writeExtensions(extensions);
+        }
+
+        xml.writeEndElement();
+    }
+
+    /**
+     * Writes a sitemap entry of a sitemap index.
+     *
+     * @param loc absolute url of the sitemap
+     * @param lastmod last modification date, or <code>null</code> to omit it
+     * @throws XMLStreamException if the entry could not be written
+     */
+    public void writeSitemap(String loc, String lastmod) throws XMLStreamException {
+        xml.writeStartElement("sitemap");
+        writeElement("loc", loc);
+        writeElement("lastmod", lastmod);
+        xml.writeEndElement();
+    }
+
+    /**
+     * Ends the document and flushes it to the underlying stream. The underlying stream is not closed.
+     *
+     * @throws XMLStreamException if the document could not be completed
+     */
+    @Override
+    public void close() throws XMLStreamException {
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+    }
+
+    private void writeExtensions(SitemapExtensions extensions) throws XMLStreamException {
+        for (String image : extensions.getImages()) {
+            xml.writeStartElement(IMAGE_NAMESPACE, "image");
+            writeElement(IMAGE_NAMESPACE, "loc", image);
+            xml.writeEndElement();
+        }
+
+        for (SitemapVideo video : extensions.getVideos()) {
+            xml.writeStartElement(VIDEO_NAMESPACE, "video");
+            writeElement(VIDEO_NAMESPACE, "thumbnail_loc", video.getThumbnailLoc());
+            writeElement(VIDEO_NAMESPACE, "title", video.getTitle());
+            writeElement(VIDEO_NAMESPACE, "description", video.getDescription());
+            writeElement(VIDEO_NAMESPACE, "content_loc", video.getContentLoc());
+            writeElement(VIDEO_NAMESPACE, "player_loc", video.getPlayerLoc());
+            writeElement(VIDEO_NAMESPACE, "duration", video.getDuration() != null ? video.getDuration().toString() : null);
+            writeElement(VIDEO_NAMESPACE, "publication_date", formatPublicationDate(video.getPublicationDate()));
+            xml.writeEndElement();
+        }
+
+        SitemapNews news = extensions.getNews();
+        if (news != null) {
+            xml.writeStartElement(NEWS_NAMESPACE, "news");
+            xml.writeStartElement(NEWS_NAMESPACE, "publication");
+            writeElement(NEWS_NAMESPACE, "name", news.getPublicationName());
+            writeElement(NEWS_NAMESPACE, "language", news.getLanguage());
+            xml.writeEndElement();
+            writeElement(NEWS_NAMESPACE, "publication_date", formatPublicationDate(news.getPublicationDate()));
+            writeElement(NEWS_NAMESPACE, "title", news.getTitle());
+            xml.writeEndElement();
+        }
+    }
+
+    private static String formatPublicationDate(OffsetDateTime date) {
+        return date != null ? PUBLICATION_DATE_FORMAT.format(date) : null;
+    }
+
+    private void startRoot(String name) throws XMLStreamException {
+        xml.setDefaultNamespace(NAMESPACE);
+        xml.writeStartElement(NAMESPACE, name);
+        xml.writeDefaultNamespace(NAMESPACE);
+    }
+
+    private void declareNamespace(String prefix, String namespace) throws XMLStreamException {
+        xml.setPrefix(prefix, namespace);
+        xml.writeNamespace(prefix, namespace);
+    }
+
+    private void writeElement(String name, String value) throws XMLStreamException {
+        writeElement(NAMESPACE, name, value);
+    }
+
+    private void writeElement(String namespace, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeStartElement(namespace, name);
+            xml.writeCharacters(value);
+            xml.writeEndElement();
+        }
+    }
+}
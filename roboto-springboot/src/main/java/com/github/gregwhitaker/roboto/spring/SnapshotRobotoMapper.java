@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.info.BuildProperties;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * {@link RobotoMapper} loaded from a snapshot of another mapper, so that restarts of the same build skip mapping
+ * endpoints and computing the robots.txt rules.
+ *
+ * Snapshots are UTF-8 text files holding the entries of a Roboto index, followed by the robots.txt rules, after a
+ * header identifying the build they were taken from:
+ * <pre>
+ * roboto-snapshot &lt;format version&gt; &lt;fingerprint&gt;
+ * allow    &lt;path&gt;
+ * disallow &lt;user agent&gt; &lt;path&gt;
+ * provider &lt;SitemapUrlProvider class&gt;
+ * crawl-delay &lt;user agent&gt; &lt;seconds&gt;
+ * group &lt;user agent&gt;
+ * rule  &lt;path&gt;
+ * </pre>
+ * where the fields are separated by a single tab character and rules belong to the group above them. A snapshot is
+ * only loaded when its fingerprint matches the running build.
+ */
+public class SnapshotRobotoMapper extends IndexRobotoMapper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotRobotoMapper.class);
+
+    private static final String HEADER = "roboto-snapshot\t1\t";
+
+    private SnapshotRobotoMapper(ClassLoader classLoader, List<String> entries, Map<String, Set<String>> robotsRules) {
+        super(classLoader, entries);
+        setRobotsRules(robotsRules);
+    }
+
+    /**
+     * Loads a snapshot if it was taken from the running build.
+     *
+     * @param file snapshot file
+     * @param fingerprint fingerprint of the running build
+     * @param classLoader class loader used to load sitemap url providers
+     * @return the mapper, or <code>null</code> if there is no snapshot or it was taken from a different build
+     * @throws IOException if the snapshot could not be read
+     */
+    public static SnapshotRobotoMapper load(Path file, String fingerprint, ClassLoader classLoader) throws IOException {
+        if (!Files.exists(file)) {
+            LOGGER.info("No Roboto snapshot found at {}", file);
+            return null;
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(HEADER + fingerprint)) {
+            LOGGER.info("Roboto snapshot at {} was taken from a different build", file);
+            return null;
+        }
+
+        List<String> entries = new ArrayList<>();
+        Map<String, Set<String>> robotsRules = new LinkedHashMap<>();
+        Set<String> group = null;
+
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split("\t");
+
+            if (fields.length == 2 && fields[0].equals("group")) {
+                group = new LinkedHashSet<>();
+                robotsRules.put(fields[1], group);
+            } else if (fields.length == 2 && fields[0].equals("rule") && group != null) {
+                group.add(fields[1]);
+            } else {
+                entries.add(line);
+            }
+        }
+
+        LOGGER.info("Loading Roboto snapshot from {}", file);
+        return new SnapshotRobotoMapper(classLoader, entries, robotsRules);
+    }
+
+    /**
+     * Writes a snapshot of a mapper, computing its robots.txt rules if they have not been computed yet. The file is
+     * replaced atomically, so instances starting at the same time never read a partial snapshot.
+     *
+     * @param mapper mapper to snapshot
+     * @param file snapshot file
+     * @param fingerprint fingerprint of the running build
+     * @throws IOException if the snapshot could not be written
+     */
+    public static void save(RobotoMapper mapper, Path file, String fingerprint) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writeLine(writer, HEADER + fingerprint);
+
+                for (String path : mapper.getSortedAllowed()) {
+                    writeLine(writer, "allow\t" + path);
+                }
+
+                for (Map.Entry<String, Set<String>> entry : new TreeMap<>(mapper.getDisallowed()).entrySet()) {
+                    for (String path : new TreeSet<>(entry.getValue())) {
+                        writeLine(writer, "disallow\t" + entry.getKey() + "\t" + path);
+                    }
+                }
+
+                // Providers are written in the order they were found, which is the order of the sitemap shards
+                for (Class<? extends SitemapUrlProvider> provider : mapper.getSitemapUrlProviders()) {
+                    writeLine(writer, "provider\t" + provider.getName());
+                }
+
+                for (Map.Entry<String, Integer> entry : new TreeMap<>(mapper.getCrawlDelays()).entrySet()) {
+                    writeLine(writer, "crawl-delay\t" + entry.getKey() + "\t" + entry.getValue());
+                }
+
+                for (Map.Entry<String, Set<String>> entry : mapper.getRobotsRules().entrySet()) {
+                    writeLine(writer, "group\t" + entry.getKey());
+
+                    for (String rule : entry.getValue()) {
+                        writeLine(writer, "rule\t" + rule);
+                    }
+                }
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        LOGGER.info("Saved Roboto snapshot to {}", file);
+    }
+
+    /**
+     * Gets a fingerprint of the running build from its build information, which Spring Boot reads from
+     * <code>META-INF/build-info.properties</code>.
+     *
+     * @param buildProperties build information, or <code>null</code> if there is none
+     * @return the fingerprint, or <code>null</code> if the build cannot be identified
+     */
+    public static String getFingerprint(BuildProperties buildProperties) {
+        if (buildProperties == null || buildProperties.getTime() == null) {
+            return null;
+        }
+
+        return buildProperties.getGroup() + ":" + buildProperties.getArtifact() + ":" + buildProperties.getVersion() +
+                ":" + buildProperties.getTime().toEpochMilli();
+    }
+
+    private static void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only list of the urls of a sitemap being rendered. Up to a limit the urls are kept in memory. Beyond it they
+ * are written to a temporary file of length-prefixed UTF-8 records and read back one page at a time, so that memory
+ * use does not grow with the number of urls in a shard.
+ */
+final class UrlSpool implements Closeable {
+    private static final long NO_LASTMOD = Long.MIN_VALUE;
+
+    private final Path directory;
+    private final int memoryLimit;
+    private final List<SitemapUrl> urls = new ArrayList<>();
+    private Path file;
+    private DataOutputStream out;
+    private int size;
+
+    /**
+     * Creates a spool.
+     *
+     * @param directory directory the spool file is created in, or <code>null</code> for the default temporary
+     *                  directory
+     * @param memoryLimit number of urls kept in memory before they are written to a file
+     */
+    UrlSpool(Path directory, int memoryLimit) {
+        this.directory = directory;
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Adds a url to the end of the spool.
+     *
+     * @param url url to add
+     */
+    void add(SitemapUrl url) {
+        size++;
+
+        if (file == null) {
+            urls.add(url);
+
+            if (urls.size() > memoryLimit) {
+                spill();
+            }
+
+            return;
+        }
+
+        try {
+            write(url);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to " + file, e);
+        }
+    }
+
+    /**
+     * Moves the urls kept in memory to a new spool file.
+     */
+    private void spill() {
+        try {
+            file = directory != null ? Files.createTempFile(Files.createDirectories(directory), "urls-", ".spool") :
+                    Files.createTempFile("urls-", ".spool");
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+
+            for (SitemapUrl url : urls) {
+                write(url);
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Failed to create a url spool in " +
+                    (directory != null ? directory : "the temporary directory"), e);
+        }
+
+        urls.clear();
+    }
+
+    /**
+     * Opens a reader that returns the urls in the order they were added. No urls may be added afterwards.
+     *
+     * @return reader
+     */
+    Reader read() {
+        if (file == null) {
+            return new Reader(null);
+        }
+
+        try {
+            out.close();
+            return new Reader(new DataInputStream(new BufferedInputStream(Files.newInputStream(file))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        }
+    }
+
+    /**
+     * Deletes the spool file, if there is one.
+     */
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            if (out != null) {
+                out.close();
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + file, e);
+        }
+    }
+
+    private void write(SitemapUrl url) throws IOException {
+        writeString(url.getPath());
+        out.writeLong(url.getLastmod() != null ? url.getLastmod().toEpochDay() : NO_LASTMOD);
+        writeString(url.getChangefreq());
+        out.writeDouble(url.getPriority() != null ? url.getPriority() : Double.NaN);
+        writeString(url.getVersion());
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the urls of a spool one page at a time.
+     */
+    final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private int position;
+
+        private Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads the next page of urls.
+         *
+         * @param limit maximum number of urls to read
+         * @return urls, or an empty list if all urls have been read
+         */
+        List<SitemapUrl> read(int limit) {
+            int count = Math.min(limit, size - position);
+            if (count <= 0) {
+                return Collections.emptyList();
+            }
+
+            position += count;
+            if (in == null) {
+                return urls.subList(position - count, position);
+            }
+
+            try {
+                List<SitemapUrl> page = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String path = readString();
+                    long lastmod = in.readLong();
+                    String changefreq = readString();
+                    double priority = in.readDouble();
+                    String version = readString();
+
+                    page.add(new SitemapUrl(path, lastmod != NO_LASTMOD ? LocalDate.ofEpochDay(lastmod) : null,
+                            changefreq, Double.isNaN(priority) ? null : priority, version));
+                }
+
+                return page;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (in == null) {
+                return;
+            }
+
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close " + file, e);
+            }
+        }
+
+        private String readString() throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds the user agent group a User-Agent header belongs to, the same way crawlers pick the group of robots.txt
+ * rules they obey. A crawler obeys the group its User-Agent header names, and otherwise the group for all user
+ * agents. Requests that name no group are only considered crawlers if their User-Agent header contains one of the
+ * crawler identifiers, so that browsers are never matched.
+ *
+ * Matching does not allocate, as it runs on every request.
+ */
+final class UserAgentMatcher {
+    static final String ALL_USER_AGENTS = "*";
+
+    /**
+     * Returned when the User-Agent header only identifies a crawler, which obeys the group for all user agents.
+     */
+    static final int CRAWLER = -1;
+
+    /**
+     * Returned when the User-Agent header does not identify a crawler.
+     */
+    static final int NONE = -2;
+
+    /**
+     * Orders user agents from most to least specific, that is from longest to shortest.
+     */
+    static final Comparator<String> SPECIFICITY = Comparator.comparingInt(String::length).reversed()
+            .thenComparing(Comparator.naturalOrder());
+
+    private static final int[] NO_TOKENS = new int[0];
+
+    private final int userAgentCount;
+
+    /**
+     * Lower case user agent names, from most to least specific, followed by the crawler identifiers.
+     */
+    private final String[] tokens;
+
+    /**
+     * Indexes of the tokens starting with each ASCII character, so that most characters of a User-Agent header
+     * are skipped with a single lookup.
+     */
+    private final int[][] tokensByFirstChar = new int[128][];
+    private final int[] nonAsciiTokens;
+
+    /**
+     * Creates a matcher.
+     *
+     * @param userAgents non-empty user agent names, ordered by {@link #SPECIFICITY}
+     * @param crawlerUserAgents User-Agent substrings, such as <code>bot</code>, that identify a crawler; empty if
+     *                          requests that name no group should never match
+     */
+    UserAgentMatcher(List<String> userAgents, Collection<String> crawlerUserAgents) {
+        List<String> allTokens = new ArrayList<>();
+        for (String userAgent : userAgents) {
+            allTokens.add(userAgent.toLowerCase(Locale.ROOT));
+        }
+
+        this.userAgentCount = allTokens.size();
+
+        for (String crawlerUserAgent : crawlerUserAgents) {
+            if (!crawlerUserAgent.isEmpty()) {
+                allTokens.add(crawlerUserAgent.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        this.tokens = allTokens.toArray(new String[0]);
+
+        for (char c = 0; c < tokensByFirstChar.length; c++) {
+            tokensByFirstChar[c] = getTokensStartingWith(c);
+        }
+        this.nonAsciiTokens = getTokensStartingWith((char) 128);
+    }
+
+    /**
+     * Finds the group a user agent belongs to. The User-Agent header is scanned once, looking for all user agent
+     * names and crawler identifiers at the same time.
+     *
+     * @param userAgent User-Agent header
+     * @return index of the named user agent, {@link #CRAWLER} or {@link #NONE}
+     */
+    int match(String userAgent) {
+        int match = tokens.length;
+
+        for (int i = 0; i < userAgent.length(); i++) {
+            char c = toLowerCase(userAgent.charAt(i));
+
+            for (int token : c < 128 ? tokensByFirstChar[c] : nonAsciiTokens) {
+                // Tokens are ordered by precedence, so only ones before the current match need to be checked
+                if (token < match && userAgent.regionMatches(true, i + 1, tokens[token], 1, tokens[token].length() - 1)) {
+                    match = token;
+                }
+            }
+
+            if (match == 0) {
+                break;
+            }
+        }
+
+        if (match < userAgentCount) {
+            return match;
+        }
+
+        return match < tokens.length ? CRAWLER : NONE;
+    }
+
+    /**
+     * Gets the indexes of the tokens starting with a character.
+     *
+     * @param c lower case character, or <code>128</code> for all non-ASCII characters
+     * @return token indexes, in order
+     */
+    private int[] getTokensStartingWith(char c) {
+        List<Integer> indexes = new ArrayList<>();
+
+        for (int i = 0; i < tokens.length; i++) {
+            char first = tokens[i].charAt(0);
+
+            if (c < 128 ? first == c : first >= 128) {
+                indexes.add(i);
+            }
+        }
+
+        if (indexes.isEmpty()) {
+            return NO_TOKENS;
+        }
+
+        int[] result = new int[indexes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexes.get(i);
+        }
+
+        return result;
+    }
+
+    private static char toLowerCase(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+
+        return Character.toLowerCase(c);
+    }
+}
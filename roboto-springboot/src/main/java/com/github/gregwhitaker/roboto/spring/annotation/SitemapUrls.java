@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring.annotation;
+
+import com.github.gregwhitaker.roboto.spring.SitemapUrlProvider;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a {@link SitemapUrlProvider} bean to a handler method with a parameterized path, such as
+ * <code>/product/{id}</code>. The concrete urls enumerated by the provider are added to the sitemap in place of
+ * the path template.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD })
+@RobotoAnnotation
+public @interface SitemapUrls {
+
+    /**
+     * Type of the {@link SitemapUrlProvider} bean that enumerates the urls of the handler method.
+     */
+    Class<? extends SitemapUrlProvider> value();
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class CrawlRateLimiterTest {
+    private static final String CRAWLER = "Mozilla/5.0 (compatible; Googlebot/2.1)";
+    private static final String BINGBOT = "Mozilla/5.0 (compatible; bingbot/2.0)";
+    private static final String BROWSER = "Mozilla/5.0 (X11; Linux x86_64) Firefox/60.0";
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Set<String>> groups = new HashMap<>();
+    private final Map<String, Integer> crawlDelays = new HashMap<>();
+    private long now = 1_000 * SECOND;
+
+    @Before
+    public void setUp() {
+        groups.put("*", Collections.singleton("/private"));
+        crawlDelays.put("*", 10);
+    }
+
+    @Test
+    public void allowsABurstThenOneRequestPerCrawlDelay() {
+        CrawlRateLimiter limiter = create(3);
+
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(10 * SECOND, limiter.acquire(CRAWLER, "10.0.0.1"));
+
+        now += 4 * SECOND;
+        assertEquals(6 * SECOND, limiter.acquire(CRAWLER, "10.0.0.1"));
+
+        // One token is back after exactly one crawl delay, and only one
+        now += 6 * SECOND;
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(10 * SECOND, limiter.acquire(CRAWLER, "10.0.0.1"));
+
+        now += 10 * SECOND - 1;
+        assertEquals(1, limiter.acquire(CRAWLER, "10.0.0.1"));
+        now += 1;
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+    }
+
+    @Test
+    public void refillsUpToTheBurstOnly() {
+        CrawlRateLimiter limiter = create(2);
+
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+
+        now += 3_600 * SECOND;
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(10 * SECOND, limiter.acquire(CRAWLER, "10.0.0.1"));
+    }
+
+    @Test
+    public void limitsEachCrawlerByItself() {
+        crawlDelays.put("bingbot", 10);
+        CrawlRateLimiter limiter = create(1);
+
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(10 * SECOND, limiter.acquire(CRAWLER, "10.0.0.1"));
+
+        // Every other address and group has a bucket of its own, however many crawlers there are
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(0, limiter.acquire(CRAWLER, "10.1." + (i / 256) + "." + (i % 256)));
+        }
+        assertEquals(0, limiter.acquire(BINGBOT, "10.0.0.1"));
+    }
+
+    @Test
+    public void usesTheCrawlDelayOfTheMostSpecificGroup() {
+        crawlDelays.put("bingbot", 30);
+        CrawlRateLimiter limiter = create(1);
+
+        assertEquals(0, limiter.acquire(BINGBOT, "10.0.0.1"));
+        assertEquals(30 * SECOND, limiter.acquire(BINGBOT, "10.0.0.1"));
+    }
+
+    @Test
+    public void doesNotLimitGroupsWithoutACrawlDelay() {
+        groups.put("bingbot", Collections.singleton("/private"));
+        CrawlRateLimiter limiter = create(1);
+
+        assertEquals(0, limiter.acquire(BINGBOT, "10.0.0.1"));
+        assertEquals(0, limiter.acquire(BINGBOT, "10.0.0.1"));
+    }
+
+    @Test
+    public void doesNotLimitBrowsers() {
+        CrawlRateLimiter limiter = create(1);
+
+        assertEquals(0, limiter.acquire(BROWSER, "10.0.0.1"));
+        assertEquals(0, limiter.acquire(BROWSER, "10.0.0.1"));
+        assertEquals(0, limiter.acquire(null, "10.0.0.1"));
+    }
+
+    @Test
+    public void dropsFullBucketsWhenEveryBucketIsInUse() {
+        CrawlRateLimiter limiter = CrawlRateLimiter.create(groups, crawlDelays, Arrays.asList("bot"), 1, 2,
+                () -> now);
+
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.2"));
+
+        // New crawlers are let through rather than sharing a bucket
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.3"));
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.3"));
+        assertEquals(10 * SECOND, limiter.acquire(CRAWLER, "10.0.0.1"));
+        assertEquals(2, limiter.size());
+
+        now += 10 * SECOND;
+        assertEquals(0, limiter.acquire(CRAWLER, "10.0.0.3"));
+        assertEquals(10 * SECOND, limiter.acquire(CRAWLER, "10.0.0.3"));
+        assertEquals(1, limiter.size());
+    }
+
+    private CrawlRateLimiter create(int burst) {
+        return CrawlRateLimiter.create(groups, crawlDelays, Arrays.asList("bot"), burst,
+                CrawlRateLimiter.MAX_BUCKETS, () -> now);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import com.github.gregwhitaker.roboto.spring.annotation.DisallowRobots;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class HandlerMappingRobotoMapperTest {
+
+    private final GenericApplicationContext context = new GenericApplicationContext();
+
+    @Before
+    public void refresh() {
+        AutoConfigurationPackages.register(context, getClass().getPackage().getName());
+        context.registerBean(RequestMappingHandlerMapping.class);
+        context.registerBean(ShopController.class);
+        context.registerBean(AdminController.class);
+        context.refresh();
+    }
+
+    @After
+    public void close() {
+        context.close();
+    }
+
+    @Test
+    public void mapsTheRegisteredGetEndpointsWithTheirClassPrefixes() {
+        RobotoMapper mapper = new HandlerMappingRobotoMapper(context, context.getBean(RequestMappingHandlerMapping.class));
+
+        assertEquals(new HashSet<>(Arrays.asList("/shop/products", "/shop/products/{id}")), mapper.getAllowed());
+        assertEquals(new HashSet<>(Arrays.asList("*", "BadBot")), mapper.getDisallowed().keySet());
+        assertEquals(new HashSet<>(Arrays.asList("/shop/cart", "/admin/users")), mapper.getDisallowed().get("*"));
+        assertEquals(Collections.singleton("/shop/search"), mapper.getDisallowed().get("BadBot"));
+    }
+
+    @Controller
+    @RequestMapping("/shop")
+    static class ShopController {
+
+        @GetMapping("/products")
+        public String products() {
+            return "products";
+        }
+
+        @GetMapping(path = "/products/{id}")
+        public String product() {
+            return "product";
+        }
+
+        @DisallowRobots
+        @GetMapping("/cart")
+        public String cart() {
+            return "cart";
+        }
+
+        @DisallowRobots(userAgents = "BadBot")
+        @GetMapping("/search")
+        public String search() {
+            return "search";
+        }
+
+        @PostMapping("/orders")
+        public String order() {
+            return "order";
+        }
+    }
+
+    @Controller
+    @DisallowRobots
+    @RequestMapping("/admin")
+    static class AdminController {
+
+        @GetMapping("/users")
+        public String users() {
+            return "users";
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexRobotoMapperTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadsEveryIndexOnTheClasspath() throws Exception {
+        File app = index("allow\t/products", "disallow\t*\t/cart", "", "unknown\tentry");
+        File library = index("allow\t/help", "disallow\tBadBot\t/search");
+
+        try (URLClassLoader classLoader = classLoader(app, library)) {
+            assertTrue(IndexRobotoMapper.isIndexPresent(classLoader));
+
+            RobotoMapper mapper = new IndexRobotoMapper(classLoader);
+            assertEquals(new HashSet<>(Arrays.asList("/products", "/help")), mapper.getAllowed());
+            assertEquals(Collections.singleton("/cart"), mapper.getDisallowed().get("*"));
+            assertEquals(Collections.singleton("/search"), mapper.getDisallowed().get("BadBot"));
+        }
+    }
+
+    @Test
+    public void detectsAMissingIndex() throws Exception {
+        try (URLClassLoader classLoader = classLoader(folder.newFolder())) {
+            assertFalse(IndexRobotoMapper.isIndexPresent(classLoader));
+        }
+    }
+
+    private File index(String... entries) throws Exception {
+        File root = folder.newFolder();
+        Path index = root.toPath().resolve(IndexRobotoMapper.INDEX_LOCATION);
+
+        Files.createDirectories(index.getParent());
+        Files.write(index, Arrays.asList(entries), StandardCharsets.UTF_8);
+
+        return root;
+    }
+
+    private static URLClassLoader classLoader(File... roots) throws Exception {
+        URL[] urls = new URL[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            urls[i] = roots[i].toURI().toURL();
+        }
+
+        // No parent, so that indexes on the test classpath are not found
+        return new URLClassLoader(urls, null);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class MicrometerRobotoMetricsTest {
+
+    private MeterRegistry registry;
+    private MicrometerRobotoMetrics metrics;
+
+    @Before
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new MicrometerRobotoMetrics(registry, 1);
+    }
+
+    @Test
+    public void recordsRendersAndCacheLookups() {
+        RobotoCache cache = new RobotoCache(10, metrics);
+        metrics.monitorCache(cache);
+
+        RobotoCache.Key key = new RobotoCache.Key(new RobotoMapper(), "http", "example.com", 80, "robots.txt");
+        byte[] body = "User-agent: *".getBytes(StandardCharsets.UTF_8);
+        cache.get(key, () -> RobotoDocument.of(MediaType.TEXT_PLAIN, body, 3));
+        cache.get(key, () -> RobotoDocument.of(MediaType.TEXT_PLAIN, body, 3));
+
+        assertEquals(1, registry.get("roboto.render").tags("document", "robots.txt", "host", "example.com")
+                .timer().count());
+        assertEquals(3, registry.get("roboto.document.urls").summary().totalAmount(), 0);
+        assertEquals(body.length, registry.get("roboto.document.size").summary().totalAmount(), 0);
+        assertEquals(1, registry.get("roboto.cache.gets").tag("result", "hit").functionCounter().count(), 0);
+        assertEquals(1, registry.get("roboto.cache.gets").tag("result", "miss").functionCounter().count(), 0);
+        assertEquals(1, registry.get("roboto.cache.size").gauge().value(), 0);
+    }
+
+    @Test
+    public void capsTheNumberOfHostTags() {
+        metrics.recordResponse("robots.txt", "example.com", 200, 100);
+        metrics.recordResponse("robots.txt", "example.com", 200, 50);
+        metrics.recordResponse("robots.txt", "attacker.example", 200, 100);
+
+        DistributionSummary responses = registry.get("roboto.responses").tag("host", "example.com").summary();
+        assertEquals(2, responses.count());
+        assertEquals(150, responses.totalAmount(), 0);
+        assertNull(registry.find("roboto.responses").tag("host", "attacker.example").summary());
+    }
+
+    @Test
+    public void tagsResponsesForMissingShardsWithOneDocument() {
+        assertTrue(RobotoMetrics.isDocument("/sitemap-12.xml.gz"));
+        assertFalse(RobotoMetrics.isDocument("/products"));
+
+        assertEquals("sitemap-2.xml", RobotoMetrics.getDocument("/sitemap-2.xml", 200));
+        assertEquals("sitemap-shard.xml", RobotoMetrics.getDocument("/sitemap-12.xml", 404));
+        assertEquals("sitemap-shard.xml.gz", RobotoMetrics.getDocument("/sitemap-12.xml.gz", 404));
+    }
+
+    @Test
+    public void recordsResponsesThroughTheFilter() throws Exception {
+        RobotoProperties properties = new RobotoProperties();
+        RobotoMapper mapper = new RobotoMapper();
+        SitemapGenerator generator = new SitemapGenerator(mapper, Collections.emptyList(),
+                properties.getSitemap().getMaxUrlsPerShard(), properties.getSitemap().getPageSize());
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+        RobotoController controller = new RobotoController(() -> hosts, new RobotoCache(10), properties);
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addFilters(new RobotoMetricsFilter(metrics))
+                .build();
+
+        String etag = mockMvc.perform(get("/robots.txt")).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/robots.txt").header("If-None-Match", etag));
+        mockMvc.perform(get("/sitemap-9.xml"));
+
+        DistributionSummary ok = registry.get("roboto.responses")
+                .tags("document", "robots.txt", "host", "localhost", "status", "200")
+                .summary();
+        assertEquals(1, ok.count());
+        assertTrue(ok.totalAmount() > 0);
+
+        assertEquals(1, registry.get("roboto.responses").tags("document", "robots.txt", "status", "304")
+                .summary().count());
+        assertEquals(1, registry.get("roboto.responses").tags("document", "sitemap-shard.xml", "status", "404")
+                .summary().count());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RobotoCacheTest {
+
+    private static final RobotoMapper MAPPER = new RobotoMapper();
+
+    private static final RobotoCache.Key INDEX = key("sitemap.xml");
+    private static final RobotoCache.Key SHARD = key("sitemap-1.xml");
+
+    private final AtomicInteger version = new AtomicInteger(1);
+
+    @Test
+    public void servesThePreviousDocumentsUntilEveryDocumentHasRefreshed() throws Exception {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicBoolean block = new AtomicBoolean();
+
+        RobotoCache cache = new RobotoCache(10);
+        cache.get(INDEX, versioned());
+        cache.get(SHARD, previous -> {
+            if (block.get()) {
+                rendering.countDown();
+                await(resume);
+            }
+            return document(version.get());
+        });
+
+        version.set(2);
+        block.set(true);
+
+        Thread refresh = new Thread(cache::refresh);
+        refresh.start();
+        assertTrue(rendering.await(10, TimeUnit.SECONDS));
+
+        // One of the documents has been re-rendered, but neither is published yet
+        assertEquals(1, versionOf(cache.getIfPresent(INDEX)));
+        assertEquals(1, versionOf(cache.getIfPresent(SHARD)));
+
+        resume.countDown();
+        refresh.join(10_000);
+
+        assertEquals(2, versionOf(cache.getIfPresent(INDEX)));
+        assertEquals(2, versionOf(cache.getIfPresent(SHARD)));
+    }
+
+    @Test
+    public void neverServesAMixOfOldAndNewDocuments() throws Exception {
+        List<RobotoCache.Key> keys = new ArrayList<>();
+        keys.add(INDEX);
+        for (int i = 1; i <= 20; i++) {
+            keys.add(key("sitemap-" + i + ".xml"));
+        }
+
+        RobotoCache cache = new RobotoCache(100);
+        for (RobotoCache.Key key : keys) {
+            cache.get(key, versioned());
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Runnable reader = () -> {
+            List<RobotoCache.Key> order = new ArrayList<>(keys);
+            while (!done.get() && failure.get() == null) {
+                // Once a new document has been served, no older document may be served after it
+                Collections.shuffle(order);
+                int newest = 0;
+                for (RobotoCache.Key key : order) {
+                    int version = versionOf(cache.getIfPresent(key));
+                    if (version < newest) {
+                        failure.set(key + " version " + version + " was served after version " + newest);
+                    }
+                    newest = Math.max(newest, version);
+                }
+            }
+        };
+
+        Thread[] readers = new Thread[2];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(reader);
+            readers[i].start();
+        }
+
+        try {
+            for (int i = 0; i < 1000 && failure.get() == null; i++) {
+                version.incrementAndGet();
+                assertTrue(cache.refresh());
+            }
+        } finally {
+            done.set(true);
+            for (Thread thread : readers) {
+                thread.join(10_000);
+            }
+        }
+
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void keepsDocumentsAddedWhileRefreshing() throws Exception {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicBoolean block = new AtomicBoolean();
+
+        RobotoCache cache = new RobotoCache(10);
+        cache.get(INDEX, previous -> {
+            if (block.get()) {
+                rendering.countDown();
+                await(resume);
+            }
+            return document(version.get());
+        });
+
+        version.set(2);
+        block.set(true);
+
+        Thread refresh = new Thread(cache::refresh);
+        refresh.start();
+        assertTrue(rendering.await(10, TimeUnit.SECONDS));
+
+        cache.get(SHARD, versioned());
+
+        resume.countDown();
+        refresh.join(10_000);
+
+        assertEquals(2, versionOf(cache.getIfPresent(INDEX)));
+        assertEquals(2, versionOf(cache.getIfPresent(SHARD)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedDocumentsInABatch() throws Exception {
+        RobotoCache cache = new RobotoCache(10);
+        for (int i = 0; i < 10; i++) {
+            cache.get(key("sitemap-" + i + ".xml"), versioned());
+            Thread.sleep(2);
+        }
+
+        // Using the two oldest documents makes them the most recently used
+        cache.get(key("sitemap-0.xml"), versioned());
+        cache.get(key("sitemap-1.xml"), versioned());
+        Thread.sleep(2);
+
+        cache.get(key("sitemap-10.xml"), versioned());
+
+        assertEquals(9, cache.size());
+        assertEquals(11, cache.getMisses());
+        for (String document : new String[] { "sitemap-0.xml", "sitemap-1.xml", "sitemap-10.xml" }) {
+            assertNotNull(document, cache.getIfPresent(key(document)));
+        }
+        assertNull(cache.getIfPresent(key("sitemap-2.xml")));
+        assertNull(cache.getIfPresent(key("sitemap-3.xml")));
+    }
+
+    @Test
+    public void keysEqualTheSameDocumentOnTheSameMapper() {
+        assertEquals(key("sitemap.xml"), INDEX);
+        assertEquals(key("sitemap.xml").hashCode(), INDEX.hashCode());
+        assertNotEquals(INDEX, new RobotoCache.Key(MAPPER, "https", "www.example.com", 80, "sitemap.xml"));
+        assertNotEquals(INDEX, new RobotoCache.Key(MAPPER, "http", "www.example.com", 8080, "sitemap.xml"));
+        assertNotEquals(INDEX, new RobotoCache.Key(new RobotoMapper(), "http", "www.example.com", 80, "sitemap.xml"));
+    }
+
+    private UnaryOperator<RobotoDocument> versioned() {
+        return previous -> document(version.get());
+    }
+
+    private static RobotoDocument document(int version) {
+        return RobotoDocument.of(MediaType.TEXT_PLAIN, Integer.toString(version).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int versionOf(RobotoDocument document) {
+        return Integer.parseInt(new String(document.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private static RobotoCache.Key key(String document) {
+        return new RobotoCache.Key(MAPPER, "http", "www.example.com", 80, document);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streams sitemaps through Spring MVC's async request processing, with a response whose output stream is only
+ * ready for a few writes at a time, the way a servlet container's is for a slow client.
+ */
+public class RobotoControllerStreamingTest {
+    private static final int WRITES_PER_CALLBACK = 2;
+
+    private final NonBlockingFilter filter = new NonBlockingFilter();
+    private RobotoProperties properties;
+    private RobotoHosts hosts;
+    private RobotoCache cache;
+    private byte[] content;
+
+    @Before
+    public void setUp() {
+        properties = new RobotoProperties();
+        properties.getStreaming().setEnabled(true);
+        properties.getStreaming().setMinSize(1024);
+
+        SitemapGenerator generator = new SitemapGenerator(new RobotoMapper(), Collections.emptyList(),
+                SitemapGenerator.MAX_URLS, 100);
+        hosts = RobotoHosts.create(generator, properties);
+        cache = new RobotoCache(10);
+
+        // Several chunks, the last of them partial
+        content = new byte[100000];
+        Arrays.fill(content, (byte) 'x');
+        cache(RobotoDocument.of(SitemapGenerator.CONTENT_TYPE, content));
+    }
+
+    @Test
+    public void streamsLargeSitemapsThroughAsyncProcessing() throws Exception {
+        MockMvc mockMvc = mockMvc();
+        MvcResult result = mockMvc.perform(get("/sitemap.xml"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Nothing more is written until the client is ready, and the request stays open until everything is
+        assertEquals(WRITES_PER_CALLBACK * 8192, filter.stream.out.size());
+        assertFalse(WebAsyncUtils.getAsyncManager(result.getRequest()).hasConcurrentResult());
+        filter.stream.drain();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        assertArrayEquals(content, filter.stream.out.toByteArray());
+        assertEquals(String.valueOf(content.length), result.getResponse().getHeader("Content-Length"));
+    }
+
+    @Test
+    public void abortsClientsThatReadTooSlowly() throws Exception {
+        properties.getStreaming().setTimeout(Duration.ofNanos(1));
+
+        MockMvc mockMvc = mockMvc();
+        MvcResult result = mockMvc.perform(get("/sitemap.xml"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertAborted(mockMvc, result);
+        assertTrue(filter.stream.out.size() < content.length);
+    }
+
+    @Test
+    public void abortsClientsThatTimeOut() throws Exception {
+        properties.getStreaming().setTimeout(Duration.ofHours(1));
+
+        MockMvc mockMvc = mockMvc();
+        MvcResult result = mockMvc.perform(get("/sitemap.xml"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // The container times the request out while the client is not reading
+        AsyncContext asyncContext = result.getRequest().getAsyncContext();
+        for (AsyncListener listener : ((MockAsyncContext) asyncContext).getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        assertAborted(mockMvc, result);
+
+        // Nothing more is written once the request has been aborted
+        filter.stream.drain();
+        assertEquals(WRITES_PER_CALLBACK * 8192, filter.stream.out.size());
+    }
+
+    @Test
+    public void writesSmallSitemapsDirectly() throws Exception {
+        properties.getStreaming().setMinSize(content.length + 1);
+
+        mockMvc().perform(get("/sitemap.xml"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk());
+
+        assertArrayEquals(content, filter.stream.out.toByteArray());
+    }
+
+    @Test
+    public void answersHeadRequestsWithoutStreaming() throws Exception {
+        mockMvc().perform(head("/sitemap.xml"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void answersConditionalRequestsWithoutStreaming() throws Exception {
+        String etag = cache.getIfPresent(key()).getEtag();
+
+        mockMvc().perform(get("/sitemap.xml").header("If-None-Match", etag))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotModified());
+    }
+
+    /**
+     * Asserts that the async dispatch of a streamed request fails, rather than completing a response whose body is
+     * shorter than its Content-Length.
+     */
+    private void assertAborted(MockMvc mockMvc, MvcResult result) throws Exception {
+        assertTrue(result.getAsyncResult() instanceof RobotoController.StreamingAbortedException);
+        assertEquals(String.valueOf(content.length), result.getResponse().getHeader("Content-Length"));
+
+        try {
+            mockMvc.perform(asyncDispatch(result));
+            fail("Expected the async dispatch to fail");
+        } catch (RobotoController.StreamingAbortedException e) {
+            // The container closes the connection
+        }
+    }
+
+    private MockMvc mockMvc() {
+        return MockMvcBuilders.standaloneSetup(new RobotoController(() -> hosts, cache, properties))
+                .addFilters(filter)
+                .build();
+    }
+
+    private void cache(RobotoDocument document) {
+        cache.get(key(), () -> document);
+    }
+
+    private RobotoCache.Key key() {
+        return hosts.createKey(hosts.getGenerator("localhost"), "http", "localhost", 80, SitemapResponse.DOCUMENT);
+    }
+
+    /**
+     * Replaces the output stream of the response with a {@link NonBlockingStream}.
+     */
+    private static final class NonBlockingFilter extends OncePerRequestFilter {
+
+        private NonBlockingStream stream;
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws IOException, ServletException {
+            stream = new NonBlockingStream();
+            filterChain.doFilter(request, new HttpServletResponseWrapper(response) {
+                @Override
+                public ServletOutputStream getOutputStream() {
+                    return stream;
+                }
+            });
+        }
+    }
+
+    /**
+     * Output stream that is ready for a few writes each time the client is ready, like a slow client's.
+     */
+    private static final class NonBlockingStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private WriteListener listener;
+        private int writes;
+
+        @Override
+        public boolean isReady() {
+            return writes < WRITES_PER_CALLBACK;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            this.listener = listener;
+            writePossible();
+        }
+
+        @Override
+        public void write(int b) {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            writes++;
+            out.write(bytes, offset, length);
+        }
+
+        /**
+         * Lets the writer write until it stops writing.
+         */
+        private void drain() {
+            for (int size = -1; size != out.size(); ) {
+                size = out.size();
+                writePossible();
+            }
+        }
+
+        private void writePossible() {
+            writes = 0;
+            try {
+                listener.onWritePossible();
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RobotoControllerTest {
+
+    private RobotoProperties properties;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        properties = new RobotoProperties();
+        mockMvc = mockMvc(new RobotoMapper());
+    }
+
+    @Test
+    public void servesDocumentsWithValidators() throws Exception {
+        MvcResult robots = mockMvc.perform(get("/robots.txt"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(RobotsResponse.CONTENT_TYPE))
+                .andExpect(header().string("Cache-Control", "max-age=3600, public"))
+                .andReturn();
+
+        String etag = robots.getResponse().getHeader("ETag");
+        assertEquals(robots.getResponse().getContentAsByteArray().length, robots.getResponse().getContentLength());
+        assertEquals('"', etag.charAt(0));
+
+        MvcResult sitemap = mockMvc.perform(get("/sitemap.xml"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn();
+        assertNotEquals(etag, sitemap.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    public void servesTheSameBytesUntilTheDocumentChanges() throws Exception {
+        MvcResult first = mockMvc.perform(get("/robots.txt")).andReturn();
+        MvcResult second = mockMvc.perform(get("/robots.txt")).andReturn();
+
+        assertArrayEquals(first.getResponse().getContentAsByteArray(), second.getResponse().getContentAsByteArray());
+        assertEquals(first.getResponse().getHeader("ETag"), second.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    public void answersConditionalRequestsWithNotModified() throws Exception {
+        MvcResult robots = mockMvc.perform(get("/robots.txt")).andReturn();
+        String etag = robots.getResponse().getHeader("ETag");
+        long lastModified = robots.getResponse().getDateHeader("Last-Modified");
+
+        mockMvc.perform(get("/robots.txt").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get("/robots.txt").header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/robots.txt").header("If-None-Match", "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void servesGzipToClientsThatAcceptIt() throws Exception {
+        MvcResult plain = mockMvc.perform(get("/sitemap.xml"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+
+        MvcResult gzip = mockMvc.perform(get("/sitemap.xml").header("Accept-Encoding", "deflate, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn();
+
+        assertArrayEquals(plain.getResponse().getContentAsByteArray(), gunzip(gzip.getResponse().getContentAsByteArray()));
+        assertNotEquals(plain.getResponse().getHeader("ETag"), gzip.getResponse().getHeader("ETag"));
+
+        mockMvc.perform(get("/sitemap.xml").header("Accept-Encoding", "gzip;q=0, *"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        mockMvc.perform(get("/sitemap.xml").header("Accept-Encoding", "br"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    public void servesTheCompressedSitemapDirectly() throws Exception {
+        MvcResult plain = mockMvc.perform(get("/sitemap.xml")).andReturn();
+
+        MvcResult gzip = mockMvc.perform(get("/sitemap.xml.gz"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+
+        assertArrayEquals(plain.getResponse().getContentAsByteArray(), gunzip(gzip.getResponse().getContentAsByteArray()));
+
+        mockMvc.perform(get("/sitemap.xml.gz").header("If-None-Match", gzip.getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void splitsLargeSitemapsIntoShards() throws Exception {
+        RobotoMapper mapper = new RobotoMapper();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            paths.add("/page/" + i);
+        }
+        mapper.allow(paths);
+
+        properties.getSitemap().setMaxUrlsPerShard(10);
+        mockMvc = mockMvc(mapper);
+
+        String index = body(mockMvc.perform(get("/sitemap.xml")).andExpect(status().isOk()).andReturn());
+        assertTrue(index.contains("sitemapindex"));
+        assertTrue(index.contains("/sitemap-1.xml</loc>"));
+        assertTrue(index.contains("/sitemap-3.xml</loc>"));
+        assertFalse(index.contains("/sitemap-4.xml</loc>"));
+
+        assertEquals(10, countUrls(body(mockMvc.perform(get("/sitemap-1.xml")).andExpect(status().isOk()).andReturn())));
+        assertEquals(5, countUrls(body(mockMvc.perform(get("/sitemap-3.xml")).andExpect(status().isOk()).andReturn())));
+        mockMvc.perform(get("/sitemap-3.xml.gz")).andExpect(status().isOk());
+        mockMvc.perform(get("/sitemap-4.xml")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/sitemap-0.xml")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void servesSmallSitemapsAsASingleUrlSet() throws Exception {
+        String sitemap = body(mockMvc.perform(get("/sitemap.xml")).andReturn());
+
+        assertTrue(sitemap.contains("urlset"));
+        mockMvc.perform(get("/sitemap-1.xml")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void leavesOutCacheControlWithoutAMaxAge() throws Exception {
+        properties.getCacheControl().setMaxAge(null);
+        mockMvc = mockMvc(new RobotoMapper());
+
+        mockMvc.perform(get("/robots.txt"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Cache-Control"));
+    }
+
+    @Test
+    public void answersWithServiceUnavailableUntilTheEndpointsAreMapped() throws Exception {
+        RobotoController controller = new RobotoController(() -> null, new RobotoCache(100), properties);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        for (String document : new String[] { "/robots.txt", "/sitemap.xml", "/sitemap-1.xml.gz" }) {
+            mockMvc.perform(get(document))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "10"))
+                    .andExpect(header().string("Cache-Control", "no-store"));
+        }
+    }
+
+    @Test
+    public void allowsEverythingUntilTheEndpointsAreMappedWhenPermissive() throws Exception {
+        properties.getInitialization().setPermissiveRobots(true);
+        RobotoController controller = new RobotoController(() -> null, new RobotoCache(100), properties);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        mockMvc.perform(get("/robots.txt"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(content().string(RobotsResponse.ALLOW_ALL));
+        mockMvc.perform(get("/sitemap.xml")).andExpect(status().isServiceUnavailable());
+    }
+
+    private MockMvc mockMvc(RobotoMapper mapper) {
+        SitemapGenerator generator = new SitemapGenerator(mapper, Collections.emptyList(),
+                properties.getSitemap().getMaxUrlsPerShard(), properties.getSitemap().getPageSize());
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+        RobotoController controller = new RobotoController(() -> hosts, new RobotoCache(100), properties);
+
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private static String body(MvcResult result) {
+        return new String(result.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static int countUrls(String sitemap) {
+        return sitemap.split("<url>", -1).length - 1;
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+        }
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RobotoEndpointTest {
+
+    private final RobotoMapper mapper = new RobotoMapper();
+    private final RobotoCache cache = new RobotoCache(10);
+    private final SitemapIndex index = new SitemapIndex();
+    private final RobotoRefresher refresher = new RobotoRefresher(cache, index, null);
+
+    @After
+    public void shutdown() {
+        refresher.shutdown();
+    }
+
+    @Test
+    public void reportsTheMappingAsNotReadyWithoutWaitingForIt() {
+        CountDownLatch mapped = new CountDownLatch(1);
+        RobotoInitializer initializer = new RobotoInitializer(() -> {
+            mapped.await();
+            return mapper;
+        }, RobotoProperties.InitializationMode.LAZY);
+
+        try {
+            Map<String, Object> mapping = mapping(new RobotoEndpoint(initializer, cache, refresher).roboto());
+
+            assertEquals(false, mapping.get("ready"));
+            assertEquals(1, mapping.size());
+        } finally {
+            mapped.countDown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void showsTheCachedDocumentsAndCacheStatistics() {
+        RobotoInitializer initializer = new RobotoInitializer(() -> mapper, RobotoProperties.InitializationMode.EAGER);
+        SitemapGenerator generator = new SitemapGenerator(mapper, Collections.emptyList(), SitemapGenerator.MAX_URLS,
+                100, index);
+
+        RobotoCache.Key key = new RobotoCache.Key(mapper, "http", "localhost", 80, SitemapResponse.DOCUMENT);
+        RobotoDocument document = SitemapResponse.create(cache, key, generator);
+        SitemapResponse.create(cache, key, generator);
+
+        Map<String, Object> details = new RobotoEndpoint(initializer, cache, refresher).roboto();
+        assertEquals(true, mapping(details).get("ready"));
+
+        List<Map<String, Object>> documents = (List<Map<String, Object>>) details.get("documents");
+        assertEquals(1, documents.size());
+        assertEquals("http://localhost/sitemap.xml", documents.get(0).get("url"));
+        assertEquals(document.getContentLength(), documents.get(0).get("size"));
+        assertEquals(document.getEtag(), documents.get(0).get("etag"));
+        assertFalse((Boolean) documents.get(0).get("mapped"));
+
+        Map<String, Object> cacheDetails = (Map<String, Object>) details.get("cache");
+        assertEquals(1, cacheDetails.get("size"));
+        assertEquals(1L, cacheDetails.get("hits"));
+        assertEquals(1L, cacheDetails.get("misses"));
+
+        Map<String, Object> refresh = (Map<String, Object>) details.get("refresh");
+        assertTrue(refresh.containsKey("lastRefreshTime"));
+        assertEquals(null, refresh.get("lastRefreshTime"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mapping(Map<String, Object> details) {
+        return (Map<String, Object>) details.get("mapping");
+    }
+}
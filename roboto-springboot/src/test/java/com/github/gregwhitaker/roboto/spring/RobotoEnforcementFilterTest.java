@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class RobotoEnforcementFilterTest {
+    private static final String CRAWLER = "Mozilla/5.0 (compatible; Googlebot/2.1)";
+    private static final String BROWSER = "Mozilla/5.0 (X11; Linux x86_64) Firefox/60.0";
+
+    private RobotoEnforcementFilter filter;
+
+    @Before
+    public void setUp() {
+        Map<String, Set<String>> disallowed = Collections.singletonMap("*", Collections.singleton("/baz/"));
+        filter = new RobotoEnforcementFilter(RobotsMatcher.compile(disallowed, Collections.singletonList("bot")));
+    }
+
+    @Test
+    public void rejectsCrawlersOnDisallowedPaths() throws Exception {
+        assertEquals(403, status(CRAWLER, "", "/baz/1"));
+    }
+
+    @Test
+    public void allowsCrawlersOnOtherPaths() throws Exception {
+        assertEquals(200, status(CRAWLER, "", "/foo/1"));
+        assertEquals(200, status(CRAWLER, "", "/robots.txt"));
+    }
+
+    @Test
+    public void allowsBrowsersOnDisallowedPaths() throws Exception {
+        assertEquals(200, status(BROWSER, "", "/baz/1"));
+        assertEquals(200, status(null, "", "/baz/1"));
+    }
+
+    @Test
+    public void matchesPercentEncodedPaths() throws Exception {
+        assertEquals(403, status(CRAWLER, "", "/%62az/1"));
+        assertEquals(403, status(CRAWLER, "", "/ba%7A/1"));
+    }
+
+    @Test
+    public void matchesPathsWithDuplicateSlashes() throws Exception {
+        assertEquals(403, status(CRAWLER, "", "//baz/1"));
+        assertEquals(403, status(CRAWLER, "", "/baz//1"));
+    }
+
+    @Test
+    public void matchesPathsWithPathParameters() throws Exception {
+        assertEquals(403, status(CRAWLER, "", "/baz;x=1/1"));
+        assertEquals(403, status(CRAWLER, "", "/baz/1;jsessionid=abc"));
+    }
+
+    @Test
+    public void matchesPathsWithinTheContextPath() throws Exception {
+        assertEquals(403, status(CRAWLER, "/app", "/app/baz/1"));
+        assertEquals(200, status(CRAWLER, "/app", "/app/foo/1"));
+    }
+
+    private int status(String userAgent, String contextPath, String requestUri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+        request.setContextPath(contextPath);
+        if (userAgent != null) {
+            request.addHeader("User-Agent", userAgent);
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RobotoExporterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesEveryDocumentUnderItsUrl() throws Exception {
+        RobotoMapper mapper = new RobotoMapper();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            paths.add("/page/" + i);
+        }
+        mapper.allow(paths);
+
+        Path directory = folder.getRoot().toPath().resolve("export");
+        List<Path> files = new RobotoExporter(new SitemapGenerator(mapper, Collections.emptyList(), 10, 100))
+                .export("https://www.example.com/", directory);
+
+        List<String> names = new ArrayList<>();
+        for (Path file : files) {
+            assertEquals(directory, file.getParent());
+            names.add(file.getFileName().toString());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("robots.txt", "sitemap.xml", "sitemap.xml.gz",
+                "sitemap-1.xml", "sitemap-1.xml.gz", "sitemap-2.xml", "sitemap-2.xml.gz",
+                "sitemap-3.xml", "sitemap-3.xml.gz")), new HashSet<>(names));
+        assertEquals(names.size(), directory.toFile().list().length);
+
+        String robots = read(directory.resolve("robots.txt"));
+        assertTrue(robots.contains("Sitemap: https://www.example.com/sitemap.xml"));
+
+        String index = read(directory.resolve("sitemap.xml"));
+        assertTrue(index.contains("<loc>https://www.example.com/sitemap-3.xml</loc>"));
+        assertTrue(read(directory.resolve("sitemap-3.xml")).contains("<loc>https://www.example.com/page/9</loc>"));
+
+        for (String name : Arrays.asList("sitemap.xml", "sitemap-2.xml")) {
+            assertArrayEquals(Files.readAllBytes(directory.resolve(name)), gunzip(directory.resolve(name + ".gz")));
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(Path file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+        }
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RobotoFastPathFilterTest {
+    private static final byte[] CONTENT = "User-agent: *\nDisallow: /baz/\n".getBytes(StandardCharsets.UTF_8);
+
+    private RobotoHosts hosts;
+    private RobotoCache cache;
+    private RobotoFastPathFilter filter;
+
+    @Before
+    public void setUp() {
+        SitemapGenerator generator = new SitemapGenerator(new RobotoMapper(), Collections.emptyList(),
+                SitemapGenerator.MAX_URLS, 100);
+        RobotoProperties properties = new RobotoProperties();
+
+        hosts = RobotoHosts.create(generator, properties);
+        cache = new RobotoCache(10);
+        filter = new RobotoFastPathFilter(() -> hosts, cache, properties);
+    }
+
+    @Test
+    public void writesHeapDocumentsWithoutCopying() throws Exception {
+        RobotoDocument document = cache(RobotoDocument.of(RobotsResponse.CONTENT_TYPE, CONTENT));
+        assertNotNull(document.getHeapBody(false));
+
+        RecordingResponse response = get("/robots.txt", null);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, response.writes.size());
+        assertSame(document.getHeapBody(false), response.writes.get(0));
+        assertArrayEquals(CONTENT, response.out.toByteArray());
+    }
+
+    @Test
+    public void writesCompressedHeapDocumentsWithoutCopying() throws Exception {
+        RobotoDocument document = cache(RobotoDocument.of(RobotsResponse.CONTENT_TYPE, CONTENT));
+
+        RecordingResponse response = get("/robots.txt", "gzip");
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(1, response.writes.size());
+        assertSame(document.getHeapBody(true), response.writes.get(0));
+        assertArrayEquals(document.getGzipBody(), response.out.toByteArray());
+    }
+
+    @Test
+    public void copiesMappedDocumentsThroughABuffer() throws Exception {
+        Path file = Files.createTempFile("robots-", ".txt");
+        Files.write(file, CONTENT);
+        RobotoDocument document = cache(RobotoDocument.of(RobotsResponse.CONTENT_TYPE, file, 0, 0));
+        assertTrue(document.isMapped());
+        assertNull(document.getHeapBody(false));
+
+        RecordingResponse response = get("/robots.txt", null);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.out.toByteArray());
+    }
+
+    @Test
+    public void passesUncachedDocumentsToTheChain() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("/robots.txt", null), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    public void passesShardNumbersTooLargeForAnIntToTheChain() throws Exception {
+        for (String path : new String[] { "/sitemap-99999999999999999999.xml", "/sitemap-2147483648.xml.gz" }) {
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request(path, null), new MockHttpServletResponse(), chain);
+
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    private RobotoDocument cache(RobotoDocument document) {
+        RobotoCache.Key key = hosts.createKey(hosts.getGenerator("localhost"), "http", "localhost", 80,
+                RobotsResponse.DOCUMENT);
+        return cache.get(key, () -> document);
+    }
+
+    private RecordingResponse get(String path, String acceptEncoding) throws Exception {
+        RecordingResponse response = new RecordingResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(path, acceptEncoding), response, chain);
+
+        assertNull(chain.getRequest());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+
+        return request;
+    }
+
+    /**
+     * Response recording the arrays written to its output stream.
+     */
+    private static final class RecordingResponse extends HttpServletResponseWrapper {
+
+        private final List<byte[]> writes = new ArrayList<>();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private RecordingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) {
+                    writes.add(bytes);
+                    out.write(bytes, offset, length);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class RobotoHostsTest {
+
+    private SitemapGenerator generator;
+    private RobotoProperties properties;
+
+    @Before
+    public void setUp() {
+        generator = new SitemapGenerator(new RobotoMapper(), Collections.emptyList(), SitemapGenerator.MAX_URLS, 100);
+        properties = new RobotoProperties();
+
+        RobotoProperties.Host host = new RobotoProperties.Host();
+        host.setNames(Arrays.asList("www.example.com", "Example.com"));
+        properties.getHosts().add(host);
+    }
+
+    @Test
+    public void keysConfiguredHostsByTheirOwnName() {
+        properties.getCanonical().setHost("canonical.example.org");
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+
+        assertEquals("www.example.com", key(hosts, "WWW.example.com").getHost());
+        assertEquals("example.com", key(hosts, "example.com").getHost());
+    }
+
+    @Test
+    public void keysUnknownHostsByTheCanonicalHost() {
+        properties.getCanonical().setHost("Canonical.example.org");
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+
+        assertEquals("canonical.example.org", key(hosts, "evil.example.net").getHost());
+        assertEquals("canonical.example.org", key(hosts, null).getHost());
+        assertEquals("canonical.example.org", key(hosts, "").getHost());
+    }
+
+    @Test
+    public void cachesTheDocumentsOfALimitedNumberOfUnknownHostsWithoutACanonicalHost() {
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+        RobotoCache cache = new RobotoCache(100);
+
+        assertEquals("first.example.net", render(cache, key(hosts, "First.example.net")));
+        for (int i = 1; i < RobotoHosts.MAX_REQUEST_HOSTS; i++) {
+            assertEquals("host" + i + ".example.net", render(cache, key(hosts, "host" + i + ".example.net")));
+        }
+        assertEquals(RobotoHosts.MAX_REQUEST_HOSTS, cache.size());
+
+        // Further host names are still rendered with their own name, but not cached
+        RobotoCache.Key another = key(hosts, "another.example.net");
+        assertEquals("another.example.net", another.getHost());
+        assertEquals("another.example.net", render(cache, another));
+        assertNull(cache.getIfPresent(another));
+        assertEquals(RobotoHosts.MAX_REQUEST_HOSTS, cache.size());
+
+        assertNotNull(cache.getIfPresent(key(hosts, "host1.example.net")));
+        assertEquals("www.example.com", key(hosts, "www.example.com").getHost());
+    }
+
+    @Test
+    public void keysRequestsWithoutAHostByLocalhost() {
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+        key(hosts, "first.example.net");
+
+        assertEquals("localhost", key(hosts, null).getHost());
+        assertEquals("localhost", key(hosts, "").getHost());
+        assertEquals("http://localhost:8080", key(hosts, null).getBaseUrl());
+    }
+
+    private static String render(RobotoCache cache, RobotoCache.Key key) {
+        RobotoDocument document = cache.get(key, () ->
+                RobotoDocument.of(MediaType.TEXT_PLAIN, key.getHost().getBytes(StandardCharsets.UTF_8)));
+        return new String(document.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private RobotoCache.Key key(RobotoHosts hosts, String host) {
+        return hosts.createKey(hosts.getGenerator(host), "http", host, 8080, RobotsResponse.DOCUMENT);
+    }
+}
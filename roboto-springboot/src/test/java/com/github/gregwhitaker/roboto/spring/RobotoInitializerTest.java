@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RobotoInitializerTest {
+
+    private final RobotoMapper mapper = new RobotoMapper();
+    private final AtomicInteger mappings = new AtomicInteger();
+
+    @Test
+    public void mapsEagerlyOnCreation() {
+        RobotoInitializer initializer = new RobotoInitializer(this::map, RobotoProperties.InitializationMode.EAGER);
+
+        assertTrue(initializer.isReady());
+        assertSame(mapper, initializer.getIfReady());
+        assertSame(mapper, initializer.get());
+        assertEquals(1, mappings.get());
+    }
+
+    @Test
+    public void mapsLazilyInTheBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RobotoInitializer initializer = new RobotoInitializer(() -> {
+            release.await();
+            return map();
+        }, RobotoProperties.InitializationMode.LAZY);
+
+        AtomicInteger created = new AtomicInteger();
+        Supplier<String> component = initializer.whenReady(m -> {
+            created.incrementAndGet();
+            return "ready";
+        });
+
+        // The first request starts the mapping without waiting for it
+        assertFalse(initializer.isReady());
+        assertNull(component.get());
+        assertNull(initializer.getIfReady());
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!initializer.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(initializer.isReady());
+        assertEquals("ready", component.get());
+        assertEquals("ready", component.get());
+        assertEquals(1, created.get());
+        assertEquals(1, mappings.get());
+    }
+
+    @Test
+    public void retriesAfterAFailedMapping() {
+        RobotoInitializer initializer = new RobotoInitializer(() -> {
+            if (mappings.incrementAndGet() == 1) {
+                throw new IllegalStateException("Handler mapping not ready");
+            }
+            return mapper;
+        }, RobotoProperties.InitializationMode.LAZY);
+
+        try {
+            initializer.get();
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        assertFalse(initializer.isReady());
+        assertSame(mapper, initializer.get());
+    }
+
+    private RobotoMapper map() {
+        mappings.incrementAndGet();
+        return mapper;
+    }
+}
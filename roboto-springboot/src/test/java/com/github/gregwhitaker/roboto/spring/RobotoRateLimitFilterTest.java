@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class RobotoRateLimitFilterTest {
+    private static final String CRAWLER = "Mozilla/5.0 (compatible; Googlebot/2.1)";
+
+    private RobotoRateLimitFilter filter;
+
+    @Before
+    public void setUp() {
+        Map<String, Set<String>> groups = Collections.singletonMap("*", Collections.singleton("/private"));
+        Map<String, Integer> crawlDelays = Collections.singletonMap("*", 10);
+        filter = new RobotoRateLimitFilter(CrawlRateLimiter.create(groups, crawlDelays,
+                Collections.singletonList("bot"), 1));
+    }
+
+    @Test
+    public void rejectsCrawlersOverTheirCrawlDelay() throws Exception {
+        assertEquals(200, request("", "/foo").getStatus());
+
+        MockHttpServletResponse response = request("", "/foo");
+        assertEquals(429, response.getStatus());
+        assertEquals("10", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void neverLimitsRobotsTxt() throws Exception {
+        assertEquals(200, request("", "/foo").getStatus());
+        assertEquals(200, request("", "/robots.txt").getStatus());
+        assertEquals(200, request("", "/robots.txt;jsessionid=abc").getStatus());
+    }
+
+    @Test
+    public void neverLimitsRobotsTxtWithinTheContextPath() throws Exception {
+        assertEquals(200, request("/app", "/app/foo").getStatus());
+        assertEquals(200, request("/app", "/app/robots.txt").getStatus());
+        assertEquals(429, request("/app", "/app/foo").getStatus());
+    }
+
+    private MockHttpServletResponse request(String contextPath, String requestUri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+        request.setContextPath(contextPath);
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("User-Agent", CRAWLER);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        return response;
+    }
+}
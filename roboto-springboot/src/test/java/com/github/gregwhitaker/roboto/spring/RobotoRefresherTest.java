@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RobotoRefresherTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void savesTheSitemapIndexAfterARefresh() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("sitemap.index");
+        SitemapIndex index = new SitemapIndex(file);
+        RobotoMapper mapper = new RobotoMapper();
+        SitemapGenerator generator = new SitemapGenerator(mapper, Collections.emptyList(), SitemapGenerator.MAX_URLS,
+                100, index);
+
+        RobotoCache cache = new RobotoCache(10);
+        RobotoCache.Key key = new RobotoCache.Key(mapper, "http", "localhost", 80, SitemapResponse.DOCUMENT);
+        SitemapResponse.create(cache, key, generator);
+        assertFalse(Files.exists(file));
+
+        RobotoRefresher refresher = new RobotoRefresher(cache, index, null);
+        try {
+            refresher.refresh();
+            for (int i = 0; i < 100 && refresher.getLastRefreshTime() == 0; i++) {
+                Thread.sleep(50);
+            }
+
+            assertTrue(refresher.isLastRefreshSucceeded());
+            assertTrue(Files.exists(file));
+        } finally {
+            refresher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RobotsMatcherTest {
+
+    @Test
+    public void matchesByPrefix() {
+        RobotsMatcher matcher = matcher("/private");
+
+        assertTrue(matcher.isDisallowedForAll("/private"));
+        assertTrue(matcher.isDisallowedForAll("/private/1"));
+        assertFalse(matcher.isDisallowedForAll("/public"));
+        assertFalse(matcher.isDisallowedForAll("/priv"));
+    }
+
+    @Test
+    public void matchesAnchoredRules() {
+        RobotsMatcher matcher = matcher("/*.pdf$");
+
+        assertTrue(matcher.isDisallowedForAll("/docs/a.pdf"));
+        assertFalse(matcher.isDisallowedForAll("/docs/a.pdf.html"));
+        assertFalse(matcher.isDisallowedForAll("/docs/a.html"));
+    }
+
+    @Test
+    public void matchesWildcards() {
+        RobotsMatcher matcher = matcher("/product/{id}/reviews", "/*/edit$", "/a*b*c");
+
+        assertTrue(matcher.isDisallowedForAll("/product/42/reviews"));
+        assertTrue(matcher.isDisallowedForAll("/product/42/reviews/2"));
+        assertTrue(matcher.isDisallowedForAll("/product//reviews"));
+        assertFalse(matcher.isDisallowedForAll("/product/42"));
+        assertTrue(matcher.isDisallowedForAll("/page/edit"));
+        assertTrue(matcher.isDisallowedForAll("/edit/edit"));
+        assertFalse(matcher.isDisallowedForAll("/page/edit/1"));
+        assertTrue(matcher.isDisallowedForAll("/abc"));
+        assertTrue(matcher.isDisallowedForAll("/aXbXcX"));
+        assertFalse(matcher.isDisallowedForAll("/acb"));
+    }
+
+    @Test
+    public void matchesWildcardRulesSharingPrefixes() {
+        RobotsMatcher matcher = matcher("/a/*/x$", "/a/b*y", "/a/b");
+
+        assertTrue(matcher.isDisallowedForAll("/a/b"));
+        assertTrue(matcher.isDisallowedForAll("/a/c/x"));
+        assertFalse(matcher.isDisallowedForAll("/a/c/x/"));
+        assertFalse(matcher.isDisallowedForAll("/a/c"));
+    }
+
+    @Test(timeout = 5000)
+    public void matchesLongPathsAgainstManyWildcardsInLinearTime() {
+        RobotsMatcher matcher = matcher("/*a*a*a*a*a*a*a*a*a*a*b$");
+
+        StringBuilder path = new StringBuilder("/");
+        for (int i = 0; i < 100000; i++) {
+            path.append('a');
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(matcher.isDisallowed("Googlebot", path.toString(), 0));
+        }
+        assertTrue(matcher.isDisallowed("Googlebot", path + "b", 0));
+    }
+
+    private static RobotsMatcher matcher(String... disallowed) {
+        return RobotsMatcher.compile(Collections.singletonMap("*", new HashSet<>(Arrays.asList(disallowed))),
+                Collections.singletonList("bot"));
+    }
+}
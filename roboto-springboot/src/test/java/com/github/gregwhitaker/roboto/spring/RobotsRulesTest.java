@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class RobotsRulesTest {
+
+    private final RobotoMapper mapper = new RobotoMapper();
+
+    @Test
+    public void collapsesDisallowedEndpointsToAnOwnedDirectory() {
+        mapper.setOwnedDirectories(Collections.singletonList("/admin"));
+        allow("/", "/about");
+        disallow("*", "/admin/users", "/admin/users/edit", "/admin/settings", "/admin/audit/log");
+
+        assertEquals(rules("/admin/"), RobotsRules.of(mapper).get("*"));
+    }
+
+    @Test
+    public void doesNotCollapseDirectoriesThatAreNotOwned() {
+        allow("/", "/about");
+        disallow("*", "/admin/users", "/admin/settings");
+
+        assertEquals(rules("/admin/settings", "/admin/users"), RobotsRules.of(mapper).get("*"));
+    }
+
+    @Test
+    public void doesNotCollapseWhenASiblingStaysCrawlable() {
+        mapper.setOwnedDirectories(Collections.singletonList("/admin/"));
+        allow("/admin/status");
+        disallow("*", "/admin/users", "/admin/settings");
+
+        assertEquals(rules("/admin/settings", "/admin/users"), RobotsRules.of(mapper).get("*"));
+    }
+
+    @Test
+    public void treatsPathsDisallowedForOtherUserAgentsAsCrawlable() {
+        mapper.setOwnedDirectories(Collections.singletonList("/admin/"));
+        disallow("*", "/admin/users", "/admin/settings");
+        disallow("Googlebot", "/admin/preview");
+
+        Map<String, Set<String>> rules = RobotsRules.of(mapper);
+        assertEquals(rules("/admin/settings", "/admin/users"), rules.get("*"));
+        assertEquals(rules("/admin/preview"), rules.get("Googlebot"));
+    }
+
+    @Test
+    public void neverCollapsesTheRoot() {
+        mapper.setOwnedDirectories(Collections.singletonList("/"));
+        disallow("*", "/login", "/logout", "/admin/users", "/admin/settings");
+
+        assertEquals(rules("/admin/", "/login", "/logout"), RobotsRules.of(mapper).get("*"));
+    }
+
+    @Test
+    public void dropsPathsCoveredByAPathVariable() {
+        allow("/");
+        disallow("*", "/admin/{page}", "/admin/users", "/admin/users/{id}");
+
+        assertEquals(rules("/admin/*"), RobotsRules.of(mapper).get("*"));
+    }
+
+    @Test
+    public void doesNotCollapseOverACrawlableTemplate() {
+        mapper.setOwnedDirectories(Collections.singletonList("/reports/"));
+        allow("/reports/{id}/**");
+        disallow("*", "/reports/daily", "/reports/weekly");
+
+        assertEquals(rules("/reports/daily", "/reports/weekly"), RobotsRules.of(mapper).get("*"));
+    }
+
+    @Test
+    public void collapsesNextToACrawlableTemplateInAnotherDirectory() {
+        mapper.setOwnedDirectories(Collections.singletonList("/reports/"));
+        allow("/public/**", "/reports");
+        disallow("*", "/reports/daily", "/reports/weekly/{week}");
+
+        assertEquals(rules("/reports/"), RobotsRules.of(mapper).get("*"));
+    }
+
+    @Test
+    public void sortsRulesAndUserAgents() {
+        disallow("Googlebot", "/b", "/a");
+        disallow("*", "/d", "/c");
+        disallow("Bingbot", "/e");
+
+        Map<String, Set<String>> rules = RobotsRules.of(mapper);
+        assertEquals(Arrays.asList("*", "Bingbot", "Googlebot"), Arrays.asList(rules.keySet().toArray()));
+        assertEquals(Arrays.asList("/c", "/d"), Arrays.asList(rules.get("*").toArray()));
+        assertEquals(Arrays.asList("/a", "/b"), Arrays.asList(rules.get("Googlebot").toArray()));
+    }
+
+    private void allow(String... paths) {
+        mapper.allow(Arrays.asList(paths));
+    }
+
+    private void disallow(String userAgent, String... paths) {
+        mapper.disallow(new String[] { userAgent }, Arrays.asList(paths));
+    }
+
+    private static Set<String> rules(String... rules) {
+        return new LinkedHashSet<>(Arrays.asList(rules));
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SitemapGeneratorTest {
+    private static final String BASE_URL = "http://localhost";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ChangingProvider provider = new ChangingProvider(250);
+
+    @Test
+    public void writesStaticPathsAndProviderUrls() {
+        RobotoMapper mapper = new RobotoMapper();
+        mapper.allow(Arrays.asList("/about", "/product/{id}"));
+        PagedProvider products = new PagedProvider(3);
+
+        String body = body(new SitemapGenerator(mapper, Collections.singletonList(products), SitemapGenerator.MAX_URLS, 100)
+                .render(BASE_URL));
+
+        assertTrue(body.contains("<loc>http://localhost/about</loc>"));
+        assertTrue(body.contains("<loc>http://localhost/product/0</loc><lastmod>2018-06-01</lastmod>"
+                + "<changefreq>weekly</changefreq><priority>0.5</priority>"));
+        assertTrue(body.contains("<loc>http://localhost/product/2</loc>"));
+        assertFalse(body.contains("{id}"));
+    }
+
+    @Test
+    public void requestsProviderUrlsOnePageAtATime() {
+        PagedProvider products = new PagedProvider(5);
+
+        new SitemapGenerator(new RobotoMapper(), Collections.singletonList(products), SitemapGenerator.MAX_URLS, 2)
+                .render(BASE_URL);
+
+        assertEquals(Arrays.asList("0+2", "2+2", "4+1"), products.pages);
+    }
+
+    @Test
+    public void startsEachSourceInANewShard() {
+        RobotoMapper mapper = new RobotoMapper();
+        mapper.allow(Arrays.asList("/a", "/b"));
+        PagedProvider products = new PagedProvider(4);
+        SitemapGenerator generator = new SitemapGenerator(mapper, Collections.singletonList(products), 3, 100);
+
+        assertEquals(3, generator.getShardCount());
+        assertTrue(body(generator.render(BASE_URL)).contains("<loc>http://localhost/sitemap-3.xml</loc>"));
+
+        String first = body(generator.renderShard(BASE_URL, 1));
+        assertTrue(first.contains("/a</loc>"));
+        assertFalse(first.contains("/product/"));
+
+        // Urls are requested from the offset of the shard until the shard is full or the provider runs out
+        products.pages.clear();
+        String last = body(generator.renderShard(BASE_URL, 3));
+        assertTrue(last.contains("/product/3</loc>"));
+        assertFalse(last.contains("/product/2</loc>"));
+        assertEquals(Arrays.asList("3+3", "4+2"), products.pages);
+
+        try {
+            generator.renderShard(BASE_URL, 4);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void readsEachProviderOncePerRendering() {
+        SitemapGenerator generator = generator(SitemapGenerator.MAX_URLS);
+
+        RobotoDocument document = generator.render(BASE_URL);
+
+        assertEquals(250, document.getUrlCount());
+        assertEquals(1, provider.counts);
+        assertEquals(250, provider.read);
+    }
+
+    @Test
+    public void writesTheUrlsThatWereHashed() {
+        SitemapGenerator generator = generator(SitemapGenerator.MAX_URLS);
+
+        RobotoDocument document = generator.render(BASE_URL);
+        String body = new String(document.getBody(), StandardCharsets.UTF_8);
+        assertTrue(body.contains("/item/0?v=1<"));
+        assertFalse(body.contains("?v=2<"));
+
+        // The urls last read are the ones that were written, so the document is unchanged
+        provider.frozen = true;
+        assertNull(generator.render(BASE_URL, document.getSourceHash()));
+    }
+
+    @Test
+    public void rendersShardsFromTheCountsOfTheLastSitemapIndex() {
+        SitemapGenerator generator = generator(100);
+        generator.render(BASE_URL);
+        assertEquals(3, generator.getShardCount());
+        assertEquals(1, provider.counts);
+
+        for (int shard = 1; shard <= 3; shard++) {
+            generator.renderShard(BASE_URL, shard);
+        }
+        assertEquals(1, provider.counts);
+        assertEquals(250, provider.read);
+
+        // Urls added since the sitemap index was rendered fill its last shard
+        provider.size = 260;
+        assertEquals(60, generator.renderShard(BASE_URL, 3).getUrlCount());
+        assertEquals(3, generator.getShardCount());
+        assertEquals(1, provider.counts);
+    }
+
+    @Test
+    public void writesTheExtensionsOfEachPage() {
+        MediaProvider media = new MediaProvider();
+
+        SitemapGenerator generator =
+                new SitemapGenerator(new RobotoMapper(), Collections.singletonList(media), SitemapGenerator.MAX_URLS, 2);
+        String body = body(generator.render(BASE_URL));
+
+        assertEquals(Arrays.asList(2, 1), media.pages);
+        assertTrue(body.contains("xmlns:image=\"" + SitemapWriter.IMAGE_NAMESPACE + "\""));
+        assertTrue(body.contains("<loc>http://localhost/product/0</loc>"));
+
+        // Relative urls are resolved against the base url
+        assertTrue(body.contains("<image:image><image:loc>http://localhost/img/0.jpg</image:loc></image:image>"));
+        assertTrue(body.contains("<image:loc>https://cdn.example.com/0.jpg</image:loc>"));
+        assertTrue(body.contains("<video:thumbnail_loc>http://localhost/thumb/0.jpg</video:thumbnail_loc>"));
+        assertTrue(body.contains("<video:description>Unboxing &lt;0&gt;</video:description>"));
+        assertTrue(body.contains("<video:player_loc>http://localhost/player/0</video:player_loc>"));
+        assertTrue(body.contains("<video:duration>90</video:duration>"));
+        assertFalse(body.contains("content_loc"));
+        assertTrue(body.contains("<news:publication_date>2018-06-01T12:00:00Z</news:publication_date>"));
+        assertTrue(body.contains("<image:loc>http://localhost/img/2.jpg</image:loc>"));
+        assertFalse(body.contains("/img/1.jpg"));
+    }
+
+    @Test
+    public void servesSpooledSitemapsFromMappedFiles() {
+        provider.frozen = true;
+        RobotoDocument inMemory = generator(100).render(BASE_URL);
+
+        SitemapGenerator generator = new SitemapGenerator(new RobotoMapper(), Collections.singletonList(provider), 100,
+                100, new SitemapIndex(), folder.getRoot().toPath());
+        RobotoDocument spooled = generator.render(BASE_URL);
+        RobotoDocument shard = generator.renderShard(BASE_URL, 3);
+
+        assertFalse(inMemory.isMapped());
+        assertTrue(spooled.isMapped());
+        assertArrayEquals(inMemory.getBody(), spooled.getBody());
+        assertEquals(inMemory.getEtag(), spooled.getEtag());
+        assertEquals(spooled.getContentLength(), spooled.getBody().length);
+        assertTrue(shard.isMapped());
+        assertEquals(50, shard.getUrlCount());
+        assertTrue(new String(shard.getBody(), StandardCharsets.UTF_8).contains("/item/249?v=0<"));
+
+        // Spooled files are unlinked once they are mapped
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private SitemapGenerator generator(int maxUrls) {
+        return new SitemapGenerator(new RobotoMapper(), Collections.singletonList(provider), maxUrls, 100);
+    }
+
+    private static String body(RobotoDocument document) {
+        return new String(document.getBody(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Provider of <code>/product/{id}</code> urls that records the pages it is asked for.
+     */
+    private static final class PagedProvider implements SitemapUrlProvider {
+
+        private final long size;
+        private final List<String> pages = new ArrayList<>();
+
+        private PagedProvider(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public long count() {
+            return size;
+        }
+
+        @Override
+        public List<SitemapUrl> getUrls(long offset, int limit) {
+            pages.add(offset + "+" + limit);
+
+            List<SitemapUrl> urls = new ArrayList<>();
+            for (long i = offset; i < Math.min(size, offset + limit); i++) {
+                urls.add(new SitemapUrl("/product/" + i, LocalDate.of(2018, 6, 1), "weekly", 0.5));
+            }
+
+            return urls;
+        }
+    }
+
+    /**
+     * Provider of three <code>/product/{id}</code> urls with media, that records the size of the pages it is asked
+     * for extensions of.
+     */
+    private static final class MediaProvider implements SitemapUrlProvider, SitemapExtensionProvider {
+
+        private final PagedProvider products = new PagedProvider(3);
+        private final List<Integer> pages = new ArrayList<>();
+
+        @Override
+        public long count() {
+            return products.count();
+        }
+
+        @Override
+        public List<SitemapUrl> getUrls(long offset, int limit) {
+            return products.getUrls(offset, limit);
+        }
+
+        @Override
+        public Map<String, SitemapExtensions> getExtensions(List<SitemapUrl> urls) {
+            pages.add(urls.size());
+
+            Map<String, SitemapExtensions> extensions = new HashMap<>();
+            extensions.put("/product/0", new SitemapExtensions(
+                    Arrays.asList("/img/0.jpg", "https://cdn.example.com/0.jpg"),
+                    Collections.singletonList(new SitemapVideo("/thumb/0.jpg", "Unboxing", "Unboxing <0>", null,
+                            "/player/0", 90, null)),
+                    new SitemapNews("Shop News", "en", OffsetDateTime.of(2018, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                            "Launch")));
+            extensions.put("/product/2", SitemapExtensions.images(Collections.singletonList("/img/2.jpg")));
+
+            return extensions;
+        }
+    }
+
+    /**
+     * Provider whose urls get a new version each time they are read from the start, unless frozen, and that counts
+     * how often it is asked for its size and for urls.
+     */
+    private static final class ChangingProvider implements SitemapUrlProvider {
+
+        private long size;
+        private int version;
+        private boolean frozen;
+        private int counts;
+        private long read;
+
+        private ChangingProvider(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public long count() {
+            counts++;
+            return size;
+        }
+
+        @Override
+        public List<SitemapUrl> getUrls(long offset, int limit) {
+            if (offset == 0 && !frozen) {
+                version++;
+            }
+
+            List<SitemapUrl> urls = new ArrayList<>();
+            for (long i = offset; i < Math.min(size, offset + limit); i++) {
+                urls.add(new SitemapUrl("/item/" + i + "?v=" + version));
+            }
+
+            read += urls.size();
+            return urls;
+        }
+    }
+}
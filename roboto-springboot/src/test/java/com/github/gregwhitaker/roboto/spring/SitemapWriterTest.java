@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+public class SitemapWriterTest {
+
+    @Test
+    public void writesUrlSetsInTheSitemapNamespace() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SitemapWriter writer = new SitemapWriter(out)) {
+            writer.startUrlSet();
+            writer.writeUrl("http://localhost/search?q=a&b=<c>", "2018-06-01", "daily");
+            writer.writeUrl("http://localhost/caf\u00e9", null, null);
+        }
+
+        Element urlset = parse(out).getDocumentElement();
+        assertEquals(SitemapWriter.NAMESPACE, urlset.getNamespaceURI());
+        assertEquals("urlset", urlset.getLocalName());
+
+        NodeList urls = urlset.getElementsByTagNameNS(SitemapWriter.NAMESPACE, "url");
+        assertEquals(2, urls.getLength());
+        assertEquals("http://localhost/search?q=a&b=<c>", text(urls.item(0), "loc"));
+        assertEquals("2018-06-01", text(urls.item(0), "lastmod"));
+        assertEquals("daily", text(urls.item(0), "changefreq"));
+
+        // Values left out are not written as empty elements
+        assertEquals("http://localhost/caf\u00e9", text(urls.item(1), "loc"));
+        assertEquals(1, ((Element) urls.item(1)).getElementsByTagNameNS("*", "*").getLength());
+    }
+
+    @Test
+    public void writesSitemapIndexes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SitemapWriter writer = new SitemapWriter(out)) {
+            writer.startSitemapIndex();
+            writer.writeSitemap("http://localhost/sitemap-1.xml", SitemapWriter.formatLastmod(LocalDate.of(2018, 6, 1)));
+            writer.writeSitemap("http://localhost/sitemap-2.xml", null);
+        }
+
+        Element index = parse(out).getDocumentElement();
+        assertEquals(SitemapWriter.NAMESPACE, index.getNamespaceURI());
+        assertEquals("sitemapindex", index.getLocalName());
+
+        NodeList sitemaps = index.getElementsByTagNameNS(SitemapWriter.NAMESPACE, "sitemap");
+        assertEquals(2, sitemaps.getLength());
+        assertEquals("http://localhost/sitemap-1.xml", text(sitemaps.item(0), "loc"));
+        assertEquals("2018-06-01", text(sitemaps.item(0), "lastmod"));
+        assertEquals(0, ((Element) sitemaps.item(1)).getElementsByTagNameNS(SitemapWriter.NAMESPACE, "lastmod").getLength());
+    }
+
+    private static Document parse(ByteArrayOutputStream out) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static String text(Node parent, String name) {
+        return ((Element) parent).getElementsByTagNameNS(SitemapWriter.NAMESPACE, name).item(0).getTextContent();
+    }
+}
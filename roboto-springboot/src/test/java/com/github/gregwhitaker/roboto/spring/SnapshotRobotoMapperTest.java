@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SnapshotRobotoMapperTest {
+    private static final String FINGERPRINT = "com.example:shop:1.0.0:1527811200000";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadsTheMappingsOfTheSameBuild() throws Exception {
+        RobotoMapper mapper = new RobotoMapper();
+        mapper.allow(Arrays.asList("/products", "/product/{id}"));
+        mapper.addSitemapUrlProvider(Products.class);
+        mapper.disallow(new String[] { "*" }, Arrays.asList("/admin/users", "/admin/orders"));
+        mapper.disallow(new String[] { "BadBot" }, Collections.singletonList("/search"));
+        mapper.crawlDelay(new String[] { "BadBot" }, 10);
+
+        Path file = folder.getRoot().toPath().resolve("snapshots/roboto.snapshot");
+        SnapshotRobotoMapper.save(mapper, file, FINGERPRINT);
+
+        RobotoMapper loaded = SnapshotRobotoMapper.load(file, FINGERPRINT, getClass().getClassLoader());
+        assertEquals(mapper.getAllowed(), loaded.getAllowed());
+        assertEquals(mapper.getDisallowed(), loaded.getDisallowed());
+        assertEquals(mapper.getSitemapUrlProviders(), loaded.getSitemapUrlProviders());
+        assertEquals(mapper.getCrawlDelays(), loaded.getCrawlDelays());
+        assertEquals(mapper.getRobotsRules(), loaded.getRobotsRules());
+        assertEquals(new String(RobotsResponse.render("http://localhost", mapper).getBody(), StandardCharsets.UTF_8),
+                new String(RobotsResponse.render("http://localhost", loaded).getBody(), StandardCharsets.UTF_8));
+
+        // Only the snapshot is left behind
+        assertEquals(Collections.singletonList(file), list(file.getParent()));
+    }
+
+    @Test
+    public void ignoresSnapshotsOfOtherBuilds() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("roboto.snapshot");
+        assertNull(SnapshotRobotoMapper.load(file, FINGERPRINT, getClass().getClassLoader()));
+
+        SnapshotRobotoMapper.save(new RobotoMapper(), file, FINGERPRINT);
+        assertNull(SnapshotRobotoMapper.load(file, "com.example:shop:1.0.1:1527811200000", getClass().getClassLoader()));
+    }
+
+    private static List<Path> list(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    public static class Products implements SitemapUrlProvider {
+
+        @Override
+        public long count() {
+            return 0;
+        }
+
+        @Override
+        public List<SitemapUrl> getUrls(long offset, int limit) {
+            return Collections.emptyList();
+        }
+    }
+}
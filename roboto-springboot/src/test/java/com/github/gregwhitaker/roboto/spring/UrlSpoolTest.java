@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.spring;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UrlSpoolTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsUrlsUpToTheLimitInMemory() {
+        File directory = folder.getRoot();
+
+        try (UrlSpool spool = spool(directory, 10, 10)) {
+            assertEquals(0, directory.list().length);
+            assertUrls(spool, 10);
+        }
+    }
+
+    @Test
+    public void spoolsUrlsBeyondTheLimitToAFile() {
+        File directory = folder.getRoot();
+
+        try (UrlSpool spool = spool(directory, 10, 25)) {
+            assertEquals(1, directory.list().length);
+            assertUrls(spool, 25);
+        }
+
+        // The file is deleted once the spool is closed
+        assertEquals(0, directory.list().length);
+    }
+
+    private static UrlSpool spool(File directory, int memoryLimit, int urls) {
+        UrlSpool spool = new UrlSpool(directory.toPath(), memoryLimit);
+        for (int i = 0; i < urls; i++) {
+            spool.add(i % 2 == 0 ? new SitemapUrl("/" + i) :
+                    new SitemapUrl("/" + i, LocalDate.ofEpochDay(i), "daily", 0.5, "v" + i));
+        }
+
+        return spool;
+    }
+
+    private static void assertUrls(UrlSpool spool, int count) {
+        List<SitemapUrl> urls = new ArrayList<>();
+        try (UrlSpool.Reader reader = spool.read()) {
+            for (List<SitemapUrl> page = reader.read(4); !page.isEmpty(); page = reader.read(4)) {
+                assertTrue(page.size() <= 4);
+                urls.addAll(page);
+            }
+        }
+
+        assertEquals(count, urls.size());
+        for (int i = 0; i < count; i++) {
+            SitemapUrl url = urls.get(i);
+            assertEquals("/" + i, url.getPath());
+
+            if (i % 2 == 0) {
+                assertNull(url.getLastmod());
+                assertNull(url.getVersion());
+            } else {
+                assertEquals(LocalDate.ofEpochDay(i), url.getLastmod());
+                assertEquals("daily", url.getChangefreq());
+                assertEquals(0.5, url.getPriority(), 0);
+                assertEquals("v" + i, url.getVersion());
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.webflux;
+
+import com.github.gregwhitaker.roboto.spring.RobotoMapper;
+import com.github.gregwhitaker.roboto.spring.annotation.DisallowRobots;
+import com.github.gregwhitaker.roboto.spring.annotation.SitemapUrls;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link RobotoMapper} for Spring WebFlux applications that derives allowed and disallowed paths from the handler
+ * methods registered with the reactive {@link RequestMappingHandlerMapping}, and allowed paths from the GET routes
+ * of functional {@link RouterFunction} beans.
+ *
+ * Router functions do not expose their request predicates in a structured way, so their routes are discovered on a
+ * best-effort basis from the predicates' descriptions. Simple routes such as <code>GET("/foo")</code>, optionally
+ * nested under path prefixes, are supported.
+ */
+public class ReactiveRobotoMapper extends RobotoMapper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveRobotoMapper.class);
+
+    public ReactiveRobotoMapper(BeanFactory beanFactory, RequestMappingHandlerMapping handlerMapping,
+                                Collection<RouterFunction<?>> routerFunctions) {
+        long start = System.currentTimeMillis();
+        doMapping(beanFactory, handlerMapping);
+        mapCrawlDelays(beanFactory);
+
+        for (RouterFunction<?> routerFunction : routerFunctions) {
+            routerFunction.accept(new RouteVisitor());
+        }
+
+        logMappingTime(start);
+    }
+
+    /**
+     * Maps allowed and disallowed endpoints from the registered handler methods.
+     *
+     * @param beanFactory bean factory used to look up the application's base packages
+     * @param handlerMapping reactive handler mapping
+     */
+    private void doMapping(BeanFactory beanFactory, RequestMappingHandlerMapping handlerMapping) {
+        List<String> basePackages = AutoConfigurationPackages.get(beanFactory);
+
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            HandlerMethod handlerMethod = entry.getValue();
+
+            if (!info.getMethodsCondition().getMethods().contains(RequestMethod.GET) ||
+                    !isInBasePackage(basePackages, handlerMethod.getBeanType())) {
+                continue;
+            }
+
+            List<String> paths = new ArrayList<>();
+            for (PathPattern pattern : info.getPatternsCondition().getPatterns()) {
+                paths.add(pattern.getPatternString());
+            }
+
+            DisallowRobots clazzAnnotation = AnnotationUtils.findAnnotation(handlerMethod.getBeanType(), DisallowRobots.class);
+            DisallowRobots methodAnnotation = handlerMethod.getMethodAnnotation(DisallowRobots.class);
+
+            if (clazzAnnotation == null && methodAnnotation == null) {
+                SitemapUrls sitemapUrls = handlerMethod.getMethodAnnotation(SitemapUrls.class);
+
+                // Parameterized paths are enumerated in the sitemap by their provider
+                if (sitemapUrls != null) {
+                    addSitemapUrlProvider(sitemapUrls.value());
+                }
+
+                allow(paths);
+
+                continue;
+            }
+
+            if (clazzAnnotation != null) {
+                disallow(clazzAnnotation.userAgents(), paths);
+            }
+
+            if (methodAnnotation != null) {
+                disallow(methodAnnotation.userAgents(), paths);
+            }
+        }
+    }
+
+    private boolean isInBasePackage(List<String> basePackages, Class<?> beanType) {
+        for (String basePackage : basePackages) {
+            if (beanType.getName().startsWith(basePackage + ".")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Parses a request predicate description, such as <code>(GET &amp;&amp; /foo)</code>, into its conditions.
+     * Predicates combined with <code>||</code> or negated are not supported.
+     *
+     * @param predicate request predicate
+     * @return conditions, or an empty list if the predicate is not supported
+     */
+    private static List<String> getConditions(RequestPredicate predicate) {
+        String description = predicate.toString();
+        if (description.contains("||") || description.contains("!")) {
+            return Collections.emptyList();
+        }
+
+        List<String> conditions = new ArrayList<>();
+        for (String condition : description.replace("(", "").replace(")", "").split("&&")) {
+            conditions.add(condition.trim());
+        }
+
+        return conditions;
+    }
+
+    /**
+     * Visits the routes of a router function, keeping track of the path prefixes of nested routes.
+     */
+    private class RouteVisitor implements RouterFunctions.Visitor {
+
+        private final Deque<String> prefixes = new ArrayDeque<>();
+
+        @Override
+        public void startNested(RequestPredicate predicate) {
+            String prefix = prefixes.isEmpty() ? "" : prefixes.peek();
+
+            for (String condition : getConditions(predicate)) {
+                if (condition.startsWith("/")) {
+                    prefix = prefix + condition;
+                }
+            }
+
+            prefixes.push(prefix);
+        }
+
+        @Override
+        public void endNested(RequestPredicate predicate) {
+            prefixes.pop();
+        }
+
+        @Override
+        public void route(RequestPredicate predicate, HandlerFunction<?> handlerFunction) {
+            List<String> conditions = getConditions(predicate);
+            String prefix = prefixes.isEmpty() ? "" : prefixes.peek();
+
+            if (!conditions.contains("GET")) {
+                LOGGER.debug("Skipping router function route that is not a simple GET route: {}", predicate);
+                return;
+            }
+
+            for (String condition : conditions) {
+                if (condition.startsWith("/")) {
+                    allow(Collections.singleton(prefix + condition));
+                }
+            }
+        }
+
+        @Override
+        public void resources(Function<ServerRequest, Mono<Resource>> lookupFunction) {
+            // Static resources are not mapped
+        }
+
+        @Override
+        public void unknown(RouterFunction<?> routerFunction) {
+            LOGGER.debug("Skipping unknown router function: {}", routerFunction);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.webflux;
+
+import com.github.gregwhitaker.roboto.spring.RobotoCache;
+import com.github.gregwhitaker.roboto.spring.RobotoCoreConfiguration;
+import com.github.gregwhitaker.roboto.spring.RobotoHosts;
+import com.github.gregwhitaker.roboto.spring.RobotoInitializer;
+import com.github.gregwhitaker.roboto.spring.RobotoMapperFactory;
+import com.github.gregwhitaker.roboto.spring.RobotoMetrics;
+import com.github.gregwhitaker.roboto.spring.RobotoProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@Import(RobotoCoreConfiguration.class)
+public class RobotoWebFluxConfiguration {
+    private static final String HANDLER_MAPPING = "requestMappingHandlerMapping";
+
+    @Bean
+    public RobotoMapperFactory robotoMapperFactory() {
+        return beanFactory -> {
+            if (!beanFactory.containsBean(HANDLER_MAPPING)) {
+                return null;
+            }
+
+            RequestMappingHandlerMapping handlerMapping =
+                    beanFactory.getBean(HANDLER_MAPPING, RequestMappingHandlerMapping.class);
+
+            List<RouterFunction<?>> routerFunctions = new ArrayList<>();
+            for (RouterFunction<?> routerFunction : beanFactory.getBeansOfType(RouterFunction.class).values()) {
+                routerFunctions.add(routerFunction);
+            }
+
+            return new ReactiveRobotoMapper(beanFactory, handlerMapping, routerFunctions);
+        };
+    }
+
+    @Bean
+    @Autowired
+    public RobotoWebFluxController robotoWebFluxController(RobotoInitializer initializer,
+                                                           ObjectProvider<RobotoHosts> robotoHosts,
+                                                           RobotoCache cache, RobotoProperties properties,
+                                                           ObjectProvider<RobotoMetrics> metrics) {
+        // Rendering threads may block on a provider or on another request's rendering, but are bounded, so that a
+        // burst of cache misses queues up instead of starting a thread per request
+        int renderThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        return new RobotoWebFluxController(initializer.whenReady(mapper -> robotoHosts.getObject()), cache,
+                properties, metrics.getIfAvailable(() -> RobotoMetrics.NOOP),
+                Schedulers.newParallel("roboto-render", renderThreads));
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.webflux;
+
+import com.github.gregwhitaker.roboto.spring.AcceptEncoding;
+import com.github.gregwhitaker.roboto.spring.RobotoCache;
+import com.github.gregwhitaker.roboto.spring.RobotoDocument;
+import com.github.gregwhitaker.roboto.spring.RobotoHosts;
+import com.github.gregwhitaker.roboto.spring.RobotoMetrics;
+import com.github.gregwhitaker.roboto.spring.RobotoProperties;
+import com.github.gregwhitaker.roboto.spring.RobotsResponse;
+import com.github.gregwhitaker.roboto.spring.SitemapGenerator;
+import com.github.gregwhitaker.roboto.spring.SitemapResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Non-blocking controller responsible for hosting the robots.txt and sitemap files in Spring WebFlux applications.
+ *
+ * Documents are rendered on a separate, bounded scheduler so that event loop threads are never blocked, and a burst
+ * of requests for documents that are not cached yet waits for a free thread instead of starting one thread each.
+ * Documents are written as a stream of read-only buffers wrapping the pre-rendered bytes, so that large sitemaps are
+ * neither copied nor written faster than the client can read them.
+ *
+ * While the endpoints are still being mapped, requests are answered with 503 Service Unavailable and a
+ * <code>Retry-After</code> header, or with a robots.txt that allows everything if so configured.
+ *
+ * Each host is served the documents of its own rules, as selected by {@link RobotoHosts}.
+ */
+@Controller
+public class RobotoWebFluxController implements DisposableBean {
+    private static final MediaType APPLICATION_GZIP = MediaType.valueOf("application/gzip");
+
+    /**
+     * Size of the buffers a document is split into when it is written to the response.
+     */
+    static final int CHUNK_SIZE = 8192;
+
+    private final Supplier<RobotoHosts> hosts;
+    private final RobotoCache cache;
+    private final CacheControl cacheControl;
+    private final RobotoMetrics metrics;
+    private final Scheduler scheduler;
+    private final String retryAfter;
+    private final boolean permissiveRobots;
+
+    /**
+     * Creates a controller whose hosts, and the mapper they were created from, may not be available yet.
+     *
+     * @param hosts supplies the hosts, or <code>null</code> while the endpoints are being mapped
+     * @param cache document cache
+     * @param properties roboto properties
+     * @param metrics metrics
+     * @param scheduler bounded scheduler documents are rendered on, which is disposed with the controller
+     */
+    public RobotoWebFluxController(Supplier<RobotoHosts> hosts, RobotoCache cache,
+                                   RobotoProperties properties, RobotoMetrics metrics, Scheduler scheduler) {
+        this.hosts = hosts;
+        this.cache = cache;
+        this.cacheControl = properties.getCacheControl().toHttpCacheControl();
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.retryAfter = Long.toString(properties.getInitialization().getRetryAfter().getSeconds());
+        this.permissiveRobots = properties.getInitialization().isPermissiveRobots();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Handles requests for robots.txt file.
+     */
+    @GetMapping("/robots.txt")
+    public Mono<Void> robots(ServerWebExchange exchange) {
+        RobotoHosts robotoHosts = hosts.get();
+        if (robotoHosts == null) {
+            return permissiveRobots ? allowAll(exchange) : unavailable(exchange);
+        }
+
+        SitemapGenerator generator = robotoHosts.getGenerator(exchange.getRequest().getURI().getHost());
+        RobotoCache.Key key = createKey(exchange, robotoHosts, generator, RobotsResponse.DOCUMENT);
+
+        return respond(exchange, render(key, previous -> RobotsResponse.render(key.getBaseUrl(), generator.getMapper())), false);
+    }
+
+    /**
+     * Handles requests for sitemap.xml file.
+     */
+    @GetMapping("/sitemap.xml")
+    public Mono<Void> sitemap(ServerWebExchange exchange) {
+        return respondSitemap(exchange, (robotoHosts, generator) -> renderSitemap(exchange, robotoHosts, generator), false);
+    }
+
+    /**
+     * Handles requests for the gzip compressed sitemap.xml.gz file.
+     */
+    @GetMapping("/sitemap.xml.gz")
+    public Mono<Void> sitemapGzip(ServerWebExchange exchange) {
+        return respondSitemap(exchange, (robotoHosts, generator) -> renderSitemap(exchange, robotoHosts, generator), true);
+    }
+
+    /**
+     * Handles requests for a sitemap shard when the sitemap has been split into a sitemap index.
+     */
+    @GetMapping("/sitemap-{shard:\\d+}.xml")
+    public Mono<Void> sitemapShard(ServerWebExchange exchange, @PathVariable("shard") int shard) {
+        return respondSitemap(exchange, (robotoHosts, generator) -> renderShard(exchange, robotoHosts, generator, shard), false);
+    }
+
+    /**
+     * Handles requests for a gzip compressed sitemap shard.
+     */
+    @GetMapping("/sitemap-{shard:\\d+}.xml.gz")
+    public Mono<Void> sitemapShardGzip(ServerWebExchange exchange, @PathVariable("shard") int shard) {
+        return respondSitemap(exchange, (robotoHosts, generator) -> renderShard(exchange, robotoHosts, generator, shard), true);
+    }
+
+    /**
+     * Writes a sitemap document to the response, or 503 Service Unavailable while the endpoints are being mapped.
+     */
+    private Mono<Void> respondSitemap(ServerWebExchange exchange,
+                                      BiFunction<RobotoHosts, SitemapGenerator, Mono<RobotoDocument>> renderer,
+                                      boolean gzipFile) {
+        RobotoHosts robotoHosts = hosts.get();
+        if (robotoHosts == null) {
+            return unavailable(exchange);
+        }
+
+        SitemapGenerator generator = robotoHosts.getGenerator(exchange.getRequest().getURI().getHost());
+        return respond(exchange, renderer.apply(robotoHosts, generator), gzipFile);
+    }
+
+    private Mono<RobotoDocument> renderSitemap(ServerWebExchange exchange, RobotoHosts robotoHosts, SitemapGenerator generator) {
+        RobotoCache.Key key = createKey(exchange, robotoHosts, generator, SitemapResponse.DOCUMENT);
+
+        return render(key, previous -> SitemapResponse.rerender(previous, hash -> generator.render(key.getBaseUrl(), hash)));
+    }
+
+    private Mono<RobotoDocument> renderShard(ServerWebExchange exchange, RobotoHosts robotoHosts, SitemapGenerator generator,
+                                             int shard) {
+        RobotoCache.Key key = createKey(exchange, robotoHosts, generator, SitemapGenerator.getShardDocument(shard));
+
+        return render(key, previous -> SitemapResponse.rerender(previous, hash -> generator.renderShard(key.getBaseUrl(), shard, hash)));
+    }
+
+    /**
+     * Gets a document from the cache. Documents that have already been rendered are returned on the calling thread,
+     * otherwise the document is rendered, or waited for, on the rendering scheduler.
+     *
+     * @param key cache key
+     * @param renderer renders the document given its previous rendering
+     * @return the rendered document
+     */
+    private Mono<RobotoDocument> render(RobotoCache.Key key, UnaryOperator<RobotoDocument> renderer) {
+        RobotoDocument document = cache.getIfPresent(key);
+        if (document != null) {
+            return Mono.just(document);
+        }
+
+        return Mono.fromCallable(() -> cache.get(key, renderer))
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Writes a rendered document to the response. Conditional requests matching the ETag or Last-Modified date
+     * are answered with 304 Not Modified without writing the body.
+     *
+     * @param exchange current exchange
+     * @param document rendered document
+     * @param gzipFile <code>true</code> to serve the compressed document as a gzip file
+     * @return completes when the response has been written
+     */
+    private Mono<Void> respond(ServerWebExchange exchange, Mono<RobotoDocument> document, boolean gzipFile) {
+        ServerHttpResponse response = exchange.getResponse();
+
+        return document
+                .flatMap(doc -> {
+                    HttpHeaders headers = response.getHeaders();
+                    headers.setCacheControl(cacheControl.getHeaderValue());
+                    headers.setLastModified(doc.getLastModified());
+
+                    String acceptEncoding = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+                    boolean gzip = gzipFile || AcceptEncoding.acceptsGzip(acceptEncoding);
+                    String etag = gzip ? doc.getGzipEtag() : doc.getEtag();
+                    ByteBuffer body = gzip ? doc.getGzipBodyBuffer() : doc.getBodyBuffer();
+
+                    if (gzipFile) {
+                        headers.setContentType(APPLICATION_GZIP);
+                    } else {
+                        headers.setContentType(doc.getContentType());
+                        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+                        if (gzip) {
+                            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                        }
+                    }
+
+                    headers.setETag(etag);
+
+                    if (exchange.checkNotModified(etag, Instant.ofEpochMilli(doc.getLastModified()))) {
+                        recordResponse(exchange, HttpStatus.NOT_MODIFIED, 0);
+                        return response.setComplete();
+                    }
+
+                    headers.setContentLength(body.remaining());
+                    recordResponse(exchange, HttpStatus.OK, body.remaining());
+                    return response.writeWith(chunks(response.bufferFactory(), body));
+                })
+                .onErrorResume(e -> {
+                    // Once part of the body has been sent the status can no longer change, so the connection is
+                    // closed instead of the truncated body ending like a complete one
+                    if (response.isCommitted()) {
+                        return Mono.error(e);
+                    }
+
+                    // In the event of an exception, or if the shard does not exist, just don't return the file
+                    response.setStatusCode(HttpStatus.NOT_FOUND);
+                    recordResponse(exchange, HttpStatus.NOT_FOUND, 0);
+                    return response.setComplete();
+                });
+    }
+
+    /**
+     * Tells clients to retry once the endpoints have been mapped. The response must not be cached, so that caches in
+     * front of the application pick up the real document as soon as it is available.
+     */
+    private Mono<Void> unavailable(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.getHeaders().setCacheControl(CacheControl.noStore().getHeaderValue());
+
+        recordResponse(exchange, HttpStatus.SERVICE_UNAVAILABLE, 0);
+        return response.setComplete();
+    }
+
+    /**
+     * Writes a robots.txt that allows everything, served while the endpoints are being mapped.
+     */
+    private Mono<Void> allowAll(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        byte[] body = RobotsResponse.ALLOW_ALL.getBytes(StandardCharsets.UTF_8);
+
+        response.getHeaders().setContentType(RobotsResponse.CONTENT_TYPE);
+        response.getHeaders().setCacheControl(CacheControl.noStore().getHeaderValue());
+        response.getHeaders().setContentLength(body.length);
+
+        recordResponse(exchange, HttpStatus.OK, body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private void recordResponse(ServerWebExchange exchange, HttpStatus status, long bytes) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+
+        metrics.recordResponse(RobotoMetrics.getDocument(path, status.value()), exchange.getRequest().getURI().getHost(),
+                status.value(), bytes);
+    }
+
+    /**
+     * Splits a document into read-only buffers that wrap, rather than copy, the rendered bytes, which may be
+     * memory-mapped. Buffers are only created as they are requested, so a slow client does not cause the whole
+     * document to be buffered again.
+     *
+     * @param bufferFactory response buffer factory
+     * @param body rendered bytes
+     * @return buffers
+     */
+    static Flux<DataBuffer> chunks(DataBufferFactory bufferFactory, ByteBuffer body) {
+        int length = body.remaining();
+        int count = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        return Flux.range(0, count)
+                .map(i -> {
+                    ByteBuffer chunk = body.duplicate();
+                    chunk.position(body.position() + i * CHUNK_SIZE);
+                    chunk.limit(chunk.position() + Math.min(CHUNK_SIZE, length - i * CHUNK_SIZE));
+
+                    return bufferFactory.wrap(chunk.slice().asReadOnlyBuffer());
+                });
+    }
+
+    /**
+     * Creates the cache key of a document for the host, scheme and port of the request. Requests on the default
+     * port of their scheme have no port in their uri, which the key leaves out of the base url.
+     */
+    private static RobotoCache.Key createKey(ServerWebExchange exchange, RobotoHosts hosts, SitemapGenerator generator,
+                                             String document) {
+        URI uri = exchange.getRequest().getURI();
+
+        return hosts.createKey(generator, uri.getScheme(), uri.getHost(), uri.getPort(), document);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.roboto.webflux;
+
+import com.github.gregwhitaker.roboto.spring.RobotoCache;
+import com.github.gregwhitaker.roboto.spring.RobotoHosts;
+import com.github.gregwhitaker.roboto.spring.RobotoMapper;
+import com.github.gregwhitaker.roboto.spring.RobotoMetrics;
+import com.github.gregwhitaker.roboto.spring.RobotoProperties;
+import com.github.gregwhitaker.roboto.spring.SitemapGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RobotoWebFluxControllerTest {
+
+    private RobotoWebFluxController controller;
+    private WebTestClient client;
+
+    @Before
+    public void setUp() {
+        RobotoMapper mapper = new PagesMapper(25);
+
+        RobotoProperties properties = new RobotoProperties();
+        SitemapGenerator generator = new SitemapGenerator(mapper, Collections.emptyList(), 10,
+                properties.getSitemap().getPageSize());
+
+        RobotoHosts hosts = RobotoHosts.create(generator, properties);
+        controller = new RobotoWebFluxController(() -> hosts, new RobotoCache(100), properties,
+                RobotoMetrics.NOOP, Schedulers.newParallel("roboto-test", 1));
+        client = WebTestClient.bindToController(controller).configureClient().baseUrl("http://localhost").build();
+    }
+
+    @After
+    public void tearDown() {
+        controller.destroy();
+    }
+
+    @Test
+    public void servesDocumentsWithValidators() {
+        EntityExchangeResult<byte[]> robots = client.get().uri("/robots.txt")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Cache-Control", "max-age=3600, public")
+                .expectBody().returnResult();
+
+        String etag = robots.getResponseHeaders().getETag();
+        assertEquals(robots.getResponseBody().length, robots.getResponseHeaders().getContentLength());
+
+        client.get().uri("/robots.txt").header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void servesGzipToClientsThatAcceptIt() throws Exception {
+        byte[] plain = client.get().uri("/sitemap-1.xml")
+                .exchange()
+                .expectHeader().valueEquals("Vary", "Accept-Encoding")
+                .expectBody().returnResult().getResponseBody();
+
+        byte[] gzip = client.get().uri("/sitemap-1.xml").header("Accept-Encoding", "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Content-Encoding", "gzip")
+                .expectBody().returnResult().getResponseBody();
+
+        byte[] gzipFile = client.get().uri("/sitemap-1.xml.gz")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Content-Type", "application/gzip")
+                .expectBody().returnResult().getResponseBody();
+
+        assertArrayEquals(plain, gunzip(gzip));
+        assertArrayEquals(plain, gunzip(gzipFile));
+    }
+
+    @Test
+    public void answersMissingShardsWithNotFound() {
+        String index = client.get().uri("/sitemap.xml").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertTrue(index.contains("/sitemap-3.xml</loc>"));
+
+        client.get().uri("/sitemap-4.xml").exchange().expectStatus().isNotFound();
+        client.get().uri("/sitemap-0.xml.gz").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void splitsDocumentsIntoReadOnlyChunks() {
+        byte[] body = new byte[RobotoWebFluxController.CHUNK_SIZE * 2 + 1];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+
+        // Documents may be a region of a larger buffer
+        byte[] region = new byte[body.length + 2];
+        System.arraycopy(body, 0, region, 1, body.length);
+
+        List<DataBuffer> chunks = RobotoWebFluxController
+                .chunks(new DefaultDataBufferFactory(), ByteBuffer.wrap(region, 1, body.length))
+                .collectList()
+                .block();
+
+        assertEquals(3, chunks.size());
+        assertEquals(RobotoWebFluxController.CHUNK_SIZE, chunks.get(0).readableByteCount());
+        assertEquals(1, chunks.get(2).readableByteCount());
+        assertTrue(chunks.get(1).asByteBuffer().isReadOnly());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (DataBuffer chunk : chunks) {
+            byte[] bytes = new byte[chunk.readableByteCount()];
+            chunk.read(bytes);
+            out.write(bytes, 0, bytes.length);
+        }
+        assertArrayEquals(body, out.toByteArray());
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Mapper that allows <code>/page/0</code> to <code>/page/{count - 1}</code>.
+     */
+    private static final class PagesMapper extends RobotoMapper {
+
+        private PagesMapper(int count) {
+            List<String> paths = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                paths.add("/page/" + i);
+            }
+
+            allow(paths);
+        }
+    }
+}